@@ -0,0 +1,58 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import com.rabobank.nl.statementprocessor.service.rule.RuleEvaluation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End balance check on its own. The generated amounts have two decimals, an amount scale of 0
+ * sends every record through the BigDecimal fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndBalanceRuleBenchmark {
+
+  @Param({"2", "0"})
+  int amountScale;
+
+  @Param({"100000"})
+  int records;
+
+  private List<StatementRecord> statementRecords;
+  private EndBalanceRule endBalanceRule;
+
+  @Setup
+  public void setUp() {
+    statementRecords = StatementRecordGenerator.generate(records, 0, 0.01);
+    endBalanceRule = new EndBalanceRule(amountScale);
+  }
+
+  @Benchmark
+  public int evaluate() {
+    RuleEvaluation evaluation = endBalanceRule.newEvaluation(records);
+    int errors = 0;
+    for (StatementRecord statementRecord : statementRecords) {
+      if (evaluation.evaluate(statementRecord) != null) {
+        errors++;
+      }
+    }
+    return errors;
+  }
+}
@@ -0,0 +1,111 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.rabobank.nl.statementprocessor.service.index.ReferenceIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of a single reference in a persistent reference index holding the references of
+ * earlier deliveries, each delivery in a segment of its own. One delivery is the fully merged
+ * index, eight the most segments a lookup searches by default. New references are mostly answered
+ * by the bloom filter, known references search the segments. The average lookup is measured on
+ * references of which one in a hundred was received before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReferenceIndexBenchmark {
+
+  private static final int LOOKUPS = 1 << 16;
+
+  @Param({"1000000", "10000000", "100000000"})
+  int references;
+
+  @Param({"1", "4", "8"})
+  int deliveries;
+
+  @Param({"0.01"})
+  double knownRate;
+
+  private Path directory;
+  private ReferenceIndex referenceIndex;
+  private long[] knownReferences;
+  private long[] newReferences;
+  private long[] receivedReferences;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("reference-index");
+    //no merge while measuring, every delivery stays a segment of its own
+    int mergeFactor = Math.max(2, deliveries);
+    referenceIndex = new ReferenceIndex(directory.toString(), references, 0.01, mergeFactor,
+        mergeFactor + 1);
+    Random random = new Random(42);
+    long[] delivery = new long[references / deliveries];
+    knownReferences = new long[LOOKUPS];
+    for (int i = 0; i < deliveries; i++) {
+      for (int j = 0; j < delivery.length; j++) {
+        //even references are known, odd ones new
+        delivery[j] = random.nextLong() & ~1L;
+      }
+      referenceIndex.add(delivery, delivery.length);
+      for (int j = i; j < LOOKUPS; j += deliveries) {
+        knownReferences[j] = delivery[random.nextInt(delivery.length)];
+      }
+    }
+    newReferences = new long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      newReferences[i] = random.nextLong() | 1L;
+    }
+    receivedReferences = new long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      receivedReferences[i] = random.nextDouble() < knownRate ? knownReferences[i]
+          : newReferences[i];
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    referenceIndex.shutdown();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public boolean containsKnownReference() {
+    return referenceIndex.contains(knownReferences[next++ & (LOOKUPS - 1)]);
+  }
+
+  @Benchmark
+  public boolean containsNewReference() {
+    return referenceIndex.contains(newReferences[next++ & (LOOKUPS - 1)]);
+  }
+
+  @Benchmark
+  public boolean containsReceivedReference() {
+    return referenceIndex.contains(receivedReferences[next++ & (LOOKUPS - 1)]);
+  }
+}
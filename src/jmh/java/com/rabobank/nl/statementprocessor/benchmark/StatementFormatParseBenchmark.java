@@ -0,0 +1,110 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+
+/**
+ * Parse throughput of the same delivery as JSON read by Jackson, as CSV and as XML, record by
+ * record like the v2 endpoint and into a columnar batch like the v1 endpoint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatementFormatParseBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int records;
+
+  @Param({"0.01"})
+  double duplicateRate;
+
+  @Param({"0.01"})
+  double incorrectEndBalanceRate;
+
+  @Param({"json", "csv", "xml"})
+  String format;
+
+  private byte[] delivery;
+  private MediaType contentType;
+  private StatementRecordReader statementRecordReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<StatementRecord> statementRecords = StatementRecordGenerator
+        .generate(records, duplicateRate, incorrectEndBalanceRate);
+    if ("csv".equals(format)) {
+      delivery = toCsv(statementRecords).getBytes(StandardCharsets.UTF_8);
+      contentType = StatementRecordReader.TEXT_CSV;
+    } else if ("xml".equals(format)) {
+      delivery = toXml(statementRecords).getBytes(StandardCharsets.UTF_8);
+      contentType = MediaType.APPLICATION_XML;
+    } else {
+      delivery = StatementRecordGenerator.objectMapper().writeValueAsBytes(statementRecords);
+      contentType = MediaType.APPLICATION_JSON;
+    }
+    statementRecordReader = new StatementRecordReader(StatementRecordGenerator.objectMapper());
+  }
+
+  @Benchmark
+  public long streamRecords(Blackhole blackhole) throws IOException {
+    return statementRecordReader
+        .read(new ByteArrayInputStream(delivery), contentType, blackhole::consume);
+  }
+
+  @Benchmark
+  public StatementBatch readBatch() throws IOException {
+    return statementRecordReader.readBatch(new ByteArrayInputStream(delivery), contentType);
+  }
+
+  private static String toCsv(List<StatementRecord> statementRecords) {
+    StringBuilder csv = new StringBuilder(
+        "Reference,Account Number,Description,Start Balance,Mutation,End Balance\r\n");
+    for (StatementRecord statementRecord : statementRecords) {
+      csv.append(statementRecord.getReference()).append(',')
+          .append(statementRecord.getAccountNumber()).append(",\"")
+          .append(statementRecord.getDescription().replace("\"", "\"\"")).append("\",")
+          .append(statementRecord.getStartBalance().toPlainString()).append(',')
+          .append(statementRecord.getMutation().toPlainString()).append(',')
+          .append(statementRecord.getEndBalance().toPlainString()).append("\r\n");
+    }
+    return csv.toString();
+  }
+
+  private static String toXml(List<StatementRecord> statementRecords) {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><records>");
+    for (StatementRecord statementRecord : statementRecords) {
+      xml.append("<record reference=\"").append(statementRecord.getReference())
+          .append("\"><accountNumber>").append(statementRecord.getAccountNumber())
+          .append("</accountNumber><description>")
+          .append(statementRecord.getDescription().replace("&", "&amp;").replace("<", "&lt;"))
+          .append("</description><startBalance>")
+          .append(statementRecord.getStartBalance().toPlainString())
+          .append("</startBalance><mutation>").append(statementRecord.getMutation().toPlainString())
+          .append("</mutation><endBalance>").append(statementRecord.getEndBalance().toPlainString())
+          .append("</endBalance></record>\n");
+    }
+    return xml.append("</records>").toString();
+  }
+}
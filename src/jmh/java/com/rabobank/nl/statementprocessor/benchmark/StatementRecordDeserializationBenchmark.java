@@ -0,0 +1,88 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+
+/**
+ * Jackson deserialization of a delivery, bound as a list like the v1 endpoint and record by record
+ * like the v2 endpoint, from text JSON and the binary Smile and CBOR formats
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatementRecordDeserializationBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int records;
+
+  @Param({"0.01"})
+  double duplicateRate;
+
+  @Param({"0.01"})
+  double incorrectEndBalanceRate;
+
+  @Param({"json", "smile", "cbor"})
+  String format;
+
+  private byte[] delivery;
+  private MediaType contentType;
+  private ObjectReader listReader;
+  private StatementRecordReader statementRecordReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = StatementRecordGenerator.objectMapper();
+    ObjectMapper formatMapper;
+    if ("smile".equals(format)) {
+      formatMapper = StatementRecordGenerator.objectMapper(new SmileFactory());
+      contentType = StatementRecordReader.APPLICATION_SMILE;
+    } else if ("cbor".equals(format)) {
+      formatMapper = StatementRecordGenerator.objectMapper(new CBORFactory());
+      contentType = MediaType.APPLICATION_CBOR;
+    } else {
+      formatMapper = objectMapper;
+      contentType = MediaType.APPLICATION_JSON;
+    }
+    delivery = formatMapper.writeValueAsBytes(StatementRecordGenerator
+        .generate(records, duplicateRate, incorrectEndBalanceRate));
+    listReader = formatMapper.readerFor(new TypeReference<List<StatementRecord>>() {
+    });
+    statementRecordReader = new StatementRecordReader(objectMapper);
+  }
+
+  @Benchmark
+  public List<StatementRecord> bindList() throws IOException {
+    return listReader.readValue(delivery);
+  }
+
+  @Benchmark
+  public long streamRecords(Blackhole blackhole) throws IOException {
+    return statementRecordReader
+        .read(new ByteArrayInputStream(delivery), contentType, blackhole::consume);
+  }
+}
@@ -0,0 +1,67 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Generates synthetic deliveries for the benchmarks, with a configurable share of duplicate
+ * references and incorrect end balances. The same seed always gives the same delivery.
+ */
+final class StatementRecordGenerator {
+
+  private static final int ACCOUNTS = 1000;
+
+  private StatementRecordGenerator() {
+  }
+
+  /**
+   * @param records - number of records in the delivery
+   * @param duplicateRate - share of records reusing the reference of an earlier record
+   * @param incorrectEndBalanceRate - share of records with an end balance off by one
+   * @return the generated records
+   */
+  static List<StatementRecord> generate(int records, double duplicateRate,
+      double incorrectEndBalanceRate) {
+    Random random = new Random(42);
+    //a delivery repeats the same accounts over and over
+    String[] accountNumbers = new String[ACCOUNTS];
+    for (int i = 0; i < accountNumbers.length; i++) {
+      accountNumbers[i] = String
+          .format("NL%02dRABO%010d", random.nextInt(100), random.nextInt(1_000_000_000));
+    }
+    List<StatementRecord> statementRecords = new ArrayList<>(records);
+    for (int i = 0; i < records; i++) {
+      long reference = i > 0 && random.nextDouble() < duplicateRate ? random.nextInt(i) : i;
+      BigDecimal startBalance = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+      BigDecimal mutation = BigDecimal.valueOf(random.nextInt(20_000) - 10_000, 2);
+      BigDecimal endBalance = startBalance.add(mutation);
+      if (random.nextDouble() < incorrectEndBalanceRate) {
+        endBalance = endBalance.add(BigDecimal.ONE);
+      }
+      statementRecords.add(StatementRecord.builder().reference(reference)
+          .accountNumber(accountNumbers[random.nextInt(accountNumbers.length)])
+          .description("Payment " + (i % 97)).startBalance(startBalance).mutation(mutation)
+          .endBalance(endBalance).build());
+    }
+    return statementRecords;
+  }
+
+  /**
+   * @return object mapper configured like the one of the application
+   */
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()).build();
+  }
+
+  static ObjectMapper objectMapper(JsonFactory format) {
+    return Jackson2ObjectMapperBuilder.json().factory(format)
+        .modulesToInstall(new ParameterNamesModule()).build();
+  }
+}
@@ -0,0 +1,58 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessorBuilder;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson serialization of the result of a delivery, the size depends on the error rates
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatementResultSerializationBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int records;
+
+  @Param({"0.01"})
+  double duplicateRate;
+
+  @Param({"0.01"})
+  double incorrectEndBalanceRate;
+
+  private StatementResult statementResult;
+  private ObjectWriter resultWriter;
+
+  @Setup
+  public void setUp() {
+    statementResult = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).build()
+        .validateStatementRecords(StatementRecordGenerator
+            .generate(records, duplicateRate, incorrectEndBalanceRate));
+    resultWriter = StatementRecordGenerator.objectMapper().writerFor(StatementResult.class);
+  }
+
+  @Benchmark
+  public byte[] writeResult() throws JsonProcessingException {
+    return resultWriter.writeValueAsBytes(statementResult);
+  }
+}
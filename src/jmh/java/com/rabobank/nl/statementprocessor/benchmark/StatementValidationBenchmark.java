@@ -0,0 +1,85 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementMetrics;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of a bound delivery, the hot path of the process endpoint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatementValidationBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int records;
+
+  @Param({"0.01"})
+  double duplicateRate;
+
+  @Param({"0.01"})
+  double incorrectEndBalanceRate;
+
+  /**
+   * Number of records from which the validation runs in parallel, 0 for sequential only
+   */
+  @Param({"0", "100000"})
+  int parallelThreshold;
+
+  /**
+   * Meters the deliveries are recorded in, off records in no registry and times no rules
+   */
+  @Param({"off", "prometheus"})
+  String metrics;
+
+  private List<StatementRecord> statementRecords;
+  private StatementValidationProcessor statementValidationProcessor;
+
+  @Setup
+  public void setUp() {
+    statementRecords = StatementRecordGenerator
+        .generate(records, duplicateRate, incorrectEndBalanceRate);
+    StatementMetrics statementMetrics = "prometheus".equals(metrics)
+        ? new StatementMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT))
+        : new StatementMetrics(Metrics.globalRegistry, Integer.MAX_VALUE);
+    statementValidationProcessor = new StatementValidationProcessor(
+        Arrays.asList(new DuplicateReferenceRule(), new EndBalanceRule()), parallelThreshold, 0,
+        16384, StatementValidationProcessor.DEFAULT_ERROR_SAMPLES,
+        StatementValidationProcessor.DEFAULT_ERROR_SAMPLE_RATE, statementMetrics);
+  }
+
+  @TearDown
+  public void tearDown() {
+    statementValidationProcessor.shutdown();
+  }
+
+  @Benchmark
+  public StatementResult validateStatementRecords() {
+    return statementValidationProcessor.validateStatementRecords(statementRecords);
+  }
+}
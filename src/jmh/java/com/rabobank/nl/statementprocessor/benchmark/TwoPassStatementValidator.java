@@ -0,0 +1,79 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DUPLICATE_REFERENCE;
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.INCORRECT_END_BALANCE;
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.SUCCESS;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.util.LongHashSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The two pass validation as it was before the rules were fused into a single pass, kept as the
+ * reference point of {@link ValidationPipelineBenchmark}
+ */
+class TwoPassStatementValidator {
+
+  StatementResult validateStatementRecords(List<StatementRecord> statementRecords) {
+
+    List<ErrorRecord> errorRecordsWithReferenceNotUnique = validateReferenceNotUnique(
+        statementRecords);
+
+    List<ErrorRecord> errorRecordsWithEndBalance = validateEndBalance(statementRecords);
+
+    String result = createResult(errorRecordsWithReferenceNotUnique.isEmpty(),
+        errorRecordsWithEndBalance.isEmpty());
+    return StatementResult.builder().errorRecords(Stream
+        .concat(errorRecordsWithReferenceNotUnique.stream(), errorRecordsWithEndBalance.stream())
+        .distinct().collect(
+            Collectors.toList())).result(result).build();
+  }
+
+  private List<ErrorRecord> validateEndBalance(List<StatementRecord> statementRecords) {
+    return statementRecords.stream().
+        filter(statementRecord -> !statementRecord.getStartBalance().add(statementRecord.getMutation())
+            .equals(statementRecord.getEndBalance()))
+        .map(this::createErrorRecord).distinct()
+        .collect(Collectors.toList());
+  }
+
+  private List<ErrorRecord> validateReferenceNotUnique(List<StatementRecord> statementRecords) {
+    LongHashSet seenReferences = new LongHashSet(statementRecords.size());
+    LongHashSet duplicateReferences = new LongHashSet();
+    for (StatementRecord statementRecord : statementRecords) {
+      if (!seenReferences.add(statementRecord.getReference())) {
+        duplicateReferences.add(statementRecord.getReference());
+      }
+    }
+    if (duplicateReferences.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return statementRecords
+        .stream().filter(statementRecord -> duplicateReferences.contains(statementRecord.getReference()))
+        .map(this::createErrorRecord).distinct()
+        .collect(Collectors.toList());
+  }
+
+  private ErrorRecord createErrorRecord(StatementRecord statementRecord) {
+    return ErrorRecord.builder().reference(statementRecord.getReference())
+        .accountNumber(statementRecord.getAccountNumber()).build();
+  }
+
+  private String createResult(boolean referenceNotUnique, boolean incorrectEndBalance) {
+    if (!referenceNotUnique && !incorrectEndBalance) {
+      return DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+    } else if (!referenceNotUnique) {
+      return DUPLICATE_REFERENCE;
+    } else if (!incorrectEndBalance) {
+      return INCORRECT_END_BALANCE;
+    } else {
+      return SUCCESS;
+    }
+  }
+}
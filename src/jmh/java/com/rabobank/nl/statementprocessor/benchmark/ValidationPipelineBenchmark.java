@@ -0,0 +1,58 @@
+package com.rabobank.nl.statementprocessor.benchmark;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessorBuilder;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the fused single pass validation with the former two pass validation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationPipelineBenchmark {
+
+  @Param({"1000", "100000"})
+  int records;
+
+  private List<StatementRecord> statementRecords;
+  private StatementValidationProcessor singlePass;
+  private TwoPassStatementValidator twoPass;
+
+  @Setup
+  public void setUp() {
+    statementRecords = StatementRecordGenerator.generate(records, 0.01, 0.01);
+    singlePass = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).build();
+    twoPass = new TwoPassStatementValidator();
+  }
+
+  @Benchmark
+  public StatementResult singlePass() {
+    return singlePass.validateStatementRecords(statementRecords);
+  }
+
+  @Benchmark
+  public StatementResult twoPass() {
+    return twoPass.validateStatementRecords(statementRecords);
+  }
+}
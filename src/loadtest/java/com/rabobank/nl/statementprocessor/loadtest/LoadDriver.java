@@ -0,0 +1,300 @@
+package com.rabobank.nl.statementprocessor.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.nl.statementprocessor.CustomerStatementProcessorApplication;
+import com.rabobank.nl.statementprocessor.loadtest.StatementDeliveryGenerator.GeneratedDelivery;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+
+/**
+ * Sends the same delivery with a fixed number of concurrent requests to a process endpoint for a
+ * fixed time and reports throughput, latency percentiles and the peak heap used by the instance.
+ * Without {@code --url} the application is started in this JVM on a free port, with the result
+ * cache disabled so every request is validated. Arguments the driver doesn't know are passed to
+ * that application, e.g. {@code --statement.validation.parallel.threshold=100000}.
+ */
+public final class LoadDriver {
+
+  private static final String USAGE = "Usage: LoadDriver [--url=<base url>] "
+      + "[--path=/customerstatement/v2/process] [--concurrency=8] [--warmup=10s] [--duration=60s] "
+      + "[--records=100000] [--duplicate-rate=0.01] [--incorrect-end-balance-rate=0.01] "
+      + "[--format=json|smile|cbor] [--delivery=<existing file>] [--<application property>=...]";
+  private static final List<String> OPTIONS = Arrays.asList("url", "path", "concurrency", "warmup",
+      "duration", "records", "duplicate-rate", "incorrect-end-balance-rate", "format", "delivery");
+  private static final Duration HEAP_SAMPLE_INTERVAL = Duration.ofMillis(20);
+  private static final Duration REMOTE_HEAP_SAMPLE_INTERVAL = Duration.ofMillis(250);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(30);
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, String> options = new LinkedHashMap<>();
+  private final List<String> applicationArgs = new ArrayList<>();
+
+  private final ConcurrentHistogram latencies = new ConcurrentHistogram(
+      TimeUnit.MINUTES.toMicros(60), 3);
+  private final Map<String, LongAdder> results = new ConcurrentHashMap<>();
+  private final LongAdder failures = new LongAdder();
+  private final AtomicLong lastCompletion = new AtomicLong();
+
+  private LoadDriver(String[] args) {
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value : " + arg);
+      }
+      String name = arg.substring(2, separator);
+      if (OPTIONS.contains(name)) {
+        options.put(name, arg.substring(separator + 1));
+      } else {
+        applicationArgs.add(arg);
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadDriver loadDriver;
+    try {
+      loadDriver = new LoadDriver(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(64);
+      return;
+    }
+    System.exit(loadDriver.run());
+  }
+
+  private int run() throws Exception {
+    int concurrency = Integer.parseInt(option("concurrency", "8"));
+    Duration warmup = DurationStyle.detectAndParse(option("warmup", "10s"));
+    Duration duration = DurationStyle.detectAndParse(option("duration", "60s"));
+    //a connection per worker is kept alive between requests
+    System.setProperty("http.maxConnections", String.valueOf(concurrency));
+
+    Path delivery;
+    String description;
+    long records;
+    if (options.containsKey("delivery")) {
+      delivery = Paths.get(options.get("delivery"));
+      records = countRecords(delivery);
+      description = String.format("%s of %,d records", delivery, records);
+    } else {
+      delivery = Files.createTempFile("delivery", "." + option("format", "json"));
+      delivery.toFile().deleteOnExit();
+      GeneratedDelivery generatedDelivery = StatementDeliveryGenerator.write(delivery,
+          Long.parseLong(option("records", "100000")),
+          Double.parseDouble(option("duplicate-rate", "0.01")),
+          Double.parseDouble(option("incorrect-end-balance-rate", "0.01")), 42);
+      records = generatedDelivery.getRecords();
+      description = String.format("%,d records, %,d duplicate references, %,d incorrect end "
+              + "balances", generatedDelivery.getRecords(),
+          generatedDelivery.getDuplicateReferences(), generatedDelivery.getIncorrectEndBalances());
+    }
+    MediaType contentType = StatementRecordReader.contentTypeOf(delivery.toString());
+    long deliverySize = Files.size(delivery);
+
+    ConfigurableApplicationContext application = null;
+    String baseUrl = options.get("url");
+    LongSupplier heapUsed;
+    Duration heapSampleInterval;
+    if (baseUrl == null) {
+      application = startApplication();
+      baseUrl = "http://localhost:"
+          + ((WebServerApplicationContext) application).getWebServer().getPort();
+      MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+      heapUsed = () -> memoryMXBean.getHeapMemoryUsage().getUsed();
+      heapSampleInterval = HEAP_SAMPLE_INTERVAL;
+    } else {
+      String metricsUrl = baseUrl + "/actuator/metrics/jvm.memory.used?tag=area:heap";
+      heapUsed = () -> remoteHeapUsed(metricsUrl);
+      heapSampleInterval = REMOTE_HEAP_SAMPLE_INTERVAL;
+    }
+    URL url = new URL(baseUrl + option("path", "/customerstatement/v2/process"));
+
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency + 1);
+    long started = System.nanoTime();
+    long measuredFrom = started + warmup.toNanos();
+    long stopAt = measuredFrom + duration.toNanos();
+    AtomicLong peakHeapUsed = new AtomicLong();
+    Future<?> heapSampler = workers.submit(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        if (System.nanoTime() >= measuredFrom) {
+          peakHeapUsed.accumulateAndGet(heapUsed.getAsLong(), Math::max);
+        }
+        try {
+          Thread.sleep(heapSampleInterval.toMillis());
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    });
+    List<Future<?>> requests = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      requests.add(workers.submit(() -> {
+        long requestStarted;
+        while ((requestStarted = System.nanoTime()) < stopAt) {
+          send(url, delivery, deliverySize, contentType, requestStarted >= measuredFrom);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> request : requests) {
+      request.get();
+    }
+    heapSampler.cancel(true);
+    workers.shutdown();
+    if (application != null) {
+      application.close();
+    }
+
+    Histogram histogram = latencies.copy();
+    long measured = histogram.getTotalCount();
+    double seconds = Math.max(1, lastCompletion.get() - measuredFrom) / 1e9;
+    Map<String, Long> resultCounts = new TreeMap<>();
+    results.forEach((result, count) -> resultCounts.put(result, count.sum()));
+    System.out.printf("Load test of %s%n", url);
+    System.out.printf("Delivery       : %s, %,.1f MB %s%n", description, deliverySize / 1e6,
+        contentType);
+    System.out.printf("Concurrency    : %d for %d s after %d s warm-up%n", concurrency,
+        duration.getSeconds(), warmup.getSeconds());
+    System.out.printf("Requests       : %,d measured, %,d failed, results %s%n", measured,
+        failures.sum(), resultCounts);
+    System.out.printf("Throughput     : %,.2f requests/s, %,.0f records/s, %,.1f MB/s%n",
+        measured / seconds, measured * records / seconds, measured * deliverySize / 1e6 / seconds);
+    System.out.printf("Latency        : p50 %,.1f ms, p99 %,.1f ms, p999 %,.1f ms, max %,.1f ms%n",
+        histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+        histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxValue() / 1e3);
+    System.out.printf("Peak heap used : %,.1f MB%s%n", peakHeapUsed.get() / 1e6,
+        application != null ? ", of the JVM running both the instance and the driver" : "");
+    return failures.sum() == 0 && measured > 0 ? 0 : 1;
+  }
+
+  private ConfigurableApplicationContext startApplication() {
+    List<String> args = new ArrayList<>();
+    args.add("--server.port=0");
+    //a delivery sent again would only be looked up in the cache of /v1/process
+    args.add("--statement.result-cache.max-entries=0");
+    //arguments given for the application replace the defaults of the driver
+    args.removeIf(arg -> applicationArgs.stream().anyMatch(
+        applicationArg -> applicationArg.startsWith(arg.substring(0, arg.indexOf('=') + 1))));
+    args.addAll(applicationArgs);
+    return new SpringApplicationBuilder(CustomerStatementProcessorApplication.class)
+        .run(args.toArray(new String[0]));
+  }
+
+  private void send(URL url, Path delivery, long deliverySize, MediaType contentType,
+      boolean measured) {
+    long started = System.nanoTime();
+    try {
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(deliverySize);
+      connection.setReadTimeout((int) REQUEST_TIMEOUT.toMillis());
+      connection.setRequestProperty("Content-Type", contentType.toString());
+      connection.setRequestProperty("Accept", MediaType.APPLICATION_JSON_VALUE);
+      try (OutputStream outputStream = connection.getOutputStream();
+          InputStream inputStream = Files.newInputStream(delivery)) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) > 0) {
+          outputStream.write(buffer, 0, read);
+        }
+      }
+      int status = connection.getResponseCode();
+      byte[] body = readFully(status < 400 ? connection.getInputStream()
+          : connection.getErrorStream());
+      long completed = System.nanoTime();
+      if (!measured) {
+        return;
+      }
+      if (status != 200) {
+        failures.increment();
+        System.err.printf("HTTP %d : %s%n", status, new String(body, "UTF-8"));
+        return;
+      }
+      latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(completed - started));
+      lastCompletion.accumulateAndGet(completed, Math::max);
+      results.computeIfAbsent(objectMapper.readTree(body).path("result").asText("UNKNOWN"),
+          result -> new LongAdder()).increment();
+    } catch (IOException e) {
+      if (measured) {
+        failures.increment();
+        System.err.printf("Request failed : %s%n", e);
+      }
+    }
+  }
+
+  private static long countRecords(Path delivery) throws IOException {
+    AtomicLong records = new AtomicLong();
+    try (InputStream inputStream = Files.newInputStream(delivery)) {
+      new StatementRecordReader(StatementDeliveryGenerator.objectMapper()).read(inputStream,
+          StatementRecordReader.contentTypeOf(delivery.toString()),
+          statementRecord -> records.incrementAndGet());
+    }
+    return records.get();
+  }
+
+  private long remoteHeapUsed(String metricsUrl) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(metricsUrl).openConnection();
+      JsonNode metric = objectMapper.readTree(readFully(connection.getInputStream()));
+      return metric.path("measurements").path(0).path("value").asLong();
+    } catch (IOException e) {
+      //the actuator metrics endpoint is not exposed, no peak is reported
+      return 0;
+    }
+  }
+
+  private static byte[] readFully(InputStream inputStream) throws IOException {
+    if (inputStream == null) {
+      return new byte[0];
+    }
+    try (InputStream body = inputStream) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = body.read(buffer)) > 0) {
+        bytes.write(buffer, 0, read);
+      }
+      return bytes.toByteArray();
+    }
+  }
+
+  private String option(String name, String defaultValue) {
+    return options.getOrDefault(name, defaultValue);
+  }
+}
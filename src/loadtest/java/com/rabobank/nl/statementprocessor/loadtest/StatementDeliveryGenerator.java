@@ -0,0 +1,167 @@
+package com.rabobank.nl.statementprocessor.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Writes synthetic deliveries of any size as a stream, record by record, with a configurable share
+ * of duplicate references and incorrect end balances. Nothing but the current record is held in
+ * memory, so deliveries of several GB can be written. The same seed always gives the same
+ * delivery.
+ */
+public final class StatementDeliveryGenerator {
+
+  private static final int ACCOUNTS = 1000;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private StatementDeliveryGenerator() {
+  }
+
+  /**
+   * Numbers of records written and of the errors planted in them
+   */
+  @Builder
+  @Data
+  public static class GeneratedDelivery {
+
+    private long records;
+    private long duplicateReferences;
+    private long incorrectEndBalances;
+  }
+
+  /**
+   * Write a delivery to a file, e.g. {@code delivery.json 10000000 0.01 0.01}
+   *
+   * @param args - file, the extension selects the format, records, duplicate rate, incorrect end
+   * balance rate and optionally the seed
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 4) {
+      System.err.println("Usage: StatementDeliveryGenerator <file.json|.smile|.cbor> <records> "
+          + "<duplicateRate> <incorrectEndBalanceRate> [seed]");
+      System.exit(64);
+    }
+    Path file = Paths.get(args[0]);
+    long started = System.nanoTime();
+    GeneratedDelivery generatedDelivery = write(file, Long.parseLong(args[1]),
+        Double.parseDouble(args[2]), Double.parseDouble(args[3]),
+        args.length > 4 ? Long.parseLong(args[4]) : 42);
+    System.out.printf("%s : %,d bytes, %s in %.1f s%n", file, Files.size(file), generatedDelivery,
+        (System.nanoTime() - started) / 1e9);
+  }
+
+  /**
+   * Write a delivery to a file in the format of its extension
+   *
+   * @return numbers of records and planted errors
+   */
+  public static GeneratedDelivery write(Path file, long records, double duplicateRate,
+      double incorrectEndBalanceRate, long seed) throws IOException {
+    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file),
+        BUFFER_SIZE)) {
+      return write(outputStream, formatOf(StatementRecordReader.contentTypeOf(file.toString())),
+          records, duplicateRate, incorrectEndBalanceRate, seed);
+    }
+  }
+
+  /**
+   * Write a delivery as an array of statement records
+   *
+   * @param outputStream - receives the delivery, not closed
+   * @param format - JSON, Smile or CBOR factory
+   * @param records - number of records in the delivery
+   * @param duplicateRate - share of records reusing the reference of an earlier record
+   * @param incorrectEndBalanceRate - share of records with an end balance off by one
+   * @param seed - seed of the random values
+   * @return numbers of records and planted errors
+   */
+  public static GeneratedDelivery write(OutputStream outputStream, JsonFactory format,
+      long records, double duplicateRate, double incorrectEndBalanceRate, long seed)
+      throws IOException {
+    Random random = new Random(seed);
+    //a delivery repeats the same accounts over and over
+    String[] accountNumbers = new String[ACCOUNTS];
+    for (int i = 0; i < accountNumbers.length; i++) {
+      accountNumbers[i] = String
+          .format("NL%02dRABO%010d", random.nextInt(100), random.nextInt(1_000_000_000));
+    }
+    String[] descriptions = new String[97];
+    for (int i = 0; i < descriptions.length; i++) {
+      descriptions[i] = "Payment " + i;
+    }
+    long duplicateReferences = 0;
+    long incorrectEndBalances = 0;
+    try (JsonGenerator generator = format.createGenerator(outputStream)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartArray();
+      for (long i = 0; i < records; i++) {
+        long reference = i;
+        if (i > 0 && random.nextDouble() < duplicateRate) {
+          reference = (long) (random.nextDouble() * i);
+          duplicateReferences++;
+        }
+        long startBalance = random.nextInt(1_000_000);
+        long mutation = random.nextInt(20_000) - 10_000;
+        long endBalance = startBalance + mutation;
+        if (random.nextDouble() < incorrectEndBalanceRate) {
+          endBalance += 100;
+          incorrectEndBalances++;
+        }
+        generator.writeStartObject();
+        generator.writeNumberField("reference", reference);
+        generator.writeStringField("accountNumber",
+            accountNumbers[random.nextInt(accountNumbers.length)]);
+        generator.writeStringField("description", descriptions[(int) (i % descriptions.length)]);
+        generator.writeNumberField("startBalance", BigDecimal.valueOf(startBalance, 2));
+        generator.writeNumberField("mutation", BigDecimal.valueOf(mutation, 2));
+        generator.writeNumberField("endBalance", BigDecimal.valueOf(endBalance, 2));
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    }
+    return GeneratedDelivery.builder().records(records).duplicateReferences(duplicateReferences)
+        .incorrectEndBalances(incorrectEndBalances).build();
+  }
+
+  /**
+   * @return object mapper configured like the one of the application
+   */
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()).build();
+  }
+
+  /**
+   * @param contentType - JSON, Smile or CBOR
+   * @return factory writing the format
+   */
+  static JsonFactory formatOf(MediaType contentType) {
+    if (StatementRecordReader.APPLICATION_SMILE.isCompatibleWith(contentType)) {
+      return new SmileFactory();
+    }
+    if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+      return new CBORFactory();
+    }
+    if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+      return new JsonFactory();
+    }
+    throw new IllegalArgumentException("Deliveries are generated as JSON, Smile or CBOR : "
+        + contentType);
+  }
+}
@@ -1,29 +1,53 @@
 package com.rabobank.nl.statementprocessor.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.ErrorRecordStore;
+import com.rabobank.nl.statementprocessor.service.ErrorRecordStore.ErrorSetWriter;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementResultCache;
+import com.rabobank.nl.statementprocessor.service.StatementValidation;
 import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.info.Contact;
 import io.swagger.v3.oas.annotations.info.Info;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.util.zip.ZipException;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * Controller is the entry for resource Customer Statement Processor API
  */
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequestMapping("/customerstatement")
 @RequiredArgsConstructor
 @Slf4j
@@ -37,7 +61,17 @@ import org.springframework.web.bind.annotation.RestController;
 ))
 public class CustomerStatementProcessorController {
 
+  static final String MODE_DESCRIPTION = "full to validate every record, failFast to stop at the first error record";
+  static final String MAX_ERRORS_DESCRIPTION = "Number of error records after which validation stops, the result is then truncated";
+  static final String ERROR_RECORDS_DESCRIPTION = "inline to return the error records in the result, stream to write them to the response as they are found, store to read them back page by page from /v1/errorsets/{errorSetId}";
+  static final String CSV_EXAMPLE = "Reference,Account Number,Description,Start Balance,Mutation,End Balance\n194261,NL91RABO0315273637,Clothes from Jan Bakker,21.6,-41.83,-20.23";
+  static final String XML_EXAMPLE = "<records><record reference=\"194261\"><accountNumber>NL91RABO0315273637</accountNumber><description>Clothes from Jan Bakker</description><startBalance>21.6</startBalance><mutation>-41.83</mutation><endBalance>-20.23</endBalance></record></records>";
+
   private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+  private final StatementResultCache statementResultCache;
+  private final ErrorRecordStore errorRecordStore;
+  private final ObjectMapper objectMapper;
 
   @Operation(summary = "Process the customer statement")
   @ApiResponses(value = {
@@ -47,17 +81,210 @@ public class CustomerStatementProcessorController {
       @ApiResponse(responseCode = "200", description = "Duplicate Data Reference or Incorrect End Balance or both",
           content = {@Content(mediaType = "application/json",
               schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\" : [{\"reference\":\"266362727632761273627\",\"accountNumber\":\"1232323\"}]}"))}),
-      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+      @ApiResponse(responseCode = "200", description = "Validation stopped at the error limit of the mode or maxErrors",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\" : [{\"reference\":\"266362727632761273627\",\"accountNumber\":\"1232323\"}],\"truncated\":true}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON or unknown mode",
           content = {@Content(mediaType = "application/json",
               schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))}),
       @ApiResponse(responseCode = "500", description = "Any other situation",
           content = {@Content(mediaType = "application/json",
               schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"INTERNAL_SERVER_ERROR\",\"errorRecords\" : []}"))})
   })
-  @PostMapping("/v1/process")
+  @Timed(value = "statement.process", extraTags = {"version", "v1"}, histogram = true)
+  @PostMapping(value = "/v1/process", consumes = {MediaType.APPLICATION_JSON_VALUE,
+      StatementRecordReader.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+      StatementRecordReader.TEXT_CSV_VALUE, MediaType.APPLICATION_XML_VALUE,
+      MediaType.TEXT_XML_VALUE})
   public StatementResult process(
-      @RequestBody List<StatementRecord> statementRecords) {
-    return statementValidationProcessor.validateStatementRecords(statementRecords);
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.TEXT_CSV_VALUE,
+              schema = @Schema(type = "string", example = CSV_EXAMPLE)),
+          @Content(mediaType = MediaType.APPLICATION_XML_VALUE,
+              schema = @Schema(type = "string", example = XML_EXAMPLE))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      @Parameter(description = MODE_DESCRIPTION) @RequestParam(required = false) String mode,
+      @Parameter(description = MAX_ERRORS_DESCRIPTION) @RequestParam(required = false)
+          Integer maxErrors) throws IOException {
+    int errorLimit = ValidationMode.maxErrors(mode, maxErrors);
+    if (!statementResultCache.isEnabled()) {
+      //bound as columns, a fraction of the heap of a record object per record
+      return statementValidationProcessor.validateStatementBatch(
+          statementRecordReader.readBatch(statementRecords, contentType), errorLimit);
+    }
+    //spooled while it is digested, a retry is answered before the delivery is parsed
+    Path delivery = Files.createTempFile("statement-delivery-", ".bin");
+    try {
+      DigestInputStream digestInputStream = StatementResultCache.digesting(statementRecords);
+      Files.copy(digestInputStream, delivery, StandardCopyOption.REPLACE_EXISTING);
+      byte[] digest = digestInputStream.getMessageDigest().digest();
+      StatementResult statementResult = statementResultCache.get(digest, contentType, errorLimit);
+      if (statementResult != null) {
+        return statementResult;
+      }
+      StatementBatch statementBatch;
+      try (InputStream inputStream = Files.newInputStream(delivery)) {
+        statementBatch = statementRecordReader.readBatch(inputStream, contentType);
+      }
+      statementResult = statementValidationProcessor
+          .validateStatementBatch(statementBatch, errorLimit);
+      statementResultCache.put(digest, contentType, errorLimit, statementResult);
+      return statementResult;
+    } finally {
+      Files.deleteIfExists(delivery);
+    }
+  }
+
+  @Operation(summary = "Process the customer statement while it is being read, records are validated as they are parsed")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully performed validation on customer statement.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SUCCESS\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))})
+  })
+  @Timed(value = "statement.process", extraTags = {"version", "v2"}, histogram = true)
+  @PostMapping(value = "/v2/process", consumes = {MediaType.APPLICATION_JSON_VALUE,
+      StatementRecordReader.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+      StatementRecordReader.TEXT_CSV_VALUE, MediaType.APPLICATION_XML_VALUE,
+      MediaType.TEXT_XML_VALUE})
+  public StatementResult processStream(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.TEXT_CSV_VALUE,
+              schema = @Schema(type = "string", example = CSV_EXAMPLE)),
+          @Content(mediaType = MediaType.APPLICATION_XML_VALUE,
+              schema = @Schema(type = "string", example = XML_EXAMPLE))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      @Parameter(description = MODE_DESCRIPTION) @RequestParam(required = false) String mode,
+      @Parameter(description = MAX_ERRORS_DESCRIPTION) @RequestParam(required = false)
+          Integer maxErrors,
+      @Parameter(description = ERROR_RECORDS_DESCRIPTION) @RequestParam(required = false)
+          String errorRecords) throws IOException {
+    //streamed and stored error records are mapped to their own handlers
+    ErrorRecordMode.check(errorRecords);
+    StatementValidation statementValidation = statementValidationProcessor
+        .newValidation(ValidationMode.maxErrors(mode, maxErrors));
+    validate(statementRecords, contentType, statementValidation);
+    return statementValidation.getResult();
+  }
+
+  @Operation(summary = "Process the customer statement while it is being read, error records are written to the response as they are found")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Error records followed by the result, NDJSON lines when application/x-ndjson is accepted. A response without result was cut off.",
+          content = {@Content(mediaType = "application/json", examples = @ExampleObject(value = "{\"errorRecords\" : [{\"reference\":194261,\"accountNumber\":\"NL91RABO0315273637\"}],\"result\":\"INCORRECT_END_BALANCE\"}")),
+              @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, examples = @ExampleObject(value = "{\"reference\":194261,\"accountNumber\":\"NL91RABO0315273637\"}\n{\"result\":\"INCORRECT_END_BALANCE\",\"errorRecords\":[]}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON before the first error record, afterwards the result is BAD_REQUEST",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))})
+  })
+  @Timed(value = "statement.process", extraTags = {"version", "v2"}, histogram = true)
+  @PostMapping(value = "/v2/process", params = "errorRecords=" + ErrorRecordMode.STREAM,
+      consumes = {MediaType.APPLICATION_JSON_VALUE, StatementRecordReader.APPLICATION_SMILE_VALUE,
+          MediaType.APPLICATION_CBOR_VALUE, StatementRecordReader.TEXT_CSV_VALUE,
+          MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+  public void processStreamingErrorRecords(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.TEXT_CSV_VALUE,
+              schema = @Schema(type = "string", example = CSV_EXAMPLE)),
+          @Content(mediaType = MediaType.APPLICATION_XML_VALUE,
+              schema = @Schema(type = "string", example = XML_EXAMPLE))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      @Parameter(description = MODE_DESCRIPTION) @RequestParam(required = false) String mode,
+      @Parameter(description = MAX_ERRORS_DESCRIPTION) @RequestParam(required = false)
+          Integer maxErrors,
+      HttpServletResponse response) throws IOException {
+    boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+        .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    StreamedStatementResult streamedResult = new StreamedStatementResult(objectMapper, response,
+        ndjson);
+    StatementValidation statementValidation = statementValidationProcessor
+        .newValidation(ValidationMode.maxErrors(mode, maxErrors), streamedResult);
+    try {
+      validate(statementRecords, contentType, statementValidation);
+    } catch (JsonProcessingException | ZipException exception) {
+      if (!streamedResult.isStarted()) {
+        throw exception;
+      }
+      //the status went out with the first error record, the result tells the delivery is invalid
+      final String logMethod = "processStreamingErrorRecords(InputStream,MediaType,String,String,Integer,HttpServletResponse):void Exception Cause : %s";
+      log.error(String.format(logMethod, exception.getMessage()));
+      streamedResult.complete(StatementResult.builder().result("BAD_REQUEST").build());
+      return;
+    }
+    streamedResult.complete(statementValidation.getResult());
+  }
+
+  @Operation(summary = "Process the customer statement while it is being read, error records are stored to be read back page by page")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Result with the id of the stored error records, without id when there are none",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\" : [],\"errorSetId\":\"0f8b2c1e-7c0e-4b8e-9a43-5d1e6f0a2b3c\"}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))})
+  })
+  @Timed(value = "statement.process", extraTags = {"version", "v2"}, histogram = true)
+  @PostMapping(value = "/v2/process", params = "errorRecords=" + ErrorRecordMode.STORE,
+      consumes = {MediaType.APPLICATION_JSON_VALUE, StatementRecordReader.APPLICATION_SMILE_VALUE,
+          MediaType.APPLICATION_CBOR_VALUE, StatementRecordReader.TEXT_CSV_VALUE,
+          MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+  public StatementResult processStoringErrorRecords(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.TEXT_CSV_VALUE,
+              schema = @Schema(type = "string", example = CSV_EXAMPLE)),
+          @Content(mediaType = MediaType.APPLICATION_XML_VALUE,
+              schema = @Schema(type = "string", example = XML_EXAMPLE))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+      @Parameter(description = MODE_DESCRIPTION) @RequestParam(required = false) String mode,
+      @Parameter(description = MAX_ERRORS_DESCRIPTION) @RequestParam(required = false)
+          Integer maxErrors) throws IOException {
+    //the error set is deleted when validation fails before it is stored
+    try (ErrorSetWriter errorSet = errorRecordStore.newErrorSet()) {
+      StatementValidation statementValidation = statementValidationProcessor
+          .newValidation(ValidationMode.maxErrors(mode, maxErrors), errorSet);
+      validate(statementRecords, contentType, statementValidation);
+      StatementResult statementResult = statementValidation.getResult();
+      statementResult.setErrorSetId(errorSet.store());
+      return statementResult;
+    }
+  }
+
+  private void validate(InputStream statementRecords, MediaType contentType,
+      StatementValidation statementValidation) throws IOException {
+    statementRecordReader.readWhile(statementRecords, contentType, statementRecord -> {
+      statementValidation.accept(statementRecord);
+      return !statementValidation.isErrorLimitReached();
+    });
   }
 
 }
@@ -0,0 +1,29 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.exception.InvalidValidationModeException;
+
+/**
+ * Ways the streaming process endpoint returns the error records, selected with the errorRecords
+ * request parameter: in the result, written to the response while the delivery is validated, or
+ * stored to be read back page by page
+ */
+public final class ErrorRecordMode {
+
+  public static final String INLINE = "inline";
+  public static final String STREAM = "stream";
+  public static final String STORE = "store";
+
+  private ErrorRecordMode() {
+  }
+
+  /**
+   * @param errorRecords - inline, stream or store, inline when null
+   * @throws InvalidValidationModeException when the mode is unknown
+   */
+  public static void check(String errorRecords) {
+    if (errorRecords != null && !INLINE.equals(errorRecords) && !STREAM.equals(errorRecords)
+        && !STORE.equals(errorRecords)) {
+      throw new InvalidValidationModeException("Unknown error records mode : " + errorRecords);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidation;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import io.micrometer.core.annotation.Timed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Controller is the entry for resource Customer Statement Processor API on the reactive stack,
+ * registered instead of the servlet controllers when the application runs with the reactive
+ * profile. No thread is held while a delivery is waiting for the network, records are decoded
+ * from the request body as they arrive and validated on the parallel scheduler.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/customerstatement")
+@Slf4j
+public class ReactiveStatementProcessorController {
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final Scheduler validationScheduler;
+  private final int prefetch;
+
+  /**
+   * @param statementValidationProcessor - processor creating the validation of a delivery
+   * @param prefetch - records decoded ahead of the validation, the body is read no further until
+   * they are validated
+   */
+  public ReactiveStatementProcessorController(
+      StatementValidationProcessor statementValidationProcessor,
+      @Value("${statement.reactive.prefetch:256}") int prefetch) {
+    this.statementValidationProcessor = statementValidationProcessor;
+    this.validationScheduler = Schedulers.parallel();
+    this.prefetch = prefetch;
+  }
+
+  @Operation(summary = "Process the customer statement while it is being read, records are validated as they arrive")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully performed validation on customer statement.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SUCCESS\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))})
+  })
+  @Timed(value = "statement.process", extraTags = {"version", "v2"}, histogram = true)
+  @PostMapping(value = "/v2/process", consumes = {MediaType.APPLICATION_JSON_VALUE,
+      StatementRecordReader.APPLICATION_SMILE_VALUE})
+  public Mono<StatementResult> processStream(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class)))})
+      @RequestBody Flux<StatementRecord> statementRecords,
+      @Parameter(description = CustomerStatementProcessorController.MODE_DESCRIPTION)
+      @RequestParam(required = false) String mode,
+      @Parameter(description = CustomerStatementProcessorController.MAX_ERRORS_DESCRIPTION)
+      @RequestParam(required = false) Integer maxErrors) {
+    int errorLimit = ValidationMode.maxErrors(mode, maxErrors);
+    return Mono.defer(() -> {
+      StatementValidation statementValidation = statementValidationProcessor
+          .newValidation(errorLimit);
+      //a single worker validates the delivery, records are requested as it keeps up and the
+      //body is no longer decoded once the error limit is reached
+      return statementRecords
+          .publishOn(validationScheduler, prefetch)
+          .doOnNext(statementValidation::accept)
+          .takeUntil(statementRecord -> statementValidation.isErrorLimitReached())
+          .then(Mono.fromCallable(statementValidation::getResult));
+    });
+  }
+
+}
@@ -0,0 +1,211 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.exception.DecompressedSizeExceededException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses request bodies sent with a gzip or deflate Content-Encoding while they are read,
+ * the body is never inflated in memory as a whole. Reading fails with a
+ * {@link DecompressedSizeExceededException} once the inflated body exceeds the maximum size.
+ * Compressed bodies can only be read blocking: inflating may need more of the body than has
+ * arrived. A request setting a {@link ReadListener} on a compressed body is answered with 415 and
+ * the listener is notified of the error, such requests have to be sent uncompressed.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long maxDecompressedSize;
+
+  /**
+   * @param maxDecompressedSize - maximum size of a request body after decompression
+   */
+  public RequestDecompressionFilter(
+      @Value("${statement.upload.max-decompressed-size:1GB}") DataSize maxDecompressedSize) {
+    this.maxDecompressedSize = maxDecompressedSize.toBytes();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null && (contentEncoding.trim().equalsIgnoreCase("gzip")
+        || contentEncoding.trim().equalsIgnoreCase("x-gzip")
+        || contentEncoding.trim().equalsIgnoreCase("deflate"))) {
+      request = new DecompressedRequest(request, response, contentEncoding.trim());
+    }
+    filterChain.doFilter(request, response);
+  }
+
+  /**
+   * Request of which the body is decompressed on the fly, the Content-Encoding and the
+   * Content-Length of the compressed body are hidden from the application
+   */
+  private class DecompressedRequest extends HttpServletRequestWrapper {
+
+    private final HttpServletResponse response;
+    private final String contentEncoding;
+    private ServletInputStream inputStream;
+
+    private DecompressedRequest(HttpServletRequest request, HttpServletResponse response,
+        String contentEncoding) {
+      super(request);
+      this.response = response;
+      this.contentEncoding = contentEncoding;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (inputStream == null) {
+        inputStream = new LimitedServletInputStream(super.getInputStream(), contentEncoding,
+            response);
+      }
+      return inputStream;
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return isHidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+          .filter(name -> !isHidden(name)).collect(Collectors.toList()));
+    }
+
+    private boolean isHidden(String name) {
+      return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+          || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+  }
+
+  /**
+   * Decompressed body, counts the inflated bytes against the maximum size. Nothing is read from
+   * the compressed body before the first read, the gzip header included.
+   */
+  private class LimitedServletInputStream extends ServletInputStream {
+
+    private final InputStream compressed;
+    private final String contentEncoding;
+    private final HttpServletResponse response;
+    private InputStream decompressed;
+    private long bytesRead;
+    private boolean finished;
+
+    private LimitedServletInputStream(InputStream compressed, String contentEncoding,
+        HttpServletResponse response) {
+      this.compressed = compressed;
+      this.contentEncoding = contentEncoding;
+      this.response = response;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = decompressed().read();
+      count(read < 0 ? -1 : 1);
+      return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = decompressed().read(buffer, offset, length);
+      count(read);
+      return read;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      final String reason = "Compressed request bodies can only be read blocking, send the body"
+          + " without Content-Encoding " + contentEncoding;
+      try {
+        if (!response.isCommitted()) {
+          response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, reason);
+        }
+      } catch (IOException e) {
+        //the listener is told all the same
+      }
+      readListener.onError(new IOException(reason));
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (decompressed != null) {
+        decompressed.close();
+      } else {
+        compressed.close();
+      }
+    }
+
+    private InputStream decompressed() throws IOException {
+      if (decompressed == null) {
+        //deflate in HTTP is the zlib format, not raw deflate
+        decompressed = contentEncoding.equalsIgnoreCase("deflate")
+            ? new InflaterInputStream(compressed) : new GZIPInputStream(compressed, BUFFER_SIZE);
+      }
+      return decompressed;
+    }
+
+    private void count(int read) throws DecompressedSizeExceededException {
+      if (read < 0) {
+        finished = true;
+        return;
+      }
+      bytesRead += read;
+      if (bytesRead > maxDecompressedSize) {
+        throw new DecompressedSizeExceededException("Decompressed request body exceeds "
+            + maxDecompressedSize + " bytes");
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementShardCoordinator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for validating a delivery in shards spread over the configured peers, only
+ * registered when peers are configured
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "statement.shards.peers")
+@RequestMapping("/customerstatement")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementCoordinatorController {
+
+  private final StatementShardCoordinator statementShardCoordinator;
+
+  @Operation(summary = "Process the customer statement in shards validated by the peers")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Successfully performed validation on customer statement.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SUCCESS\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "502", description = "A peer couldn't validate a shard",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_GATEWAY\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping(value = "/v1/process/sharded", consumes = {MediaType.APPLICATION_JSON_VALUE,
+      StatementRecordReader.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+      StatementRecordReader.TEXT_CSV_VALUE, MediaType.APPLICATION_XML_VALUE,
+      MediaType.TEXT_XML_VALUE})
+  public StatementResult process(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.TEXT_CSV_VALUE,
+              schema = @Schema(type = "string", example = CustomerStatementProcessorController.CSV_EXAMPLE)),
+          @Content(mediaType = MediaType.APPLICATION_XML_VALUE,
+              schema = @Schema(type = "string", example = CustomerStatementProcessorController.XML_EXAMPLE))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+    return statementShardCoordinator.process(statementRecords, contentType);
+  }
+}
@@ -0,0 +1,58 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecordPage;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.ErrorRecordStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for reading back the error records stored for deliveries sent to
+ * /v2/process?errorRecords=store
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/customerstatement")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementErrorSetController {
+
+  private final ErrorRecordStore errorRecordStore;
+
+  @Operation(summary = "Get a page of the error records of a delivery")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Error records in delivery order and the cursor of the next page, null on the last page.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = ErrorRecordPage.class), examples = @ExampleObject(value = "{\"errorRecords\":[{\"reference\":194261,\"accountNumber\":\"NL91RABO0315273637\"}],\"nextCursor\":\"5f3a9c0d1e2b4a67\"}"))}),
+      @ApiResponse(responseCode = "400", description = "Cursor not returned for this error set or limit out of range",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "404", description = "Error set unknown or expired",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))})
+  })
+  @GetMapping("/v1/errorsets/{errorSetId}")
+  public ErrorRecordPage getPage(@PathVariable String errorSetId,
+      @Parameter(description = "nextCursor of the previous page, absent for the first page")
+      @RequestParam(required = false) String cursor,
+      @Parameter(description = "Maximum number of error records of the page")
+      @RequestParam(defaultValue = "" + ErrorRecordStore.DEFAULT_PAGE_SIZE) int limit)
+      throws IOException {
+    return errorRecordStore.getPage(errorSetId, cursor, limit);
+  }
+}
@@ -0,0 +1,91 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementJob;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for validating very large deliveries asynchronously as jobs
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/customerstatement")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementJobController {
+
+  private final StatementJobService statementJobService;
+
+  @Operation(summary = "Submit a customer statement for asynchronous validation")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Job accepted, poll the job for its status.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementJob.class), examples = @ExampleObject(value = "{\"jobId\":\"0f8b2c1e-7c0e-4b8e-9a43-5d1e6f0a2b3c\",\"status\":\"QUEUED\",\"submittedAt\":\"2021-08-01T10:15:30Z\",\"finishedAt\":null}"))}),
+      @ApiResponse(responseCode = "503", description = "Job queue is full",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SERVICE_UNAVAILABLE\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping(value = "/v1/jobs", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StatementJob> submit(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(mediaType = "application/json",
+          array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))))
+          InputStream statementRecords) throws IOException {
+    StatementJob statementJob = statementJobService.submit(statementRecords);
+    return ResponseEntity.accepted()
+        .location(URI.create("/customerstatement/v1/jobs/" + statementJob.getJobId()))
+        .body(statementJob);
+  }
+
+  @Operation(summary = "Get the status of a validation job")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Status of the job.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementJob.class))}),
+      @ApiResponse(responseCode = "404", description = "Job unknown or expired",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))})
+  })
+  @GetMapping("/v1/jobs/{jobId}")
+  public StatementJob getJob(@PathVariable String jobId) {
+    return statementJobService.getJob(jobId);
+  }
+
+  @Operation(summary = "Get the result of a finished validation job")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Result of the validation.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SUCCESS\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "404", description = "Job unknown or expired",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "409", description = "Job not finished yet",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"JOB_NOT_FINISHED\",\"errorRecords\" : []}"))})
+  })
+  @GetMapping("/v1/jobs/{jobId}/result")
+  public StatementResult getResult(@PathVariable String jobId) {
+    return statementJobService.getResult(jobId);
+  }
+}
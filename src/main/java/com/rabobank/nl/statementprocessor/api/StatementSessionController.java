@@ -0,0 +1,128 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static com.rabobank.nl.statementprocessor.api.CustomerStatementProcessorController.MAX_ERRORS_DESCRIPTION;
+import static com.rabobank.nl.statementprocessor.api.CustomerStatementProcessorController.MODE_DESCRIPTION;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementSession;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for validating deliveries sent in chunks over an upload session
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/customerstatement")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementSessionController {
+
+  private final StatementSessionService statementSessionService;
+
+  @Operation(summary = "Open an upload session for a delivery sent in chunks")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "Session opened, post the chunks to the session.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementSession.class), examples = @ExampleObject(value = "{\"sessionId\":\"0f8b2c1e-7c0e-4b8e-9a43-5d1e6f0a2b3c\",\"chunks\":0,\"records\":0,\"openedAt\":\"2021-08-01T10:15:30Z\",\"lastChunkAt\":null}"))}),
+      @ApiResponse(responseCode = "400", description = "Unknown mode",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "503", description = "Maximum of open sessions reached",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SERVICE_UNAVAILABLE\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping("/v1/sessions")
+  public ResponseEntity<StatementSession> open(
+      @Parameter(description = MODE_DESCRIPTION) @RequestParam(required = false) String mode,
+      @Parameter(description = MAX_ERRORS_DESCRIPTION) @RequestParam(required = false)
+          Integer maxErrors) {
+    StatementSession statementSession = statementSessionService
+        .open(ValidationMode.maxErrors(mode, maxErrors));
+    return ResponseEntity
+        .created(URI.create("/customerstatement/v1/sessions/" + statementSession.getSessionId()))
+        .body(statementSession);
+  }
+
+  @Operation(summary = "Validate the next chunk of the delivery of a session")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Chunk validated, the session after the chunk.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementSession.class))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON, the chunk is not applied",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "404", description = "Session unknown, closed or evicted",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping(value = "/v1/sessions/{sessionId}/chunks", consumes = {
+      MediaType.APPLICATION_JSON_VALUE, StatementRecordReader.APPLICATION_SMILE_VALUE,
+      MediaType.APPLICATION_CBOR_VALUE})
+  public StatementSession append(@PathVariable String sessionId,
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class)))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+    return statementSessionService.append(sessionId, statementRecords, contentType);
+  }
+
+  @Operation(summary = "Get the state of an upload session")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "State of the session.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementSession.class))}),
+      @ApiResponse(responseCode = "404", description = "Session unknown, closed or evicted",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))})
+  })
+  @GetMapping("/v1/sessions/{sessionId}")
+  public StatementSession getSession(@PathVariable String sessionId) {
+    return statementSessionService.getSession(sessionId);
+  }
+
+  @Operation(summary = "Close an upload session and get the result of all its chunks")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Result of the validation.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"SUCCESS\",\"errorRecords\" : []}"))}),
+      @ApiResponse(responseCode = "404", description = "Session unknown, closed or evicted",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"NOT_FOUND\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping("/v1/sessions/{sessionId}/close")
+  public StatementResult close(@PathVariable String sessionId) {
+    return statementSessionService.close(sessionId);
+  }
+}
@@ -0,0 +1,66 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for validating a shard of a delivery spread over several instances
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/customerstatement")
+@RequiredArgsConstructor
+@Slf4j
+public class StatementShardController {
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+
+  @Operation(summary = "Validate a shard of consecutive records of a delivery into a partial result, merged by the coordinator")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Validation state of the shard.",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = PartialStatementResult.class))}),
+      @ApiResponse(responseCode = "400", description = "Error during parsing JSON",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = StatementResult.class), examples = @ExampleObject(value = "{\"result\":\"BAD_REQUEST\",\"errorRecords\" : []}"))})
+  })
+  @PostMapping(value = "/v1/shards", consumes = {MediaType.APPLICATION_JSON_VALUE,
+      StatementRecordReader.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+  public PartialStatementResult validateShard(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+          @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = StatementRecordReader.APPLICATION_SMILE_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class))),
+          @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = StatementRecord.class)))})
+          InputStream statementRecords,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+    StatementBatch statementBatch = statementRecordReader.readBatch(statementRecords, contentType);
+    return statementValidationProcessor.validateShard(statementBatch);
+  }
+}
@@ -0,0 +1,116 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+/**
+ * Writes the error records of a delivery to the response while it is being validated. As NDJSON
+ * every error record is a line and the last line is the {@link StatementResult} without error
+ * records, as JSON the response is the {@link StatementResult} with the error records written
+ * before the result. The response is started with the first error record and flushed with it,
+ * afterwards at most every flush interval, so the first errors reach the client before the
+ * delivery is validated. Not thread safe.
+ */
+class StreamedStatementResult implements Consumer<ErrorRecord> {
+
+  private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final ObjectMapper objectMapper;
+  private final HttpServletResponse response;
+  private final boolean ndjson;
+  private JsonGenerator generator;
+  private SequenceWriter errorRecordWriter;
+  private long flushedAt;
+
+  /**
+   * @param objectMapper - writes the error records and the result
+   * @param response - response the error records are written to
+   * @param ndjson - write NDJSON instead of a JSON object
+   */
+  StreamedStatementResult(ObjectMapper objectMapper, HttpServletResponse response,
+      boolean ndjson) {
+    this.objectMapper = objectMapper;
+    this.response = response;
+    this.ndjson = ndjson;
+  }
+
+  /**
+   * @return true once the response is started, an error can then no longer change its status
+   */
+  boolean isStarted() {
+    return generator != null;
+  }
+
+  @Override
+  public void accept(ErrorRecord errorRecord) {
+    try {
+      boolean first = generator == null;
+      if (first) {
+        start();
+      }
+      errorRecordWriter.write(errorRecord);
+      if (ndjson) {
+        generator.writeRaw('\n');
+      }
+      if (first || System.nanoTime() - flushedAt >= FLUSH_INTERVAL_NANOS) {
+        generator.flush();
+        flushedAt = System.nanoTime();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write error record", e);
+    }
+  }
+
+  /**
+   * Write the result after the error records and complete the response
+   *
+   * @param statementResult - result of the delivery, its error records are not written
+   * @throws IOException when the response can't be written
+   */
+  void complete(StatementResult statementResult) throws IOException {
+    if (generator == null) {
+      start();
+    }
+    if (ndjson) {
+      generator.writeObject(StatementResult.builder().result(statementResult.getResult())
+          .errorRecords(Collections.emptyList())
+          .truncated(statementResult.isTruncated()).build());
+      generator.writeRaw('\n');
+    } else {
+      generator.writeEndArray();
+      generator.writeStringField("result", statementResult.getResult());
+      if (statementResult.isTruncated()) {
+        generator.writeBooleanField("truncated", true);
+      }
+      generator.writeEndObject();
+    }
+    generator.close();
+  }
+
+  private void start() throws IOException {
+    response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE
+        : MediaType.APPLICATION_JSON_VALUE);
+    generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+    //lines are separated explicitly, NDJSON also ends the last line
+    generator.setRootValueSeparator(null);
+    if (!ndjson) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("errorRecords");
+    }
+    //looks up the serializer once instead of for every error record, and leaves flushing to the
+    //flush interval instead of sending a chunk per error record
+    errorRecordWriter = objectMapper.writerFor(ErrorRecord.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).writeValues(generator);
+  }
+}
@@ -0,0 +1,40 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.NO_ERROR_LIMIT;
+
+import com.rabobank.nl.statementprocessor.exception.InvalidValidationModeException;
+
+/**
+ * Validation modes of the process endpoints, selected with the mode request parameter and
+ * combined with the maxErrors request parameter into the number of error records after which
+ * validation stops, and of the command line validation
+ */
+public final class ValidationMode {
+
+  public static final String FULL = "full";
+  public static final String FAIL_FAST = "failFast";
+
+  private ValidationMode() {
+  }
+
+  /**
+   * @param mode - full to validate every record, failFast to stop at the first error, full when
+   * null
+   * @param maxErrors - number of error records after which validation stops, no limit when null
+   * @return maximum number of error records
+   * @throws InvalidValidationModeException when the mode is unknown or the limit below 1
+   */
+  public static int maxErrors(String mode, Integer maxErrors) {
+    if (maxErrors != null && maxErrors < 1) {
+      throw new InvalidValidationModeException("maxErrors must be at least 1 : " + maxErrors);
+    }
+    int limit = maxErrors != null ? maxErrors : NO_ERROR_LIMIT;
+    if (mode == null || FULL.equals(mode)) {
+      return limit;
+    }
+    if (FAIL_FAST.equals(mode)) {
+      return 1;
+    }
+    throw new InvalidValidationModeException("Unknown validation mode : " + mode);
+  }
+}
@@ -0,0 +1,71 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads repetitive string properties through a {@link StringDictionary} per property, so every
+ * repeated value shares the instance of its first occurrence and is not allocated again. The
+ * dictionaries are only used when the reader carries them as the {@link #DICTIONARIES} attribute,
+ * which scopes them to a single delivery; without it strings are read as usual.
+ */
+public class DictionaryStringDeserializer extends StdScalarDeserializer<String>
+    implements ContextualDeserializer {
+
+  /**
+   * Attribute of the reader holding the dictionaries of a delivery, see {@link #newDictionaries()}
+   */
+  public static final Object DICTIONARIES = DictionaryStringDeserializer.class;
+
+  //bounds the memory of a delivery of unique values, later new values are read as usual
+  public static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+  private final String propertyName;
+
+  public DictionaryStringDeserializer() {
+    this(null);
+  }
+
+  private DictionaryStringDeserializer(String propertyName) {
+    super(String.class);
+    this.propertyName = propertyName;
+  }
+
+  /**
+   * @return empty dictionaries for the {@link #DICTIONARIES} attribute of one delivery
+   */
+  public static Map<String, StringDictionary> newDictionaries() {
+    return new HashMap<>();
+  }
+
+  @Override
+  public JsonDeserializer<?> createContextual(DeserializationContext context,
+      BeanProperty property) {
+    return property == null ? this : new DictionaryStringDeserializer(property.getName());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public String deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    Object dictionaries = context.getAttribute(DICTIONARIES);
+    if (propertyName == null || dictionaries == null
+        || parser.currentToken() != JsonToken.VALUE_STRING) {
+      return StringDeserializer.instance.deserialize(parser, context);
+    }
+    StringDictionary stringDictionary = ((Map<String, StringDictionary>) dictionaries)
+        .computeIfAbsent(propertyName, name -> new StringDictionary(MAX_DICTIONARY_SIZE));
+    return stringDictionary.intern(parser.getTextCharacters(), parser.getTextOffset(),
+        parser.getTextLength());
+  }
+}
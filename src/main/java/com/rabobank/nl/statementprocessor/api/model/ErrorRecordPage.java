@@ -0,0 +1,17 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * POJO for capturing a page of the error records of a stored error set
+ */
+@Builder
+@Data
+public class ErrorRecordPage {
+
+  private List<ErrorRecord> errorRecords;
+  //cursor of the next page, null on the last page
+  private String nextCursor;
+}
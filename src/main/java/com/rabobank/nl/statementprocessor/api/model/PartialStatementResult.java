@@ -0,0 +1,34 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * POJO for capturing the validation state of a shard of a delivery, merged with the states of
+ * the following shards into the {@link StatementResult} of the delivery
+ */
+@Builder
+@Data
+public class PartialStatementResult {
+
+  //rules the shard was validated with, in order, the state of every rule is at the same index
+  private List<String> rules;
+  private int records;
+  private boolean[] rulesFailed;
+  private long[] ruleErrors;
+  private List<ShardError> errors;
+  private List<ReferenceSet> ruleStates;
+
+  /**
+   * POJO for capturing an error of a rule with the position of its record within the shard
+   */
+  @Builder
+  @Data
+  public static class ShardError {
+
+    private int position;
+    private int ruleIndex;
+    private ErrorRecord errorRecord;
+  }
+}
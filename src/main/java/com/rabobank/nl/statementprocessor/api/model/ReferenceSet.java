@@ -0,0 +1,22 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * POJO for capturing the distinct references a rule saw in a shard of a delivery, with the
+ * account number and position of their first occurrence when the rule needs them
+ */
+@Builder
+@Data
+public class ReferenceSet {
+
+  private long[] references;
+  private String[] accountNumbers;
+  private int[] positions;
+  //indexes into the references of which the duplicate was already reported
+  private int[] reportedIndexes;
+  private Integer nullReferencePosition;
+  private String nullReferenceAccountNumber;
+  private boolean nullReferenceReported;
+}
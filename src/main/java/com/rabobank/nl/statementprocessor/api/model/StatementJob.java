@@ -0,0 +1,25 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * POJO for capturing the state of an asynchronous validation job
+ */
+@Builder
+@Data
+public class StatementJob {
+
+  private String jobId;
+  private JobStatus status;
+  private Instant submittedAt;
+  private Instant finishedAt;
+
+  /**
+   * Lifecycle of a validation job
+   */
+  public enum JobStatus {
+    QUEUED, RUNNING, FINISHED, FAILED
+  }
+}
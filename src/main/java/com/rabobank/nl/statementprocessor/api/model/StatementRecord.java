@@ -1,5 +1,6 @@
 package com.rabobank.nl.statementprocessor.api.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.math.BigDecimal;
 import java.util.Objects;
 import lombok.Builder;
@@ -13,9 +14,11 @@ import lombok.Data;
 public class StatementRecord {
 
   private Long reference;
+  @JsonDeserialize(using = DictionaryStringDeserializer.class)
   private String accountNumber;
   private BigDecimal startBalance;
   private BigDecimal mutation;
+  @JsonDeserialize(using = DictionaryStringDeserializer.class)
   private String description;
   private BigDecimal endBalance;
 
@@ -1,5 +1,7 @@
 package com.rabobank.nl.statementprocessor.api.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.List;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +15,10 @@ public class StatementResult {
 
   private String result;
   private List<ErrorRecord> errorRecords;
+  //only written when validation stopped at the error limit, records after it were not validated
+  @JsonInclude(Include.NON_DEFAULT)
+  private boolean truncated;
+  //only written when the error records were stored instead, they are read back page by page
+  @JsonInclude(Include.NON_NULL)
+  private String errorSetId;
 }
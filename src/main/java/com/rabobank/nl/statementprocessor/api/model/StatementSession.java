@@ -0,0 +1,19 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * POJO for capturing the state of a chunked upload session
+ */
+@Builder
+@Data
+public class StatementSession {
+
+  private String sessionId;
+  private int chunks;
+  private long records;
+  private Instant openedAt;
+  private Instant lastChunkAt;
+}
@@ -0,0 +1,246 @@
+package com.rabobank.nl.statementprocessor.cli;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.api.ValidationMode;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.exception.InvalidValidationModeException;
+import com.rabobank.nl.statementprocessor.service.StatementMetrics;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidation;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Validates deliveries from files or standard input without starting Spring, no web server is
+ * started and no classpath is scanned. The rules, reader and processor are the ones of the
+ * application, wired by hand. The {@link StatementResult} of every delivery is written to
+ * standard output as a line of JSON, logs go to standard error. The exit code is the one of the
+ * worst result, {@link #EXIT_SUCCESS} when every delivery is valid.
+ */
+public final class StatementValidationCli {
+
+  public static final int EXIT_SUCCESS = 0;
+  public static final int EXIT_DUPLICATE_REFERENCE = 1;
+  public static final int EXIT_INCORRECT_END_BALANCE = 2;
+  public static final int EXIT_DUPLICATE_REFERENCE_INCORRECT_END_BALANCE = 3;
+  public static final int EXIT_BAD_REQUEST = 4;
+  public static final int EXIT_UNREADABLE = 5;
+  public static final int EXIT_USAGE = 64;
+
+  static final String LOG_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level %logger{60} - %msg%n";
+  static final String STANDARD_INPUT = "-";
+
+  private static final String USAGE = "Usage: StatementValidationCli [options] [file...]\n"
+      + "Validates every file, or standard input when no file or - is given, and writes a JSON "
+      + "result per delivery to standard output.\n"
+      + "  --format=json|smile|cbor|csv|xml  format of the deliveries, by default by the "
+      + "extension of the file and json for standard input\n"
+      + "  --mode=full|failFast              failFast stops at the first error record\n"
+      + "  --max-errors=<n>                  number of error records after which validation "
+      + "stops\n"
+      + "  --amount-scale=<n>                number of decimals end balances are validated at\n"
+      + "Exit codes: 0 success, 1 duplicate reference, 2 incorrect end balance, 3 both, "
+      + "4 malformed delivery, 5 unreadable file, 64 invalid arguments";
+
+  private final ObjectMapper objectMapper;
+  private final StatementRecordReader statementRecordReader;
+  private final StatementValidationProcessor statementValidationProcessor;
+
+  /**
+   * @param amountScale - number of decimals end balances are validated at
+   */
+  StatementValidationCli(int amountScale) {
+    //the modules and features Spring Boot would configure for reading and writing the records
+    this.objectMapper = new ObjectMapper().registerModule(new ParameterNamesModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.statementRecordReader = new StatementRecordReader(objectMapper, amountScale);
+    //sequential, the deliveries are metered nowhere outside of the application
+    this.statementValidationProcessor = new StatementValidationProcessor(Arrays
+        .asList(new DuplicateReferenceRule(), new EndBalanceRule(amountScale)), 0, 0, 0,
+        StatementValidationProcessor.DEFAULT_ERROR_SAMPLES,
+        StatementValidationProcessor.DEFAULT_ERROR_SAMPLE_RATE,
+        new StatementMetrics(new SimpleMeterRegistry()));
+  }
+
+  public static void main(String[] args) {
+    if (System.getProperty("logback.configurationFile") == null) {
+      logToStandardError();
+    }
+    System.exit(run(args, System.in, System.out, System.err));
+  }
+
+  /**
+   * Log warnings to standard error, so standard output only holds the results. Configured in code
+   * as parsing a logback XML configuration costs a noticeable part of the startup.
+   */
+  static void logToStandardError() {
+    LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+    loggerContext.reset();
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(loggerContext);
+    encoder.setPattern(LOG_PATTERN);
+    encoder.start();
+    ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+    appender.setContext(loggerContext);
+    appender.setTarget("System.err");
+    appender.setEncoder(encoder);
+    appender.start();
+    Logger rootLogger = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+    rootLogger.setLevel(Level.WARN);
+    rootLogger.addAppender(appender);
+  }
+
+  /**
+   * Validate the deliveries named by the arguments
+   *
+   * @param args - options followed by the files to validate
+   * @param standardInput - delivery read when no file or - is given
+   * @param output - receives a JSON result per delivery, one per line
+   * @param error - receives usage and read errors
+   * @return exit code of the worst result
+   */
+  static int run(String[] args, InputStream standardInput, PrintStream output,
+      PrintStream error) {
+    String format = null;
+    String mode = null;
+    Integer maxErrors = null;
+    int amountScale = EndBalanceRule.DEFAULT_AMOUNT_SCALE;
+    List<String> files = new ArrayList<>();
+    int errorLimit;
+    StatementValidationCli cli;
+    try {
+      for (String arg : args) {
+        if (arg.equals("--help") || arg.equals("-h")) {
+          output.println(USAGE);
+          return EXIT_SUCCESS;
+        } else if (arg.startsWith("--format=")) {
+          format = arg.substring("--format=".length());
+        } else if (arg.startsWith("--mode=")) {
+          mode = arg.substring("--mode=".length());
+        } else if (arg.startsWith("--max-errors=")) {
+          maxErrors = Integer.valueOf(arg.substring("--max-errors=".length()));
+        } else if (arg.startsWith("--amount-scale=")) {
+          amountScale = Integer.parseInt(arg.substring("--amount-scale=".length()));
+        } else if (arg.startsWith("--")) {
+          throw new IllegalArgumentException("Unknown option : " + arg);
+        } else {
+          files.add(arg);
+        }
+      }
+      errorLimit = ValidationMode.maxErrors(mode, maxErrors);
+      if (format != null) {
+        contentTypeOfFormat(format);
+      }
+      cli = new StatementValidationCli(amountScale);
+    } catch (IllegalArgumentException | InvalidValidationModeException e) {
+      error.println(e.getMessage());
+      error.println(USAGE);
+      return EXIT_USAGE;
+    }
+    if (files.isEmpty()) {
+      files.add(STANDARD_INPUT);
+    }
+    int exitCode = EXIT_SUCCESS;
+    for (String file : files) {
+      exitCode = Math.max(exitCode, cli.validate(file, format, errorLimit, standardInput, output,
+          error));
+    }
+    return exitCode;
+  }
+
+  private int validate(String file, String format, int errorLimit, InputStream standardInput,
+      PrintStream output, PrintStream error) {
+    MediaType contentType;
+    if (format != null) {
+      contentType = contentTypeOfFormat(format);
+    } else {
+      contentType = STANDARD_INPUT.equals(file) ? MediaType.APPLICATION_JSON
+          : StatementRecordReader.contentTypeOf(file);
+    }
+    StatementResult statementResult;
+    int exitCode;
+    try (InputStream inputStream = STANDARD_INPUT.equals(file) ? standardInput
+        : Files.newInputStream(Paths.get(file))) {
+      StatementValidation statementValidation = statementValidationProcessor
+          .newValidation(errorLimit);
+      statementRecordReader.readWhile(inputStream, contentType, statementRecord -> {
+        statementValidation.accept(statementRecord);
+        return !statementValidation.isErrorLimitReached();
+      });
+      statementResult = statementValidation.getResult();
+      exitCode = exitCodeOf(statementResult.getResult());
+    } catch (JsonProcessingException e) {
+      error.println(file + " : " + e.getOriginalMessage());
+      statementResult = failed("BAD_REQUEST");
+      exitCode = EXIT_BAD_REQUEST;
+    } catch (IOException e) {
+      error.println(file + " : unable to read " + e);
+      statementResult = failed("INTERNAL_SERVER_ERROR");
+      exitCode = EXIT_UNREADABLE;
+    }
+    try {
+      output.println(objectMapper.writeValueAsString(statementResult));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Unable to write the result of " + file, e);
+    }
+    return exitCode;
+  }
+
+  private static StatementResult failed(String result) {
+    return StatementResult.builder().result(result).errorRecords(Collections.emptyList()).build();
+  }
+
+  static int exitCodeOf(String result) {
+    switch (result) {
+      case StatementValidationProcessor.SUCCESS:
+        return EXIT_SUCCESS;
+      case StatementValidationProcessor.DUPLICATE_REFERENCE:
+        return EXIT_DUPLICATE_REFERENCE;
+      case StatementValidationProcessor.INCORRECT_END_BALANCE:
+        return EXIT_INCORRECT_END_BALANCE;
+      case StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE:
+        return EXIT_DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
+      default:
+        return EXIT_BAD_REQUEST;
+    }
+  }
+
+  private static MediaType contentTypeOfFormat(String format) {
+    switch (format) {
+      case "json":
+        return MediaType.APPLICATION_JSON;
+      case "smile":
+        return StatementRecordReader.APPLICATION_SMILE;
+      case "cbor":
+        return MediaType.APPLICATION_CBOR;
+      case "csv":
+        return StatementRecordReader.TEXT_CSV;
+      case "xml":
+        return MediaType.APPLICATION_XML;
+      default:
+        throw new IllegalArgumentException("Unknown format : " + format);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.rabobank.nl.statementprocessor.config;
+
+import static com.rabobank.nl.statementprocessor.service.StatementRecordReader.APPLICATION_SMILE;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Accepts statement records in the binary Smile and CBOR formats besides JSON. The converters
+ * share the configuration of the application ObjectMapper. A response is written in the format
+ * of the Accept header, or in the format of the request when the Accept header is missing.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class BinaryFormatConfiguration implements WebMvcConfigurer {
+
+  private static final List<MediaType> BINARY_FORMATS = Arrays
+      .asList(APPLICATION_SMILE, MediaType.APPLICATION_CBOR);
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        jackson2ObjectMapperBuilder.factory(new SmileFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        jackson2ObjectMapperBuilder.factory(new CBORFactory()).build());
+  }
+
+  @Override
+  public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+    ContentNegotiationStrategy requestFormat = request -> {
+      String contentType = request.getHeader("Content-Type");
+      if (contentType != null) {
+        try {
+          MediaType mediaType = MediaType.parseMediaType(contentType);
+          for (MediaType binaryFormat : BINARY_FORMATS) {
+            if (binaryFormat.isCompatibleWith(mediaType)) {
+              return Collections.singletonList(binaryFormat);
+            }
+          }
+        } catch (InvalidMediaTypeException e) {
+          //rejected as unsupported media type when the request is read
+        }
+      }
+      return ContentNegotiationStrategy.MEDIA_TYPE_ALL_LIST;
+    };
+    configurer.strategies(Arrays.asList(new HeaderContentNegotiationStrategy(), requestFormat));
+  }
+}
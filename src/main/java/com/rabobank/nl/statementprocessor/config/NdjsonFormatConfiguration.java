@@ -0,0 +1,51 @@
+package com.rabobank.nl.statementprocessor.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Writes responses as a single NDJSON line when only NDJSON is accepted, so a failure of a
+ * delivery whose error records are streamed as NDJSON is answered in the same format as the last
+ * line of the stream. The converter is consulted after all others, a response is only written as
+ * NDJSON when NDJSON is asked for.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class NdjsonFormatConfiguration implements WebMvcConfigurer {
+
+  private final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+
+  public NdjsonFormatConfiguration(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+    this.jackson2ObjectMapperBuilder = jackson2ObjectMapperBuilder;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new NdjsonHttpMessageConverter(jackson2ObjectMapperBuilder.build()));
+  }
+
+  /**
+   * Writes a value as a JSON line
+   */
+  static class NdjsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    NdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+      super(objectMapper, MediaType.APPLICATION_NDJSON);
+    }
+
+    @Override
+    protected void writeSuffix(JsonGenerator generator, Object object) throws IOException {
+      generator.writeRaw('\n');
+    }
+  }
+}
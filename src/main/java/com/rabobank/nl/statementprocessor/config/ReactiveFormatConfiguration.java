@@ -0,0 +1,34 @@
+package com.rabobank.nl.statementprocessor.config;
+
+import static com.rabobank.nl.statementprocessor.service.StatementRecordReader.APPLICATION_SMILE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Accepts statement records in the binary Smile format on the reactive stack, decoded with the
+ * configuration of the application ObjectMapper like {@link BinaryFormatConfiguration} does on
+ * the servlet stack. CBOR is not offered, it has no non-blocking parser to decode records with
+ * as the body arrives.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveFormatConfiguration {
+
+  @Bean
+  public CodecCustomizer smileCodecCustomizer(
+      Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+    ObjectMapper objectMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+    //custom codecs are consulted before the default Smile decoder, the default encoders are kept
+    //so a response is written as JSON unless Smile is accepted
+    return configurer -> configurer.customCodecs()
+        .register(new Jackson2SmileDecoder(objectMapper, APPLICATION_SMILE));
+  }
+}
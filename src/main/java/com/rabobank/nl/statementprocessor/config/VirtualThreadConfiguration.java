@@ -0,0 +1,39 @@
+package com.rabobank.nl.statementprocessor.config;
+
+import com.rabobank.nl.statementprocessor.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Handles every Tomcat request on a new virtual thread instead of a thread of the fixed pool, so
+ * slow uploads no longer hold a platform thread while they wait for the network. The number of
+ * requests in progress is bounded by {@code server.tomcat.max-connections} instead of
+ * {@code server.tomcat.threads.max}. On a Java version without virtual threads a warning is logged
+ * and Tomcat keeps its pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "statement.threads.virtual", havingValue = "true")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Slf4j
+public class VirtualThreadConfiguration {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+    return protocolHandler -> {
+      if (!VirtualThreads.isSupported()) {
+        final String logMethod = "virtualThreadProtocolHandlerCustomizer():TomcatProtocolHandlerCustomizer Virtual threads require Java 21 or later, running %s, requests handled on the Tomcat pool";
+        log.warn(String.format(logMethod, System.getProperty("java.version")));
+        return;
+      }
+      protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-virtual-"));
+      final String logMethod = "virtualThreadProtocolHandlerCustomizer():TomcatProtocolHandlerCustomizer Requests handled on virtual threads : %s";
+      log.info(String.format(logMethod, protocolHandler.getClass().getSimpleName()));
+    };
+  }
+}
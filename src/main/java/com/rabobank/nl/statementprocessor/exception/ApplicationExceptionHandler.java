@@ -1,7 +1,11 @@
 package com.rabobank.nl.statementprocessor.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Collections;
+import java.util.zip.ZipException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -10,26 +14,40 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
 /**
  * Transforms exceptions to the error response structure
  */
 @ControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class ApplicationExceptionHandler {
 
+  private final MeterRegistry meterRegistry;
+
   /**
    * Handle validation exceptions
    *
    * @param exception the exception
    * @return ResponseEntity with error messages
    */
-  @ExceptionHandler({HttpMessageNotReadableException.class})
+  @ExceptionHandler({HttpMessageNotReadableException.class, JsonProcessingException.class,
+      ZipException.class, ServerWebInputException.class, InvalidValidationModeException.class,
+      MethodArgumentTypeMismatchException.class, InvalidPageRequestException.class})
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Object> handleJsonParsingException(
-      HttpMessageNotReadableException exception) {
+  public ResponseEntity<Object> handleJsonParsingException(Exception exception) {
+    if (exception.getCause() instanceof DecompressedSizeExceededException) {
+      //bound request bodies get I/O errors wrapped in HttpMessageNotReadableException
+      return handleDecompressedSizeExceededException(
+          (DecompressedSizeExceededException) exception.getCause());
+    }
     final String logMethod = "handleJsonParsingException(exception):ResponseEntity Exception Cause :%s";
-    log.error(String.format(logMethod, exception.getCause()));
+    log.error(String.format(logMethod,
+        null != exception.getCause() ? exception.getCause() : exception.getMessage()));
+
+    countError("BAD_REQUEST");
 
     StatementResult statementResultBadRequest = StatementResult.builder().result("BAD_REQUEST")
         .errorRecords(Collections.emptyList()).build();
@@ -37,6 +55,112 @@ public class ApplicationExceptionHandler {
     return new ResponseEntity(statementResultBadRequest, HttpHeaders.EMPTY, HttpStatus.BAD_REQUEST);
   }
 
+  /**
+   * Handle compressed request bodies inflating beyond the maximum size
+   *
+   * @param exception the exception
+   * @return ResponseEntity with error messages
+   */
+  @ExceptionHandler({DecompressedSizeExceededException.class})
+  @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+  public ResponseEntity<Object> handleDecompressedSizeExceededException(
+      DecompressedSizeExceededException exception) {
+    final String logMethod = "handleDecompressedSizeExceededException(exception):ResponseEntity Exception Cause : %s";
+    log.warn(String.format(logMethod, exception.getMessage()));
+
+    countError("PAYLOAD_TOO_LARGE");
+
+    StatementResult statementResultTooLarge = StatementResult.builder().result("PAYLOAD_TOO_LARGE")
+        .errorRecords(Collections.emptyList()).build();
+
+    return new ResponseEntity(statementResultTooLarge, HttpHeaders.EMPTY,
+        HttpStatus.PAYLOAD_TOO_LARGE);
+  }
+
+  /**
+   * Handle requests for unknown or expired jobs, upload sessions and error sets
+   *
+   * @param exception the exception
+   * @return ResponseEntity with error messages
+   */
+  @ExceptionHandler({JobNotFoundException.class, SessionNotFoundException.class,
+      ErrorSetNotFoundException.class})
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  public ResponseEntity<Object> handleJobNotFoundException(RuntimeException exception) {
+    final String logMethod = "handleJobNotFoundException(exception):ResponseEntity Exception Cause : %s";
+    log.warn(String.format(logMethod, exception.getMessage()));
+
+    countError("NOT_FOUND");
+
+    StatementResult statementResultNotFound = StatementResult.builder().result("NOT_FOUND")
+        .errorRecords(Collections.emptyList()).build();
+
+    return new ResponseEntity(statementResultNotFound, HttpHeaders.EMPTY, HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Handle requests for the result of a job still running
+   *
+   * @param exception the exception
+   * @return ResponseEntity with error messages
+   */
+  @ExceptionHandler({JobNotFinishedException.class})
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<Object> handleJobNotFinishedException(JobNotFinishedException exception) {
+    final String logMethod = "handleJobNotFinishedException(exception):ResponseEntity Exception Cause : %s";
+    log.info(String.format(logMethod, exception.getMessage()));
+
+    countError("JOB_NOT_FINISHED");
+
+    StatementResult statementResultConflict = StatementResult.builder().result("JOB_NOT_FINISHED")
+        .errorRecords(Collections.emptyList()).build();
+
+    return new ResponseEntity(statementResultConflict, HttpHeaders.EMPTY, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Handle jobs rejected because the job queue is full and sessions rejected because the maximum
+   * of open sessions is reached
+   *
+   * @param exception the exception
+   * @return ResponseEntity with error messages
+   */
+  @ExceptionHandler({JobRejectedException.class, SessionRejectedException.class})
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<Object> handleJobRejectedException(RuntimeException exception) {
+    final String logMethod = "handleJobRejectedException(exception):ResponseEntity Exception Cause : %s";
+    log.warn(String.format(logMethod, exception.getMessage()));
+
+    countError("SERVICE_UNAVAILABLE");
+
+    StatementResult statementResultUnavailable = StatementResult.builder()
+        .result("SERVICE_UNAVAILABLE").errorRecords(Collections.emptyList()).build();
+
+    return new ResponseEntity(statementResultUnavailable, HttpHeaders.EMPTY,
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Handle deliveries of which a shard couldn't be validated by a peer
+   *
+   * @param exception the exception
+   * @return ResponseEntity with error messages
+   */
+  @ExceptionHandler({ShardFailedException.class})
+  @ResponseStatus(HttpStatus.BAD_GATEWAY)
+  public ResponseEntity<Object> handleShardFailedException(ShardFailedException exception) {
+    final String logMethod = "handleShardFailedException(exception):ResponseEntity Exception Cause : %s";
+    log.error(String.format(logMethod, exception.getMessage()), exception.getCause());
+
+    countError("BAD_GATEWAY");
+
+    StatementResult statementResultBadGateway = StatementResult.builder().result("BAD_GATEWAY")
+        .errorRecords(Collections.emptyList()).build();
+
+    return new ResponseEntity(statementResultBadGateway, HttpHeaders.EMPTY,
+        HttpStatus.BAD_GATEWAY);
+  }
+
   /**
    * Handle any other exception response
    *
@@ -51,6 +175,8 @@ public class ApplicationExceptionHandler {
     log.error(String.format(logMethod,
         null != exception.getCause() ? exception.getCause() : exception.getMessage()));
 
+    countError("INTERNAL_SERVER_ERROR");
+
     StatementResult statementResultBadRequest = StatementResult.builder()
         .result("INTERNAL_SERVER_ERROR").errorRecords(Collections.emptyList()).build();
 
@@ -58,4 +184,7 @@ public class ApplicationExceptionHandler {
         HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
+  private void countError(String result) {
+    meterRegistry.counter("statement.errors", "result", result).increment();
+  }
 }
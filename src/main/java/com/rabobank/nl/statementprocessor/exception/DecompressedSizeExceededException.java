@@ -0,0 +1,13 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+import java.io.IOException;
+
+/**
+ * Raised while reading a compressed request body which inflates beyond the configured maximum
+ */
+public class DecompressedSizeExceededException extends IOException {
+
+  public DecompressedSizeExceededException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when a stored error set is unknown or has expired
+ */
+public class ErrorSetNotFoundException extends RuntimeException {
+
+  public ErrorSetNotFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when a page of an error set is requested with a cursor not returned for that error set
+ * or an unsupported page size
+ */
+public class InvalidPageRequestException extends RuntimeException {
+
+  public InvalidPageRequestException(String message) {
+    super(message);
+  }
+}
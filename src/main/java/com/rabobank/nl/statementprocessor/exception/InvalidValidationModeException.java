@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when the requested validation mode or error limit is not supported
+ */
+public class InvalidValidationModeException extends RuntimeException {
+
+  public InvalidValidationModeException(String message) {
+    super(message);
+  }
+}
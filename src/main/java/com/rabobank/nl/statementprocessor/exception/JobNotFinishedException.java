@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when the result of a job is requested before the job finished
+ */
+public class JobNotFinishedException extends RuntimeException {
+
+  public JobNotFinishedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when a job is unknown or its result has expired
+ */
+public class JobNotFoundException extends RuntimeException {
+
+  public JobNotFoundException(String message) {
+    super(message);
+  }
+}
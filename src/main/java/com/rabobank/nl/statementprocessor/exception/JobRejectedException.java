@@ -0,0 +1,15 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when a job can't be accepted because the job queue is full
+ */
+public class JobRejectedException extends RuntimeException {
+
+  public JobRejectedException(String message) {
+    super(message);
+  }
+
+  public JobRejectedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
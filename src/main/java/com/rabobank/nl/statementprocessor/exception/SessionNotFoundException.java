@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when an upload session is unknown, closed or evicted after being idle
+ */
+public class SessionNotFoundException extends RuntimeException {
+
+  public SessionNotFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when an upload session can't be opened because the maximum of open sessions is reached
+ */
+public class SessionRejectedException extends RuntimeException {
+
+  public SessionRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+/**
+ * Raised when a peer couldn't validate a shard of a delivery or returned a partial result that
+ * can't be merged
+ */
+public class ShardFailedException extends RuntimeException {
+
+  public ShardFailedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
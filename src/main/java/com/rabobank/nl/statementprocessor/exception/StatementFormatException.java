@@ -0,0 +1,18 @@
+package com.rabobank.nl.statementprocessor.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Raised when a CSV or XML delivery is malformed. Extends the exception of malformed JSON, Smile
+ * and CBOR deliveries so every format is rejected the same way.
+ */
+public class StatementFormatException extends JsonProcessingException {
+
+  public StatementFormatException(String message) {
+    super(message);
+  }
+
+  public StatementFormatException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,275 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecordPage;
+import com.rabobank.nl.statementprocessor.exception.ErrorSetNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.InvalidPageRequestException;
+import com.rabobank.nl.statementprocessor.util.DaemonThreads;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Error records of deliveries validated with their error records stored instead of returned,
+ * read back page by page with a cursor. An error set is spooled to a temporary file while the
+ * delivery is validated, so neither the validation nor a page holds more than a page of error
+ * records on the heap. A cursor is the position of the next error record in the file. Error sets
+ * are kept until they expire. Thread safe.
+ */
+@Service
+@Slf4j
+public class ErrorRecordStore {
+
+  public static final int DEFAULT_PAGE_SIZE = 1000;
+
+  private static final int RECORD_MARKER = 0x1E;
+  private static final int HAS_REFERENCE = 1;
+  private static final int HAS_ACCOUNT_NUMBER = 2;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Duration timeToLive;
+  private final int maxPageSize;
+  private final Random cursorKeys = new SecureRandom();
+  private final ScheduledExecutorService evictionExecutor;
+  private final Map<String, StoredErrorSet> errorSets = new ConcurrentHashMap<>();
+
+  /**
+   * @param timeToLive - time an error set is kept after it was stored
+   * @param maxPageSize - maximum number of error records of a page
+   */
+  public ErrorRecordStore(
+      @Value("${statement.error-sets.time-to-live:1h}") Duration timeToLive,
+      @Value("${statement.error-sets.max-page-size:10000}") int maxPageSize) {
+    this.timeToLive = timeToLive;
+    this.maxPageSize = maxPageSize;
+    this.evictionExecutor = DaemonThreads.scheduleEviction("statement-error-set-eviction-",
+        timeToLive, () -> evictExpiredErrorSets(Instant.now()));
+  }
+
+  /**
+   * Start spooling the error records of a delivery, close the writer once the delivery is
+   * validated or failed
+   *
+   * @return errorSetWriter - receives the error records in delivery order
+   * @throws IOException when the temporary file can't be created
+   */
+  public ErrorSetWriter newErrorSet() throws IOException {
+    return new ErrorSetWriter(Files.createTempFile("statement-errors-", ".bin"));
+  }
+
+  /**
+   * Read the error records of a stored error set from a cursor on
+   *
+   * @param errorSetId - id of the error set
+   * @param cursor - cursor returned with the previous page, null for the first page
+   * @param limit - maximum number of error records of the page
+   * @return errorRecordPage - the error records and the cursor of the next page
+   * @throws IOException when the error set can't be read
+   */
+  public ErrorRecordPage getPage(String errorSetId, String cursor, int limit)
+      throws IOException {
+    StoredErrorSet errorSet = errorSets.get(errorSetId);
+    if (errorSet == null) {
+      throw new ErrorSetNotFoundException("Error set " + errorSetId + " not found");
+    }
+    if (limit < 1 || limit > maxPageSize) {
+      throw new InvalidPageRequestException(
+          "limit must be between 1 and " + maxPageSize + " : " + limit);
+    }
+    long position = errorSet.position(cursor);
+    List<ErrorRecord> errorRecords = new ArrayList<>(Math.min(limit, DEFAULT_PAGE_SIZE));
+    try (FileChannel channel = FileChannel.open(errorSet.file, StandardOpenOption.READ)) {
+      channel.position(position);
+      DataInputStream input = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+      while (errorRecords.size() < limit && position < errorSet.size) {
+        if (input.readUnsignedByte() != RECORD_MARKER) {
+          throw new InvalidPageRequestException("Invalid cursor : " + cursor);
+        }
+        int flags = input.readUnsignedByte();
+        position += 2;
+        ErrorRecord.ErrorRecordBuilder errorRecord = ErrorRecord.builder();
+        if ((flags & HAS_REFERENCE) != 0) {
+          errorRecord.reference(input.readLong());
+          position += Long.BYTES;
+        }
+        if ((flags & HAS_ACCOUNT_NUMBER) != 0) {
+          int length = input.readInt();
+          if (length < 0 || length > errorSet.size - position) {
+            throw new InvalidPageRequestException("Invalid cursor : " + cursor);
+          }
+          byte[] accountNumber = new byte[length];
+          input.readFully(accountNumber);
+          errorRecord.accountNumber(new String(accountNumber, StandardCharsets.UTF_8));
+          position += Integer.BYTES + length;
+        }
+        errorRecords.add(errorRecord.build());
+      }
+    } catch (EOFException e) {
+      throw new InvalidPageRequestException("Invalid cursor : " + cursor);
+    }
+    return ErrorRecordPage.builder().errorRecords(errorRecords)
+        .nextCursor(position < errorSet.size ? errorSet.cursor(position) : null).build();
+  }
+
+  public int size() {
+    return errorSets.size();
+  }
+
+  void evictExpiredErrorSets(Instant now) {
+    errorSets.entrySet().removeIf(entry -> {
+      if (entry.getValue().storedAt.plus(timeToLive).isBefore(now)) {
+        //a page being read keeps reading the open file
+        delete(entry.getValue().file);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    evictionExecutor.shutdownNow();
+    errorSets.values().forEach(errorSet -> delete(errorSet.file));
+    errorSets.clear();
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException exception) {
+      log.warn(String.format("delete(Path) Could not delete %s : %s", file, exception));
+    }
+  }
+
+  /**
+   * Error records of one delivery being spooled, the file is deleted on close unless the error
+   * set was stored. Not thread safe.
+   */
+  public class ErrorSetWriter implements Consumer<ErrorRecord>, Closeable {
+
+    private final Path file;
+    private final DataOutputStream output;
+    private long errorRecords;
+    private String errorSetId;
+
+    private ErrorSetWriter(Path file) throws IOException {
+      this.file = file;
+      this.output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    @Override
+    public void accept(ErrorRecord errorRecord) {
+      Long reference = errorRecord.getReference();
+      String accountNumber = errorRecord.getAccountNumber();
+      try {
+        output.writeByte(RECORD_MARKER);
+        output.writeByte((reference != null ? HAS_REFERENCE : 0)
+            | (accountNumber != null ? HAS_ACCOUNT_NUMBER : 0));
+        if (reference != null) {
+          output.writeLong(reference);
+        }
+        if (accountNumber != null) {
+          byte[] bytes = accountNumber.getBytes(StandardCharsets.UTF_8);
+          output.writeInt(bytes.length);
+          output.write(bytes);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to spool error record to " + file, e);
+      }
+      errorRecords++;
+    }
+
+    /**
+     * Store the error records spooled so far, no error set is stored without error records
+     *
+     * @return errorSetId - id the error records are read back with, null without error records
+     * @throws IOException when the error records can't be written
+     */
+    public String store() throws IOException {
+      output.close();
+      if (errorRecords == 0) {
+        return null;
+      }
+      errorSetId = UUID.randomUUID().toString();
+      errorSets.put(errorSetId,
+          new StoredErrorSet(file, Files.size(file), cursorKeys.nextLong(), Instant.now()));
+      return errorSetId;
+    }
+
+    @Override
+    public void close() throws IOException {
+      output.close();
+      if (errorSetId == null) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Error set available for paging until it expires
+   */
+  private static class StoredErrorSet {
+
+    private final Path file;
+    private final long size;
+    private final long cursorKey;
+    private final Instant storedAt;
+
+    private StoredErrorSet(Path file, long size, long cursorKey, Instant storedAt) {
+      this.file = file;
+      this.size = size;
+      this.cursorKey = cursorKey;
+      this.storedAt = storedAt;
+    }
+
+    private String cursor(long position) {
+      //opaque and bound to the error set, a made up cursor or one of another error set
+      //points far beyond the end of the file
+      return Long.toHexString(position ^ cursorKey);
+    }
+
+    private long position(String cursor) {
+      if (cursor == null) {
+        return 0;
+      }
+      long position;
+      try {
+        position = Long.parseUnsignedLong(cursor, 16) ^ cursorKey;
+      } catch (NumberFormatException e) {
+        throw new InvalidPageRequestException("Invalid cursor : " + cursor);
+      }
+      if (position < 0 || position >= size) {
+        throw new InvalidPageRequestException("Invalid cursor : " + cursor);
+      }
+      return position;
+    }
+  }
+}
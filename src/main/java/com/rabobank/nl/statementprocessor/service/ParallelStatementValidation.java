@@ -0,0 +1,232 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult.ShardError;
+import com.rabobank.nl.statementprocessor.api.model.ReferenceSet;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementValidation.CandidateError;
+import com.rabobank.nl.statementprocessor.service.StatementValidation.ReportedReferences;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.rule.RuleEvaluation;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Validates a bound delivery in chunks on a fork/join pool. Every chunk builds its own partial
+ * validation, partial validations of adjacent chunks are merged until one remains which gives the
+ * same result as validating the delivery in a single pass. The delivery is either a list of
+ * records or a columnar {@link StatementBatch}. A partial validation can be exchanged with other
+ * instances as a {@link PartialStatementResult}, so the shards of a delivery are validated apart.
+ */
+class ParallelStatementValidation extends RecursiveTask<ParallelStatementValidation.PartialValidation> {
+
+  private final List<StatementRule> rules;
+  private final List<StatementRecord> statementRecords;
+  private final StatementBatch statementBatch;
+  private final int from;
+  private final int to;
+  private final int chunkSize;
+  private final Supplier<ValidationSummary> validationSummaries;
+
+  ParallelStatementValidation(List<StatementRule> rules, List<StatementRecord> statementRecords,
+      int chunkSize, Supplier<ValidationSummary> validationSummaries) {
+    this(rules, statementRecords, null, 0, statementRecords.size(), chunkSize,
+        validationSummaries);
+  }
+
+  ParallelStatementValidation(List<StatementRule> rules, StatementBatch statementBatch,
+      int chunkSize, Supplier<ValidationSummary> validationSummaries) {
+    this(rules, null, statementBatch, 0, statementBatch.size(), chunkSize, validationSummaries);
+  }
+
+  private ParallelStatementValidation(List<StatementRule> rules,
+      List<StatementRecord> statementRecords, StatementBatch statementBatch, int from, int to,
+      int chunkSize, Supplier<ValidationSummary> validationSummaries) {
+    this.rules = rules;
+    this.validationSummaries = validationSummaries;
+    this.statementRecords = statementRecords;
+    this.statementBatch = statementBatch;
+    this.from = from;
+    this.to = to;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  protected PartialValidation compute() {
+    if (to - from <= chunkSize) {
+      PartialValidation partialValidation = new PartialValidation(rules, to - from,
+          validationSummaries.get());
+      for (int i = from; i < to; i++) {
+        partialValidation.accept(statementRecords != null ? statementRecords.get(i) : null,
+            statementBatch, i);
+      }
+      return partialValidation;
+    }
+    int middle = (from + to) >>> 1;
+    ParallelStatementValidation following = new ParallelStatementValidation(rules,
+        statementRecords, statementBatch, middle, to, chunkSize, validationSummaries);
+    following.fork();
+    PartialValidation partialValidation = new ParallelStatementValidation(rules, statementRecords,
+        statementBatch, from, middle, chunkSize, validationSummaries).compute();
+    partialValidation.merge(following.join());
+    return partialValidation;
+  }
+
+  /**
+   * Validation state of a chunk of consecutive records. Errors are kept with the position of the
+   * record they were reported for, so errors of different chunks are listed as in a single pass.
+   */
+  static class PartialValidation {
+
+    private final List<StatementRule> rules;
+    private final RuleEvaluation[] ruleEvaluations;
+    private final boolean[] rulesFailed;
+    private final ValidationSummary validationSummary;
+    private List<CandidateError> candidateErrors = new ArrayList<>();
+    private final ReportedReferences reportedReferences = new ReportedReferences();
+    private int records;
+
+    PartialValidation(List<StatementRule> rules, int expectedRecords,
+        ValidationSummary validationSummary) {
+      this.rules = rules;
+      this.validationSummary = validationSummary;
+      this.ruleEvaluations = new RuleEvaluation[rules.size()];
+      this.rulesFailed = new boolean[rules.size()];
+      for (int i = 0; i < ruleEvaluations.length; i++) {
+        ruleEvaluations[i] = rules.get(i).newEvaluation(expectedRecords);
+      }
+    }
+
+    /**
+     * @param statementRecord - next record, null when it is read from the batch
+     * @param statementBatch - batch holding the next record when it is not given as an object
+     * @param index - index of the record in the batch
+     */
+    void accept(StatementRecord statementRecord, StatementBatch statementBatch, int index) {
+      int position = records++;
+      boolean timed = validationSummary.accepted();
+      for (int i = 0; i < ruleEvaluations.length; i++) {
+        ErrorRecord errorRecord;
+        if (timed) {
+          long start = System.nanoTime();
+          errorRecord = StatementValidation.evaluate(ruleEvaluations[i], statementRecord,
+              statementBatch, index);
+          validationSummary.timed(i, System.nanoTime() - start);
+        } else {
+          errorRecord = StatementValidation.evaluate(ruleEvaluations[i], statementRecord,
+              statementBatch, index);
+        }
+        if (errorRecord != null) {
+          rulesFailed[i] = true;
+          validationSummary.rejected(i);
+          //within a chunk a later error of a reference only matters when an earlier rule reports it
+          if (ReportedReferences.isListed(i,
+              reportedReferences.report(errorRecord.getReference(), i))) {
+            candidateErrors.add(new CandidateError(position, i, errorRecord));
+          }
+        }
+      }
+    }
+
+    void merge(PartialValidation following) {
+      List<CandidateError> merged = new ArrayList<>(
+          candidateErrors.size() + following.candidateErrors.size());
+      merged.addAll(candidateErrors);
+      for (CandidateError candidateError : following.candidateErrors) {
+        merged.add(new CandidateError(records + candidateError.getPosition(),
+            candidateError.getRuleIndex(), candidateError.getErrorRecord()));
+      }
+      for (int i = 0; i < ruleEvaluations.length; i++) {
+        final int ruleIndex = i;
+        ruleEvaluations[i].merge(following.ruleEvaluations[i], (position, errorRecord) -> {
+          rulesFailed[ruleIndex] = true;
+          validationSummary.rejected(ruleIndex);
+          merged.add(new CandidateError(records + position, ruleIndex, errorRecord));
+        });
+        rulesFailed[i] |= following.rulesFailed[i];
+      }
+      candidateErrors = merged;
+      records += following.records;
+      validationSummary.merge(following.validationSummary);
+    }
+
+    /**
+     * Restore the partial validation of a shard validated on another instance
+     *
+     * @param rules - rules of the validation, the same as the shard was validated with
+     * @param partialResult - validation state of the shard
+     * @param validationSummary - summary counting the records and errors of the shard
+     * @return partial validation of the shard, to be merged with the adjacent shards
+     * @throws IllegalArgumentException when the shard was validated with other rules
+     */
+    static PartialValidation restore(List<StatementRule> rules,
+        PartialStatementResult partialResult, ValidationSummary validationSummary) {
+      if (!ruleNames(rules).equals(partialResult.getRules())) {
+        throw new IllegalArgumentException("Shard validated with rules " + partialResult.getRules()
+            + " instead of " + ruleNames(rules));
+      }
+      PartialValidation partialValidation = new PartialValidation(rules, 0, validationSummary);
+      for (int i = 0; i < rules.size(); i++) {
+        partialValidation.ruleEvaluations[i] = rules.get(i)
+            .restoreEvaluation(partialResult.getRuleStates().get(i), partialResult.getRecords());
+        partialValidation.rulesFailed[i] = partialResult.getRulesFailed()[i];
+      }
+      for (ShardError shardError : partialResult.getErrors()) {
+        partialValidation.candidateErrors.add(new CandidateError(shardError.getPosition(),
+            shardError.getRuleIndex(), shardError.getErrorRecord()));
+      }
+      partialValidation.records = partialResult.getRecords();
+      validationSummary.restore(partialResult.getRecords(), partialResult.getRuleErrors());
+      return partialValidation;
+    }
+
+    /**
+     * @return validation state of the records accepted so far, to be merged on another instance
+     */
+    PartialStatementResult toPartialResult() {
+      List<ShardError> errors = new ArrayList<>(candidateErrors.size());
+      for (CandidateError candidateError : candidateErrors) {
+        errors.add(ShardError.builder().position(candidateError.getPosition())
+            .ruleIndex(candidateError.getRuleIndex()).errorRecord(candidateError.getErrorRecord())
+            .build());
+      }
+      List<ReferenceSet> ruleStates = new ArrayList<>(ruleEvaluations.length);
+      long[] ruleErrors = new long[ruleEvaluations.length];
+      for (int i = 0; i < ruleEvaluations.length; i++) {
+        ruleStates.add(ruleEvaluations[i].getPartialState());
+        ruleErrors[i] = validationSummary.getRuleErrors(i);
+      }
+      return PartialStatementResult.builder().rules(ruleNames(rules)).records(records)
+          .rulesFailed(rulesFailed.clone()).ruleErrors(ruleErrors).errors(errors)
+          .ruleStates(ruleStates).build();
+    }
+
+    StatementResult getResult() {
+      //the first error of every reference listed as a single pass would
+      List<ErrorRecord> errorRecords = StatementValidation.listErrors(candidateErrors,
+          ruleEvaluations);
+      errorRecords.forEach(validationSummary::reported);
+      StatementResult statementResult = StatementResult.builder().errorRecords(errorRecords)
+          .result(StatementValidation.createResult(rules, rulesFailed)).build();
+      for (RuleEvaluation ruleEvaluation : ruleEvaluations) {
+        ruleEvaluation.complete(statementResult);
+      }
+      validationSummary.complete(statementResult);
+      return statementResult;
+    }
+
+    private static List<String> ruleNames(List<StatementRule> rules) {
+      List<String> ruleNames = new ArrayList<>(rules.size());
+      for (StatementRule rule : rules) {
+        ruleNames.add(ClassUtils.getUserClass(rule).getName());
+      }
+      return ruleNames;
+    }
+  }
+}
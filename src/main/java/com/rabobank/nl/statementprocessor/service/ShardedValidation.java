@@ -0,0 +1,51 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.ParallelStatementValidation.PartialValidation;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Merges the partial results of the consecutive shards of one delivery, validated on any
+ * instance, into the result a single pass over the delivery would give. Shards are merged as they
+ * are added, only the merged state is kept. Not thread safe.
+ */
+public class ShardedValidation {
+
+  private final List<StatementRule> rules;
+  private final Supplier<ValidationSummary> validationSummaries;
+  private PartialValidation partialValidation;
+
+  ShardedValidation(List<StatementRule> rules, Supplier<ValidationSummary> validationSummaries) {
+    this.rules = rules;
+    this.validationSummaries = validationSummaries;
+  }
+
+  /**
+   * Merge the next shard of the delivery
+   *
+   * @param partialResult - validation state of the shard directly following the shards merged
+   * @throws IllegalArgumentException when the shard was validated with other rules
+   */
+  public void merge(PartialStatementResult partialResult) {
+    PartialValidation shard = PartialValidation.restore(rules, partialResult,
+        validationSummaries.get());
+    if (partialValidation == null) {
+      partialValidation = shard;
+    } else {
+      partialValidation.merge(shard);
+    }
+  }
+
+  /**
+   * @return statementResult - Response with Result success or error of all shards merged
+   */
+  public StatementResult getResult() {
+    if (partialValidation == null) {
+      partialValidation = new PartialValidation(rules, 0, validationSummaries.get());
+    }
+    return partialValidation.getResult();
+  }
+}
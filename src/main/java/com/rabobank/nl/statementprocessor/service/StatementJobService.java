@@ -0,0 +1,242 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob.JobStatus;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.exception.JobNotFinishedException;
+import com.rabobank.nl.statementprocessor.exception.JobNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.JobRejectedException;
+import com.rabobank.nl.statementprocessor.util.DaemonThreads;
+import com.rabobank.nl.statementprocessor.util.VirtualThreads;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Validates deliveries asynchronously. A delivery is spooled to a temporary file, validated on a
+ * bounded job executor and its result is kept in memory until it expires.
+ */
+@Service
+@Slf4j
+public class StatementJobService {
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+  private final Duration resultTimeToLive;
+  private final ThreadPoolExecutor jobExecutor;
+  private final ScheduledExecutorService evictionExecutor;
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+  /**
+   * @param statementValidationProcessor - validation of the records
+   * @param statementRecordReader - reads the spooled delivery
+   * @param maxConcurrentJobs - number of jobs validated at the same time
+   * @param queueCapacity - number of jobs waiting for validation before new jobs are rejected
+   * @param resultTimeToLive - time a finished job and its result are kept
+   */
+  public StatementJobService(StatementValidationProcessor statementValidationProcessor,
+      StatementRecordReader statementRecordReader, int maxConcurrentJobs, int queueCapacity,
+      Duration resultTimeToLive) {
+    this(statementValidationProcessor, statementRecordReader, maxConcurrentJobs, queueCapacity,
+        resultTimeToLive, false);
+  }
+
+  /**
+   * @param statementValidationProcessor - validation of the records
+   * @param statementRecordReader - reads the spooled delivery
+   * @param maxConcurrentJobs - number of jobs validated at the same time
+   * @param queueCapacity - number of jobs waiting for validation before new jobs are rejected
+   * @param resultTimeToLive - time a finished job and its result are kept
+   * @param virtualThreads - validate jobs on virtual threads, still no more than the maximum at a
+   * time
+   */
+  @Autowired
+  public StatementJobService(StatementValidationProcessor statementValidationProcessor,
+      StatementRecordReader statementRecordReader,
+      @Value("${statement.jobs.max-concurrent:2}") int maxConcurrentJobs,
+      @Value("${statement.jobs.queue-capacity:10}") int queueCapacity,
+      @Value("${statement.jobs.result-time-to-live:1h}") Duration resultTimeToLive,
+      @Value("${statement.threads.virtual:false}") boolean virtualThreads) {
+    this.statementValidationProcessor = statementValidationProcessor;
+    this.statementRecordReader = statementRecordReader;
+    this.resultTimeToLive = resultTimeToLive;
+    ThreadFactory jobThreadFactory = DaemonThreads.namedThreadFactory("statement-job-");
+    this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), virtualThreads
+            ? VirtualThreads.threadFactory("statement-job-", jobThreadFactory) : jobThreadFactory);
+    this.evictionExecutor = DaemonThreads.scheduleEviction("statement-job-eviction-",
+        resultTimeToLive, () -> evictExpiredJobs(Instant.now()));
+  }
+
+  /**
+   * Accept a delivery for asynchronous validation
+   *
+   * @param statementRecords - JSON array of statement records, read completely before returning
+   * @return job - the queued job
+   * @throws IOException when the delivery can't be spooled
+   */
+  public StatementJob submit(InputStream statementRecords) throws IOException {
+    if (jobExecutor.getQueue().remainingCapacity() == 0) {
+      throw new JobRejectedException("Job queue is full");
+    }
+    Path delivery = Files.createTempFile("statement-job-", ".json");
+    try {
+      Files.copy(statementRecords, delivery, StandardCopyOption.REPLACE_EXISTING);
+      Job job = new Job(UUID.randomUUID().toString(), Instant.now());
+      jobs.put(job.jobId, job);
+      //taken before the job can start, a job is always reported as queued when submitted
+      StatementJob submittedJob = job.toStatementJob();
+      try {
+        jobExecutor.execute(new JobTask(job, delivery));
+      } catch (RejectedExecutionException exception) {
+        jobs.remove(job.jobId);
+        throw new JobRejectedException("Job queue is full", exception);
+      }
+      return submittedJob;
+    } catch (IOException | RuntimeException exception) {
+      Files.deleteIfExists(delivery);
+      throw exception;
+    }
+  }
+
+  /**
+   * @param jobId - id of the job
+   * @return job - current state of the job
+   */
+  public StatementJob getJob(String jobId) {
+    return findJob(jobId).toStatementJob();
+  }
+
+  /**
+   * @param jobId - id of the job
+   * @return statementResult - result of the finished job
+   */
+  public StatementResult getResult(String jobId) {
+    Job job = findJob(jobId);
+    StatementResult result = job.result;
+    if (result == null) {
+      throw new JobNotFinishedException("Job " + jobId + " is " + job.status);
+    }
+    return result;
+  }
+
+  void evictExpiredJobs(Instant now) {
+    jobs.values().removeIf(job -> job.finishedAt != null
+        && job.finishedAt.plus(resultTimeToLive).isBefore(now));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    evictionExecutor.shutdownNow();
+    //jobs still queued are never run, their deliveries would stay behind in the temp directory,
+    //running jobs delete their delivery once interrupted
+    for (Runnable queuedJob : jobExecutor.shutdownNow()) {
+      if (queuedJob instanceof JobTask) {
+        delete(((JobTask) queuedJob).delivery);
+      }
+    }
+  }
+
+  private void run(Job job, Path delivery) {
+    final String logMethod = "run(Job,Path) Job %s failed : %s";
+    job.status = JobStatus.RUNNING;
+    try (InputStream inputStream = Files.newInputStream(delivery)) {
+      StatementValidation statementValidation = statementValidationProcessor.newValidation();
+      statementRecordReader.read(inputStream, statementValidation::accept);
+      job.finish(JobStatus.FINISHED, statementValidation.getResult());
+    } catch (JsonProcessingException exception) {
+      log.error(String.format(logMethod, job.jobId, exception.getMessage()));
+      job.finish(JobStatus.FAILED, StatementResult.builder().result("BAD_REQUEST")
+          .errorRecords(Collections.emptyList()).build());
+    } catch (Exception exception) {
+      log.error(String.format(logMethod, job.jobId, exception));
+      job.finish(JobStatus.FAILED, StatementResult.builder().result("INTERNAL_SERVER_ERROR")
+          .errorRecords(Collections.emptyList()).build());
+    } finally {
+      delete(delivery);
+    }
+  }
+
+  private static void delete(Path delivery) {
+    try {
+      Files.deleteIfExists(delivery);
+    } catch (IOException exception) {
+      log.warn(String.format("delete(Path) Could not delete %s : %s", delivery, exception));
+    }
+  }
+
+  private Job findJob(String jobId) {
+    Job job = jobs.get(jobId);
+    if (job == null) {
+      throw new JobNotFoundException("Job " + jobId + " not found");
+    }
+    return job;
+  }
+
+  /**
+   * Validation of a spooled delivery, queued on the job executor
+   */
+  private class JobTask implements Runnable {
+
+    private final Job job;
+    private final Path delivery;
+
+    private JobTask(Job job, Path delivery) {
+      this.job = job;
+      this.delivery = delivery;
+    }
+
+    @Override
+    public void run() {
+      StatementJobService.this.run(job, delivery);
+    }
+  }
+
+  /**
+   * State of a job, written by the job thread and read by request threads
+   */
+  private static class Job {
+
+    private final String jobId;
+    private final Instant submittedAt;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile StatementResult result;
+    private volatile Instant finishedAt;
+
+    private Job(String jobId, Instant submittedAt) {
+      this.jobId = jobId;
+      this.submittedAt = submittedAt;
+    }
+
+    private void finish(JobStatus finalStatus, StatementResult statementResult) {
+      result = statementResult;
+      finishedAt = Instant.now();
+      status = finalStatus;
+    }
+
+    private StatementJob toStatementJob() {
+      return StatementJob.builder().jobId(jobId).status(status).submittedAt(submittedAt)
+          .finishedAt(finishedAt).build();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Meters of the validated deliveries, recorded once per delivery so the cost doesn't grow with
+ * the number of records. The time spent in every rule is measured on a sample of the records
+ * and extrapolated to the whole delivery.
+ */
+@Component
+public class StatementMetrics {
+
+  public static final int DEFAULT_RULE_TIMING_SAMPLE_RATE = 32;
+
+  private final MeterRegistry meterRegistry;
+  private final int ruleTimingSampleRate;
+  private final DistributionSummary records;
+  private final Map<String, Counter> results = new ConcurrentHashMap<>();
+  private final Map<StatementRule, Timer> ruleTimers = new ConcurrentHashMap<>();
+
+  public StatementMetrics(MeterRegistry meterRegistry) {
+    this(meterRegistry, DEFAULT_RULE_TIMING_SAMPLE_RATE);
+  }
+
+  /**
+   * @param meterRegistry - registry of the meters
+   * @param ruleTimingSampleRate - one in this many records is timed rule by rule
+   */
+  @Autowired
+  public StatementMetrics(MeterRegistry meterRegistry,
+      @Value("${statement.metrics.rule-timing-sample-rate:" + DEFAULT_RULE_TIMING_SAMPLE_RATE + "}")
+          int ruleTimingSampleRate) {
+    this.meterRegistry = meterRegistry;
+    this.ruleTimingSampleRate = Math.max(1, ruleTimingSampleRate);
+    this.records = DistributionSummary.builder("statement.validation.records")
+        .description("Records per validated delivery").baseUnit("records")
+        .register(meterRegistry);
+  }
+
+  int getRuleTimingSampleRate() {
+    return ruleTimingSampleRate;
+  }
+
+  /**
+   * Record a validated delivery
+   *
+   * @param rules - rules of the validation
+   * @param result - result code of the delivery
+   * @param deliveryRecords - number of records of the delivery
+   * @param timedRecords - number of records timed rule by rule
+   * @param ruleNanos - time spent by every rule on the timed records
+   */
+  void recordDelivery(List<StatementRule> rules, String result, long deliveryRecords,
+      long timedRecords, long[] ruleNanos) {
+    records.record(deliveryRecords);
+    results.computeIfAbsent(result, resultCode -> Counter.builder("statement.validation.results")
+        .description("Validated deliveries per result code").tag("result", resultCode)
+        .register(meterRegistry)).increment();
+    if (timedRecords == 0) {
+      return;
+    }
+    for (int i = 0; i < ruleNanos.length; i++) {
+      ruleTimers.computeIfAbsent(rules.get(i), this::ruleTimer)
+          .record(ruleNanos[i] * deliveryRecords / timedRecords, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Timer ruleTimer(StatementRule rule) {
+    String ruleName = ClassUtils.getUserClass(rule).getSimpleName();
+    return Timer.builder("statement.validation.rule")
+        .description("Time spent by a rule on a delivery, extrapolated from the timed records")
+        .tag("rule", ruleName.isEmpty() ? rule.getResultCode() : ruleName)
+        .register(meterRegistry);
+  }
+}
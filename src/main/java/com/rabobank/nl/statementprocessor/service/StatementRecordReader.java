@@ -0,0 +1,384 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.rabobank.nl.statementprocessor.api.model.DictionaryStringDeserializer;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatchDeserializer;
+import com.rabobank.nl.statementprocessor.service.format.RecordFields;
+import com.rabobank.nl.statementprocessor.service.format.RecordHandler;
+import com.rabobank.nl.statementprocessor.service.format.StatementCsvParser;
+import com.rabobank.nl.statementprocessor.service.format.StatementXmlParser;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the statement records of a delivery from a stream one record at a time, so a delivery
+ * never has to be bound completely in memory. JSON arrays are read as text or in the binary Smile
+ * or CBOR encoding of the same data model. CSV files with a header row are parsed by
+ * {@link StatementCsvParser}. XML documents of record elements are parsed by
+ * {@link StatementXmlParser}. {@link #read} hands every record to a consumer while it is parsed.
+ * {@link #readBatch} reads a delivery that is bound in memory into the columns of a
+ * {@link StatementBatch}. {@link #split} writes a delivery validated in shards as Smile arrays of
+ * consecutive records. Repeated account numbers and descriptions are read as a single instance.
+ */
+@Component
+public class StatementRecordReader {
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+  public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+  public static final String TEXT_CSV_VALUE = "text/csv";
+  public static final MediaType TEXT_CSV = MediaType.valueOf(TEXT_CSV_VALUE);
+
+  private static final int EXPECTED_RECORDS = 1024;
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader statementRecordReader;
+  private final ObjectReader statementBatchReader;
+  //repeated account numbers of a shard written as Smile are written once
+  private final JsonFactory smileFactory = new SmileFactory()
+      .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+  private final JsonFactory cborFactory = new CBORFactory();
+  private final StatementCsvParser csvParser = new StatementCsvParser();
+  private final StatementXmlParser xmlParser = new StatementXmlParser();
+  private final int amountScale;
+
+  public StatementRecordReader(ObjectMapper objectMapper) {
+    this(objectMapper, EndBalanceRule.DEFAULT_AMOUNT_SCALE);
+  }
+
+  /**
+   * @param objectMapper - mapper of the application
+   * @param amountScale - number of decimals amounts of a batch are kept at, the scale end
+   * balances are validated at
+   */
+  @Autowired
+  public StatementRecordReader(ObjectMapper objectMapper,
+      @Value("${statement.validation.amount-scale:" + EndBalanceRule.DEFAULT_AMOUNT_SCALE + "}")
+          int amountScale) {
+    this.objectMapper = objectMapper;
+    this.amountScale = amountScale;
+    this.statementRecordReader = objectMapper.readerFor(StatementRecord.class);
+    this.statementBatchReader = objectMapper.copy().registerModule(new SimpleModule()
+        .addDeserializer(StatementBatch.class, new StatementBatchDeserializer(amountScale)))
+        .readerFor(StatementBatch.class);
+  }
+
+  /**
+   * @param fileName - name of a file holding a delivery
+   * @return format of the file by its extension, {@code .smile}, {@code .cbor}, {@code .csv} or
+   * {@code .xml}, JSON otherwise
+   */
+  public static MediaType contentTypeOf(String fileName) {
+    if (fileName.endsWith(".smile")) {
+      return APPLICATION_SMILE;
+    }
+    if (fileName.endsWith(".cbor")) {
+      return MediaType.APPLICATION_CBOR;
+    }
+    if (fileName.endsWith(".csv")) {
+      return TEXT_CSV;
+    }
+    if (fileName.endsWith(".xml")) {
+      return MediaType.APPLICATION_XML;
+    }
+    return MediaType.APPLICATION_JSON;
+  }
+
+  /**
+   * Parse the statement records and hand each one to the consumer as soon as it is read
+   *
+   * @param inputStream - JSON array of statement records
+   * @param consumer - receives every record in order of the delivery
+   * @return number of records read
+   * @throws IOException when the stream can't be read or is not a JSON array of records
+   */
+  public long read(InputStream inputStream, Consumer<StatementRecord> consumer)
+      throws IOException {
+    return read(inputStream, MediaType.APPLICATION_JSON, consumer);
+  }
+
+  /**
+   * Parse the statement records in the format of the content type and hand each one to the
+   * consumer as soon as it is read
+   *
+   * @param inputStream - array of statement records
+   * @param contentType - format of the array, JSON, Smile, CBOR, CSV or XML, JSON when null
+   * @param consumer - receives every record in order of the delivery
+   * @return number of records read
+   * @throws IOException when the stream can't be read or is not an array of records
+   */
+  public long read(InputStream inputStream, MediaType contentType,
+      Consumer<StatementRecord> consumer) throws IOException {
+    return readWhile(inputStream, contentType, statementRecord -> {
+      consumer.accept(statementRecord);
+      return true;
+    });
+  }
+
+  /**
+   * Parse the statement records in the format of the content type and hand each one to the
+   * consumer as soon as it is read, until the consumer wants no more. The rest of the stream is
+   * then not parsed.
+   *
+   * @param inputStream - array of statement records
+   * @param contentType - format of the array, JSON, Smile, CBOR, CSV or XML, JSON when null
+   * @param consumer - receives every record in order of the delivery, returns false to stop
+   * @return number of records read
+   * @throws IOException when the stream can't be read or is not an array of records
+   */
+  public long readWhile(InputStream inputStream, MediaType contentType,
+      Predicate<StatementRecord> consumer) throws IOException {
+    if (isTextFormat(contentType)) {
+      StringDictionary accountNumbers = new StringDictionary(
+          DictionaryStringDeserializer.MAX_DICTIONARY_SIZE);
+      StringDictionary descriptions = new StringDictionary(
+          DictionaryStringDeserializer.MAX_DICTIONARY_SIZE);
+      return parse(inputStream, contentType, recordFields -> consumer
+          .test(recordFields.toStatementRecord(accountNumbers, descriptions)));
+    }
+    long records = 0;
+    //repeated account numbers and descriptions of the delivery share one instance
+    ObjectReader deliveryReader = statementRecordReader.withAttribute(
+        DictionaryStringDeserializer.DICTIONARIES, DictionaryStringDeserializer.newDictionaries());
+    try (JsonParser parser = factoryFor(contentType).createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser, "Expected an array of statement records");
+      }
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+          throw new JsonParseException(parser, "Expected a statement record");
+        }
+        records++;
+        if (!consumer.test(deliveryReader.readValue(parser))) {
+          break;
+        }
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Parse all statement records in the format of the content type into a columnar batch
+   *
+   * @param inputStream - array of statement records
+   * @param contentType - format of the array, JSON, Smile, CBOR, CSV or XML, JSON when null
+   * @return the records of the delivery, without descriptions
+   * @throws IOException when the stream can't be read or is not an array of records
+   */
+  public StatementBatch readBatch(InputStream inputStream, MediaType contentType)
+      throws IOException {
+    if (isTextFormat(contentType)) {
+      StatementBatch statementBatch = new StatementBatch(amountScale, EXPECTED_RECORDS);
+      parse(inputStream, contentType, recordFields -> {
+        statementBatch.add(recordFields);
+        return true;
+      });
+      statementBatch.trimToSize();
+      return statementBatch;
+    }
+    try (JsonParser parser = factoryFor(contentType).createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser, "Expected an array of statement records");
+      }
+      return statementBatchReader.readValue(parser);
+    }
+  }
+
+  /**
+   * Split an array of statement records in the format of the content type into shards of
+   * consecutive records, every shard is handed to the consumer as soon as it is complete. The
+   * records are copied token by token, they are not bound.
+   *
+   * @param inputStream - array of statement records
+   * @param contentType - format of the array, JSON, Smile, CBOR, CSV or XML, JSON when null
+   * @param recordsPerShard - maximum number of records of a shard
+   * @param consumer - receives every shard as a Smile array with its index, in order of the
+   * delivery
+   * @return number of records read
+   * @throws IOException when the stream can't be read or is not an array of records
+   */
+  public long split(InputStream inputStream, MediaType contentType, int recordsPerShard,
+      ObjIntConsumer<byte[]> consumer) throws IOException {
+    ShardWriter shardWriter = new ShardWriter(recordsPerShard, consumer);
+    if (isTextFormat(contentType)) {
+      parse(inputStream, contentType, recordFields -> {
+        writeRecord(recordFields, shardWriter.next());
+        shardWriter.written();
+        return true;
+      });
+      return shardWriter.finish();
+    }
+    try (JsonParser parser = factoryFor(contentType).createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser, "Expected an array of statement records");
+      }
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+          throw new JsonParseException(parser, "Expected a statement record");
+        }
+        copyRecord(parser, shardWriter.next());
+        shardWriter.written();
+      }
+    }
+    return shardWriter.finish();
+  }
+
+  private long parse(InputStream inputStream, MediaType contentType, RecordHandler recordHandler)
+      throws IOException {
+    if (TEXT_CSV.isCompatibleWith(contentType)) {
+      Charset charset = contentType.getCharset() != null ? contentType.getCharset()
+          : StandardCharsets.UTF_8;
+      return csvParser.parse(new InputStreamReader(inputStream, charset), recordHandler);
+    }
+    return xmlParser.parse(inputStream, recordHandler);
+  }
+
+  private static boolean isTextFormat(MediaType contentType) {
+    return contentType != null && (TEXT_CSV.isCompatibleWith(contentType)
+        || MediaType.APPLICATION_XML.isCompatibleWith(contentType)
+        || MediaType.TEXT_XML.isCompatibleWith(contentType));
+  }
+
+  private static void writeRecord(RecordFields recordFields, JsonGenerator generator)
+      throws IOException {
+    generator.writeStartObject();
+    if (recordFields.isPresent(RecordFields.REFERENCE)) {
+      generator.writeNumberField("reference", recordFields.getReference());
+    }
+    writeText(recordFields, RecordFields.ACCOUNT_NUMBER, "accountNumber", generator);
+    writeText(recordFields, RecordFields.DESCRIPTION, "description", generator);
+    writeAmount(recordFields, RecordFields.START_BALANCE, "startBalance", generator);
+    writeAmount(recordFields, RecordFields.MUTATION, "mutation", generator);
+    writeAmount(recordFields, RecordFields.END_BALANCE, "endBalance", generator);
+    generator.writeEndObject();
+  }
+
+  private static void writeText(RecordFields recordFields, int field, String name,
+      JsonGenerator generator) throws IOException {
+    if (recordFields.isPresent(field)) {
+      generator.writeFieldName(name);
+      generator.writeString(recordFields.getCharacters(field), recordFields.getOffset(field),
+          recordFields.getLength(field));
+    }
+  }
+
+  private static void writeAmount(RecordFields recordFields, int field, String name,
+      JsonGenerator generator) throws IOException {
+    if (recordFields.isPresent(field)) {
+      generator.writeFieldName(name);
+      generator.writeNumber(recordFields.getAmount(field));
+    }
+  }
+
+  private static void copyRecord(JsonParser parser, JsonGenerator generator) throws IOException {
+    int depth = 0;
+    JsonToken token = parser.currentToken();
+    while (true) {
+      if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+        //a copy of the event would write a decimal of a JSON delivery as a double
+        generator.writeNumber(parser.getDecimalValue());
+      } else {
+        generator.copyCurrentEvent(parser);
+      }
+      if (token.isStructStart()) {
+        depth++;
+      } else if (token.isStructEnd()) {
+        depth--;
+      }
+      if (depth == 0) {
+        return;
+      }
+      token = parser.nextToken();
+      if (token == null) {
+        throw new JsonParseException(parser, "Unexpected end of a statement record");
+      }
+    }
+  }
+
+  /**
+   * Writes consecutive records into Smile arrays of at most the records per shard
+   */
+  private class ShardWriter {
+
+    private final int recordsPerShard;
+    private final ObjIntConsumer<byte[]> consumer;
+    private final ByteArrayOutputStream shard = new ByteArrayOutputStream();
+    private JsonGenerator generator;
+    private long records;
+    private int shards;
+
+    ShardWriter(int recordsPerShard, ObjIntConsumer<byte[]> consumer) {
+      this.recordsPerShard = recordsPerShard;
+      this.consumer = consumer;
+    }
+
+    /**
+     * @return generator to write the next record to
+     */
+    JsonGenerator next() throws IOException {
+      if (generator == null) {
+        shard.reset();
+        generator = smileFactory.createGenerator(shard);
+        generator.writeStartArray();
+      }
+      return generator;
+    }
+
+    void written() throws IOException {
+      if (++records % recordsPerShard == 0) {
+        finishShard();
+      }
+    }
+
+    /**
+     * @return number of records written
+     */
+    long finish() throws IOException {
+      if (generator != null) {
+        finishShard();
+      }
+      return records;
+    }
+
+    private void finishShard() throws IOException {
+      generator.writeEndArray();
+      generator.close();
+      generator = null;
+      consumer.accept(shard.toByteArray(), shards++);
+    }
+  }
+
+  private JsonFactory factoryFor(MediaType contentType) {
+    if (contentType != null && APPLICATION_SMILE.isCompatibleWith(contentType)) {
+      return smileFactory;
+    }
+    if (contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+      return cborFactory;
+    }
+    return objectMapper.getFactory();
+  }
+}
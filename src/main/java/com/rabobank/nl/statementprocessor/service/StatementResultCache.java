@@ -0,0 +1,203 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Results of recently validated deliveries by the SHA-256 digest of their content, their format
+ * and the error limit they were validated with, so a delivery retried by its sender is answered
+ * without being parsed or validated again. Results are kept with an unmodifiable copy of their
+ * error records and every lookup returns a result of its own. Entries are evicted least recently
+ * used beyond the maximum number of entries or of error records of all cached results together,
+ * and once they expire. Thread safe.
+ */
+@Component
+public class StatementResultCache {
+
+  private final int maxEntries;
+  private final long maxErrorRecords;
+  private final long timeToLiveNanos;
+  //access order, the first entry is the least recently used
+  private final Map<ByteBuffer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Counter hits;
+  private final Counter misses;
+  private long cachedErrorRecords;
+
+  /**
+   * @param maxEntries - number of results kept, 0 to disable the cache
+   * @param maxErrorRecords - number of error records of all results kept together, a result with
+   * more error records is not cached
+   * @param timeToLive - time a result is kept after the delivery was validated
+   * @param meterRegistry - registry of the hit and miss meters
+   */
+  public StatementResultCache(
+      @Value("${statement.result-cache.max-entries:1000}") int maxEntries,
+      @Value("${statement.result-cache.max-error-records:1000000}") long maxErrorRecords,
+      @Value("${statement.result-cache.time-to-live:10m}") Duration timeToLive,
+      MeterRegistry meterRegistry) {
+    this.maxEntries = maxEntries;
+    this.maxErrorRecords = maxErrorRecords;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.hits = Counter.builder("statement.result-cache.requests")
+        .description("Lookups of delivery results by content").tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("statement.result-cache.requests")
+        .description("Lookups of delivery results by content").tag("result", "miss")
+        .register(meterRegistry);
+    Gauge.builder("statement.result-cache.size", this, StatementResultCache::size)
+        .description("Delivery results cached").register(meterRegistry);
+    Gauge.builder("statement.result-cache.error-records", this,
+        StatementResultCache::errorRecords)
+        .description("Error records of the delivery results cached").register(meterRegistry);
+  }
+
+  /**
+   * Wrap the content of a delivery to compute its digest while it is being read, the digest
+   * covers every byte read from the stream
+   *
+   * @param inputStream - content of the delivery
+   * @return digestInputStream - the content, its message digest is read once it is read
+   */
+  public static DigestInputStream digesting(InputStream inputStream) {
+    try {
+      return new DigestInputStream(inputStream, MessageDigest.getInstance("SHA-256"));
+    } catch (NoSuchAlgorithmException e) {
+      //every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return true unless the cache is disabled, a delivery then needn't be digested
+   */
+  public boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * @param digest - digest of the content of a delivery
+   * @param contentType - format of the delivery
+   * @param maxErrors - number of error records after which the delivery is validated no further
+   * @return result - result of an earlier delivery with the same content, format and error limit,
+   * null when not cached
+   */
+  public StatementResult get(byte[] digest, MediaType contentType, int maxErrors) {
+    if (maxEntries <= 0) {
+      return null;
+    }
+    Entry entry;
+    synchronized (entries) {
+      ByteBuffer key = key(digest, contentType, maxErrors);
+      entry = entries.get(key);
+      if (entry != null && System.nanoTime() - entry.validatedAt > timeToLiveNanos) {
+        entries.remove(key);
+        cachedErrorRecords -= entry.errorRecords;
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    //a caller changing its result leaves the cached one alone, the error records are unmodifiable
+    StatementResult cached = entry.statementResult;
+    return StatementResult.builder().result(cached.getResult())
+        .errorRecords(cached.getErrorRecords()).truncated(cached.isTruncated())
+        .errorSetId(cached.getErrorSetId()).build();
+  }
+
+  /**
+   * @param digest - digest of the content of a delivery
+   * @param contentType - format of the delivery
+   * @param maxErrors - number of error records after which the delivery was validated no further
+   * @param statementResult - result of the validation of the delivery
+   */
+  public void put(byte[] digest, MediaType contentType, int maxErrors,
+      StatementResult statementResult) {
+    long errorRecords = statementResult.getErrorRecords() != null
+        ? statementResult.getErrorRecords().size() : 0;
+    if (maxEntries <= 0 || errorRecords > maxErrorRecords) {
+      return;
+    }
+    ByteBuffer key = key(digest, contentType, maxErrors);
+    StatementResult cached = StatementResult.builder().result(statementResult.getResult())
+        .errorRecords(statementResult.getErrorRecords() != null ? Collections
+            .unmodifiableList(new ArrayList<>(statementResult.getErrorRecords())) : null)
+        .truncated(statementResult.isTruncated()).errorSetId(statementResult.getErrorSetId())
+        .build();
+    synchronized (entries) {
+      Entry replaced = entries.put(key, new Entry(cached, errorRecords, System.nanoTime()));
+      if (replaced != null) {
+        cachedErrorRecords -= replaced.errorRecords;
+      }
+      cachedErrorRecords += errorRecords;
+      //the entry just put is the most recently used, it fits on its own
+      Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+      while (entries.size() > maxEntries || cachedErrorRecords > maxErrorRecords) {
+        cachedErrorRecords -= leastRecentlyUsed.next().errorRecords;
+        leastRecentlyUsed.remove();
+      }
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long errorRecords() {
+    synchronized (entries) {
+      return cachedErrorRecords;
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      cachedErrorRecords = 0;
+    }
+  }
+
+  private static ByteBuffer key(byte[] digest, MediaType contentType, int maxErrors) {
+    //the same bytes are another delivery in another format or charset
+    byte[] format = (contentType == null ? "" : contentType.getType() + "/"
+        + contentType.getSubtype() + ";" + contentType.getCharset())
+        .getBytes(StandardCharsets.UTF_8);
+    //a ByteBuffer compares its remaining content
+    ByteBuffer key = ByteBuffer.allocate(digest.length + Integer.BYTES + format.length);
+    key.put(digest).putInt(maxErrors).put(format).flip();
+    return key;
+  }
+
+  private static class Entry {
+
+    private final StatementResult statementResult;
+    private final long errorRecords;
+    private final long validatedAt;
+
+    private Entry(StatementResult statementResult, long errorRecords, long validatedAt) {
+      this.statementResult = statementResult;
+      this.errorRecords = errorRecords;
+      this.validatedAt = validatedAt;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementSession;
+import com.rabobank.nl.statementprocessor.exception.SessionNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.SessionRejectedException;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.util.DaemonThreads;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+/**
+ * Validates deliveries sent in chunks over an upload session. Between chunks a session only keeps
+ * the incremental {@link StatementValidation} state, like the distinct references and the errors
+ * found so far, never the records. Sessions without a chunk for the idle timeout are evicted
+ * without a result.
+ */
+@Service
+@Slf4j
+public class StatementSessionService {
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+  private final int maxOpenSessions;
+  private final Duration idleTimeout;
+  private final ScheduledExecutorService evictionExecutor;
+  private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+  /**
+   * @param statementValidationProcessor - validation of the records
+   * @param statementRecordReader - reads the chunks
+   * @param maxOpenSessions - number of open sessions from which new sessions are rejected
+   * @param idleTimeout - time after the last chunk from which a session is evicted
+   */
+  public StatementSessionService(StatementValidationProcessor statementValidationProcessor,
+      StatementRecordReader statementRecordReader,
+      @Value("${statement.sessions.max-open:100}") int maxOpenSessions,
+      @Value("${statement.sessions.idle-timeout:15m}") Duration idleTimeout) {
+    this.statementValidationProcessor = statementValidationProcessor;
+    this.statementRecordReader = statementRecordReader;
+    this.maxOpenSessions = maxOpenSessions;
+    this.idleTimeout = idleTimeout;
+    this.evictionExecutor = DaemonThreads.scheduleEviction("statement-session-eviction-",
+        idleTimeout, () -> evictIdleSessions(Instant.now()));
+  }
+
+  /**
+   * Open a session for a new delivery
+   *
+   * @param maxErrors - number of error records after which later records are not validated
+   * @return session - the opened session
+   */
+  public StatementSession open(int maxErrors) {
+    if (sessions.size() >= maxOpenSessions) {
+      throw new SessionRejectedException("Maximum of " + maxOpenSessions
+          + " open sessions reached");
+    }
+    Session session = new Session(UUID.randomUUID().toString(), Instant.now(),
+        statementValidationProcessor.newValidation(maxErrors));
+    sessions.put(session.sessionId, session);
+    final String logMethod = "open(int):StatementSession Opened session : %s";
+    log.info(String.format(logMethod, session.sessionId));
+    return session.toStatementSession();
+  }
+
+  /**
+   * Validate the next chunk of the delivery of a session. A chunk that can't be read is rejected
+   * as a whole and leaves the session as it was.
+   *
+   * @param sessionId - id of the session
+   * @param chunk - array of statement records following the records of earlier chunks
+   * @param contentType - format of the array, JSON, Smile or CBOR
+   * @return session - the session after the chunk
+   * @throws IOException when the chunk can't be read or is not an array of records
+   */
+  public StatementSession append(String sessionId, InputStream chunk, MediaType contentType)
+      throws IOException {
+    findSession(sessionId).touch(Instant.now());
+    //only the chunk in progress is bound, as columns, before it is applied to the session
+    StatementBatch statementBatch = statementRecordReader.readBatch(chunk, contentType);
+    return findSession(sessionId).accept(statementBatch, Instant.now());
+  }
+
+  /**
+   * @param sessionId - id of the session
+   * @return session - current state of the session
+   */
+  public StatementSession getSession(String sessionId) {
+    return findSession(sessionId).toStatementSession();
+  }
+
+  /**
+   * Close the session and create the result of all chunks received
+   *
+   * @param sessionId - id of the session
+   * @return statementResult - Response with Result success or error
+   */
+  public StatementResult close(String sessionId) {
+    Session session = sessions.remove(sessionId);
+    if (session == null) {
+      throw new SessionNotFoundException("Session " + sessionId + " not found");
+    }
+    StatementResult statementResult = session.close();
+    if (statementResult == null) {
+      //evicted at the same moment
+      throw new SessionNotFoundException("Session " + sessionId + " not found");
+    }
+    return statementResult;
+  }
+
+  int openSessions() {
+    return sessions.size();
+  }
+
+  void evictIdleSessions(Instant now) {
+    Instant idleSince = now.minus(idleTimeout);
+    sessions.values().removeIf(session -> {
+      if (!session.evictIfIdleSince(idleSince)) {
+        return false;
+      }
+      final String logMethod = "evictIdleSessions(Instant):void Evicted idle session : %s, "
+          + "records : %d";
+      log.warn(String.format(logMethod, session.sessionId, session.records));
+      return true;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    evictionExecutor.shutdownNow();
+  }
+
+  private Session findSession(String sessionId) {
+    Session session = sessions.get(sessionId);
+    if (session == null) {
+      throw new SessionNotFoundException("Session " + sessionId + " not found");
+    }
+    return session;
+  }
+
+  /**
+   * State of a session, chunks of one session are applied one at a time in order of arrival
+   */
+  private static class Session {
+
+    private final String sessionId;
+    private final Instant openedAt;
+    private final StatementValidation statementValidation;
+    private int chunks;
+    private long records;
+    private Instant lastChunkAt;
+    private Instant lastAccessedAt;
+    private boolean closed;
+
+    private Session(String sessionId, Instant openedAt,
+        StatementValidation statementValidation) {
+      this.sessionId = sessionId;
+      this.openedAt = openedAt;
+      this.lastAccessedAt = openedAt;
+      this.statementValidation = statementValidation;
+    }
+
+    private synchronized void touch(Instant now) {
+      lastAccessedAt = now;
+    }
+
+    private synchronized StatementSession accept(StatementBatch statementBatch, Instant now) {
+      if (closed) {
+        throw new SessionNotFoundException("Session " + sessionId + " not found");
+      }
+      for (int i = 0; i < statementBatch.size(); i++) {
+        statementValidation.accept(statementBatch, i);
+      }
+      chunks++;
+      records += statementBatch.size();
+      lastChunkAt = now;
+      lastAccessedAt = now;
+      return toStatementSession();
+    }
+
+    /**
+     * @return result of the session, null when it was evicted
+     */
+    private synchronized StatementResult close() {
+      if (closed) {
+        return null;
+      }
+      closed = true;
+      return statementValidation.getResult();
+    }
+
+    private synchronized boolean evictIfIdleSince(Instant idleSince) {
+      if (closed || !lastAccessedAt.isBefore(idleSince)) {
+        return false;
+      }
+      closed = true;
+      return true;
+    }
+
+    private synchronized StatementSession toStatementSession() {
+      return StatementSession.builder().sessionId(sessionId).chunks(chunks).records(records)
+          .openedAt(openedAt).lastChunkAt(lastChunkAt).build();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.exception.ShardFailedException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Validates a delivery by spreading its shards over the configured peers, every peer validates
+ * a shard into a {@link PartialStatementResult} and the partial results are merged in order of
+ * the delivery. The delivery is split while it is read, only the shards sent and not yet merged
+ * are held in memory. Only registered when peers are configured.
+ */
+@Service
+@ConditionalOnProperty(name = "statement.shards.peers")
+@Slf4j
+public class StatementShardCoordinator {
+
+  public static final String SHARD_PATH = "/customerstatement/v1/shards";
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+  private final WebClient webClient;
+  private final ObjectMapper smileMapper;
+  private final String[] peers;
+  private final int recordsPerShard;
+  private final int maxInFlight;
+  private final Duration timeout;
+
+  /**
+   * @param statementValidationProcessor - merges the partial results
+   * @param statementRecordReader - splits the delivery
+   * @param webClientBuilder - builder of the client sending the shards
+   * @param jackson2ObjectMapperBuilder - configuration of the mapper reading the partial results
+   * @param peers - base URLs of the instances validating the shards, round robin
+   * @param recordsPerShard - maximum number of records of a shard
+   * @param maxInFlight - number of shards sent and not yet merged, 0 for two per peer
+   * @param timeout - time a peer may take to validate a shard
+   * @param maxResultSize - maximum size of the partial result of a shard
+   */
+  public StatementShardCoordinator(StatementValidationProcessor statementValidationProcessor,
+      StatementRecordReader statementRecordReader, WebClient.Builder webClientBuilder,
+      Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder,
+      @Value("${statement.shards.peers}") String[] peers,
+      @Value("${statement.shards.records-per-shard:100000}") int recordsPerShard,
+      @Value("${statement.shards.max-in-flight:0}") int maxInFlight,
+      @Value("${statement.shards.timeout:5m}") Duration timeout,
+      @Value("${statement.shards.max-result-size:256MB}") DataSize maxResultSize) {
+    if (peers.length == 0) {
+      throw new IllegalArgumentException("At least one peer must be configured");
+    }
+    this.statementValidationProcessor = statementValidationProcessor;
+    this.statementRecordReader = statementRecordReader;
+    this.webClient = webClientBuilder.codecs(configurer -> configurer.defaultCodecs()
+        .maxInMemorySize((int) Math.min(Integer.MAX_VALUE, maxResultSize.toBytes()))).build();
+    this.smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+    this.peers = peers;
+    this.recordsPerShard = Math.max(1, recordsPerShard);
+    this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * peers.length;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Validate a delivery in shards on the peers
+   *
+   * @param inputStream - array of statement records
+   * @param contentType - format of the array, JSON, Smile or CBOR
+   * @return statementResult - Response with Result success or error of the whole delivery
+   * @throws IOException when the stream can't be read or is not an array of records
+   * @throws ShardFailedException when a shard couldn't be validated
+   */
+  public StatementResult process(InputStream inputStream, MediaType contentType)
+      throws IOException {
+    ShardedValidation shardedValidation = statementValidationProcessor.newShardedValidation();
+    Deque<CompletableFuture<PartialStatementResult>> inFlight = new ArrayDeque<>();
+    try {
+      long records = statementRecordReader.split(inputStream, contentType, recordsPerShard,
+          (shard, shardIndex) -> {
+            if (inFlight.size() == maxInFlight) {
+              merge(shardedValidation, inFlight.poll());
+            }
+            inFlight.add(send(shard, shardIndex));
+          });
+      while (!inFlight.isEmpty()) {
+        merge(shardedValidation, inFlight.poll());
+      }
+      final String logMethod = "process(InputStream,MediaType):StatementResult Merged records : %d";
+      log.debug(String.format(logMethod, records));
+    } finally {
+      //shards still in flight when the delivery or a shard failed are not waited for
+      inFlight.forEach(shard -> shard.cancel(true));
+    }
+    return shardedValidation.getResult();
+  }
+
+  private CompletableFuture<PartialStatementResult> send(byte[] shard, int shardIndex) {
+    String peer = peers[shardIndex % peers.length];
+    return webClient.post().uri(peer + SHARD_PATH)
+        .contentType(StatementRecordReader.APPLICATION_SMILE)
+        .accept(StatementRecordReader.APPLICATION_SMILE)
+        .bodyValue(shard)
+        .retrieve()
+        .bodyToMono(byte[].class)
+        .timeout(timeout)
+        .flatMap(partialResult -> Mono.fromCallable(
+            () -> smileMapper.readValue(partialResult, PartialStatementResult.class)))
+        .onErrorMap(exception -> new ShardFailedException("Shard " + shardIndex + " failed on "
+            + peer, exception))
+        .toFuture();
+  }
+
+  private static void merge(ShardedValidation shardedValidation,
+      CompletableFuture<PartialStatementResult> shard) {
+    PartialStatementResult partialResult;
+    try {
+      partialResult = shard.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof ShardFailedException ? (ShardFailedException) e.getCause()
+          : new ShardFailedException("Shard failed", e.getCause());
+    }
+    try {
+      shardedValidation.merge(partialResult);
+    } catch (IllegalArgumentException e) {
+      throw new ShardFailedException("Shard can't be merged", e);
+    }
+  }
+}
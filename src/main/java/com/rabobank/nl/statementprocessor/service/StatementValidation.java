@@ -0,0 +1,278 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.SUCCESS;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.rule.RuleEvaluation;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import com.rabobank.nl.statementprocessor.util.LongHashSet;
+import com.rabobank.nl.statementprocessor.util.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Incremental validation state of one delivery. Every record is offered once to all rules and is
+ * not retained afterwards, errors are de-duplicated by reference as they are emitted and logged
+ * as one {@link ValidationSummary} once the result is created. Once the maximum number of error
+ * records is reported further records are ignored and the result is marked truncated. Errors
+ * collected in the result are listed by rule as they always were, all duplicate references
+ * before all incorrect end balances. Error records can be handed to a consumer as they are
+ * reported instead, in delivery order, so a delivery with errors everywhere doesn't hold them
+ * all until it is validated. Not thread safe, an instance validates a single delivery.
+ */
+public class StatementValidation {
+
+  private static final Comparator<CandidateError> LISTING_ORDER = Comparator
+      .comparingInt((CandidateError candidateError) -> candidateError.ruleIndex)
+      .thenComparingInt(candidateError -> candidateError.listedPosition)
+      .thenComparingInt(candidateError -> candidateError.position);
+
+  private final List<StatementRule> rules;
+  private final RuleEvaluation[] ruleEvaluations;
+  private final boolean[] rulesFailed;
+  private final ValidationSummary validationSummary;
+  private final int maxErrors;
+  private final Consumer<ErrorRecord> errorRecordConsumer;
+
+  private final List<CandidateError> candidateErrors = new ArrayList<>();
+  private int reportedErrors;
+  private final ReportedReferences reportedReferences = new ReportedReferences();
+  private int records;
+  private boolean errorLimitReached;
+  private boolean completed;
+
+  StatementValidation(List<StatementRule> rules, int expectedRecords, int maxErrors,
+      ValidationSummary validationSummary) {
+    this(rules, expectedRecords, maxErrors, validationSummary, null);
+  }
+
+  StatementValidation(List<StatementRule> rules, int expectedRecords, int maxErrors,
+      ValidationSummary validationSummary, Consumer<ErrorRecord> errorRecordConsumer) {
+    this.rules = rules;
+    this.errorRecordConsumer = errorRecordConsumer;
+    this.validationSummary = validationSummary;
+    this.maxErrors = maxErrors;
+    this.ruleEvaluations = new RuleEvaluation[rules.size()];
+    this.rulesFailed = new boolean[rules.size()];
+    for (int i = 0; i < ruleEvaluations.length; i++) {
+      ruleEvaluations[i] = rules.get(i).newEvaluation(expectedRecords);
+    }
+  }
+
+  /**
+   * Validate the next record of the delivery, the record is not referenced afterwards. Ignored
+   * once the error limit is reached.
+   *
+   * @param statementRecord - record of Statement
+   */
+  public void accept(StatementRecord statementRecord) {
+    accept(statementRecord, null, 0);
+  }
+
+  /**
+   * Validate the next record of the delivery, read from the columns of a batch. Ignored once the
+   * error limit is reached.
+   *
+   * @param statementBatch - batch holding the record
+   * @param index - index of the record in the batch
+   */
+  public void accept(StatementBatch statementBatch, int index) {
+    accept(null, statementBatch, index);
+  }
+
+  private void accept(StatementRecord statementRecord, StatementBatch statementBatch, int index) {
+    if (errorLimitReached) {
+      return;
+    }
+    int position = records++;
+    boolean timed = validationSummary.accepted();
+    for (int i = 0; i < ruleEvaluations.length; i++) {
+      ErrorRecord errorRecord;
+      if (timed) {
+        long start = System.nanoTime();
+        errorRecord = evaluate(ruleEvaluations[i], statementRecord, statementBatch, index);
+        validationSummary.timed(i, System.nanoTime() - start);
+      } else {
+        errorRecord = evaluate(ruleEvaluations[i], statementRecord, statementBatch, index);
+      }
+      if (errorRecord != null) {
+        rulesFailed[i] = true;
+        validationSummary.rejected(i);
+        report(position, i, errorRecord);
+      }
+    }
+    //all errors of a record share its reference, the limit is checked once the record is done
+    errorLimitReached = reportedErrors >= maxErrors;
+  }
+
+  /**
+   * @return true when the maximum number of error records was reported, later records are not
+   * validated
+   */
+  public boolean isErrorLimitReached() {
+    return errorLimitReached;
+  }
+
+  /**
+   * Create the result of the validation of all records accepted so far
+   *
+   * @return statementResult - Response with Result success or error, without error records when
+   * they were handed to a consumer
+   */
+  public StatementResult getResult() {
+    StatementResult statementResult = StatementResult.builder()
+        .errorRecords(listErrors(candidateErrors, ruleEvaluations))
+        .result(createResult(rules, rulesFailed)).truncated(errorLimitReached).build();
+    if (!completed) {
+      completed = true;
+      //collected error records are summarized as they are listed
+      statementResult.getErrorRecords().forEach(validationSummary::reported);
+      for (RuleEvaluation ruleEvaluation : ruleEvaluations) {
+        ruleEvaluation.complete(statementResult);
+      }
+      validationSummary.complete(statementResult);
+    }
+    return statementResult;
+  }
+
+  /**
+   * Evaluate a record given either as an object or as the index of a batch
+   */
+  static ErrorRecord evaluate(RuleEvaluation ruleEvaluation, StatementRecord statementRecord,
+      StatementBatch statementBatch, int index) {
+    return statementRecord != null ? ruleEvaluation.evaluate(statementRecord)
+        : ruleEvaluation.evaluate(statementBatch, index);
+  }
+
+  private void report(int position, int ruleIndex, ErrorRecord errorRecord) {
+    int reportedBy = reportedReferences.report(errorRecord.getReference(), ruleIndex);
+    if (reportedBy == LongIntHashMap.NO_VALUE) {
+      reportedErrors++;
+      if (errorRecordConsumer != null) {
+        validationSummary.reported(errorRecord);
+        errorRecordConsumer.accept(errorRecord);
+      }
+    }
+    //an error of an earlier rule lists the reference in its place even after another error
+    if (errorRecordConsumer == null && ReportedReferences.isListed(ruleIndex, reportedBy)) {
+      candidateErrors.add(new CandidateError(position, ruleIndex, errorRecord));
+    }
+  }
+
+  /**
+   * List the errors as collected in a result: the errors of every rule after those of the rules
+   * before it and in order of their listed position, a reference only with its first error
+   *
+   * @param candidateErrors - errors reported with the position of their record, sorted in place
+   * @param ruleEvaluations - evaluations of the rules having seen the whole delivery
+   * @return errorRecords - the first error of every reference
+   */
+  static List<ErrorRecord> listErrors(List<CandidateError> candidateErrors,
+      RuleEvaluation[] ruleEvaluations) {
+    for (CandidateError candidateError : candidateErrors) {
+      candidateError.listedPosition = ruleEvaluations[candidateError.ruleIndex]
+          .listedPosition(candidateError.errorRecord, candidateError.position);
+    }
+    candidateErrors.sort(LISTING_ORDER);
+    LongHashSet references = new LongHashSet(candidateErrors.size());
+    boolean nullReference = false;
+    List<ErrorRecord> errorRecords = new ArrayList<>(candidateErrors.size());
+    for (CandidateError candidateError : candidateErrors) {
+      Long reference = candidateError.errorRecord.getReference();
+      boolean firstError;
+      if (reference == null) {
+        firstError = !nullReference;
+        nullReference = true;
+      } else {
+        firstError = references.add(reference);
+      }
+      if (firstError) {
+        errorRecords.add(candidateError.errorRecord);
+      }
+    }
+    return errorRecords;
+  }
+
+  static String createResult(List<StatementRule> rules, boolean[] rulesFailed) {
+    //result codes of the failed rules in rule order, e.g. DUPLICATE_REFERENCE_INCORRECT_END_BALANCE
+    Set<String> resultCodes = new LinkedHashSet<>();
+    for (int i = 0; i < rulesFailed.length; i++) {
+      if (rulesFailed[i]) {
+        resultCodes.add(rules.get(i).getResultCode());
+      }
+    }
+    return resultCodes.isEmpty() ? SUCCESS : String.join("_", resultCodes);
+  }
+
+  /**
+   * Error of a rule with the position of the record it was reported for
+   */
+  static class CandidateError {
+
+    private final int position;
+    private final int ruleIndex;
+    private final ErrorRecord errorRecord;
+    private int listedPosition;
+
+    CandidateError(int position, int ruleIndex, ErrorRecord errorRecord) {
+      this.position = position;
+      this.ruleIndex = ruleIndex;
+      this.errorRecord = errorRecord;
+    }
+
+    int getPosition() {
+      return position;
+    }
+
+    int getRuleIndex() {
+      return ruleIndex;
+    }
+
+    ErrorRecord getErrorRecord() {
+      return errorRecord;
+    }
+  }
+
+  /**
+   * Lowest index of the rules having reported an error for every reference of a delivery
+   */
+  static class ReportedReferences {
+
+    private final LongIntHashMap ruleIndexes = new LongIntHashMap();
+    private int nullReferenceRuleIndex = LongIntHashMap.NO_VALUE;
+
+    /**
+     * @param reference - reference of the error, may be null
+     * @param ruleIndex - index of the rule reporting the error
+     * @return lowest index of the rules having reported the reference before, {@link
+     * LongIntHashMap#NO_VALUE} for its first error
+     */
+    int report(Long reference, int ruleIndex) {
+      int reportedBy = reference != null ? ruleIndexes.get(reference) : nullReferenceRuleIndex;
+      if (isListed(ruleIndex, reportedBy)) {
+        if (reference != null) {
+          ruleIndexes.put(reference, ruleIndex);
+        } else {
+          nullReferenceRuleIndex = ruleIndex;
+        }
+      }
+      return reportedBy;
+    }
+
+    /**
+     * @param ruleIndex - index of the rule reporting an error
+     * @param reportedBy - lowest index of the rules having reported its reference before
+     * @return true when the error may list the reference, it has to be kept
+     */
+    static boolean isListed(int ruleIndex, int reportedBy) {
+      return reportedBy == LongIntHashMap.NO_VALUE || ruleIndex < reportedBy;
+    }
+  }
+}
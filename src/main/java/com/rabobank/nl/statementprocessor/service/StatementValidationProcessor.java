@@ -1,13 +1,20 @@
 package com.rabobank.nl.statementprocessor.service;
 
 import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
 import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
-import java.util.Collections;
+import com.rabobank.nl.statementprocessor.service.ParallelStatementValidation.PartialValidation;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -24,6 +31,59 @@ public class StatementValidationProcessor {
   public static final String INCORRECT_END_BALANCE = "INCORRECT_END_BALANCE";
   public static final String DUPLICATE_REFERENCE_INCORRECT_END_BALANCE = "DUPLICATE_REFERENCE_INCORRECT_END_BALANCE";
 
+  public static final int DEFAULT_ERROR_SAMPLES = 10;
+  public static final int DEFAULT_ERROR_SAMPLE_RATE = 100;
+  public static final int NO_ERROR_LIMIT = Integer.MAX_VALUE;
+
+  private static final int DEFAULT_EXPECTED_RECORDS = 1024;
+
+  private final List<StatementRule> statementRules;
+  private final int parallelThreshold;
+  private final int parallelChunkSize;
+  private final ForkJoinPool validationPool;
+  private final int errorSamples;
+  private final int errorSampleRate;
+  private final StatementMetrics statementMetrics;
+
+  /**
+   * @param statementRules - rules every record is validated against, in order of the result codes
+   * @param parallelThreshold - number of records from which a delivery is validated in parallel,
+   * 0 to always validate sequentially
+   * @param parallelism - number of threads of the validation pool, 0 for one per processor
+   * @param parallelChunkSize - maximum number of records validated by one parallel task
+   * @param errorSamples - number of error records included in the summary logged per delivery
+   * @param errorSampleRate - one in this many error records is logged on its own, when the error
+   * records logger is enabled at debug level
+   * @param statementMetrics - meters every validated delivery is recorded in
+   */
+  @Autowired
+  public StatementValidationProcessor(List<StatementRule> statementRules,
+      @Value("${statement.validation.parallel.threshold:0}") int parallelThreshold,
+      @Value("${statement.validation.parallel.parallelism:0}") int parallelism,
+      @Value("${statement.validation.parallel.chunk-size:16384}") int parallelChunkSize,
+      @Value("${statement.validation.log.error-samples:" + DEFAULT_ERROR_SAMPLES + "}")
+          int errorSamples,
+      @Value("${statement.validation.log.error-sample-rate:" + DEFAULT_ERROR_SAMPLE_RATE + "}")
+          int errorSampleRate,
+      StatementMetrics statementMetrics) {
+    this.statementRules = statementRules;
+    this.errorSamples = errorSamples;
+    this.errorSampleRate = errorSampleRate;
+    this.statementMetrics = statementMetrics;
+    this.parallelThreshold = parallelThreshold;
+    this.parallelChunkSize = Math.max(1, parallelChunkSize);
+    int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    //dedicated pool, parallel streams elsewhere in the application can't starve it nor the other
+    //way round, a single thread would only add the cost of merging the chunks
+    this.validationPool = parallelThreshold > 0 && poolSize > 1 ? new ForkJoinPool(poolSize,
+        pool -> {
+          ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+              .newThread(pool);
+          thread.setName("statement-validation-" + thread.getPoolIndex());
+          return thread;
+        }, null, false) : null;
+  }
+
   /**
    * Perform the Reference not unique and incorrect balance validation on the provided statement records
    *
@@ -31,53 +91,163 @@ public class StatementValidationProcessor {
    * @return statementResult - Response with Result success or error
    */
   public StatementResult validateStatementRecords(List<StatementRecord> statementRecords) {
+    return validateStatementRecords(statementRecords, NO_ERROR_LIMIT);
+  }
 
-    List<ErrorRecord> errorRecordsWithReferenceNotUnique = validateReferenceNotUnique(
-        statementRecords);
+  /**
+   * Perform the validation on the provided statement records until the maximum number of error
+   * records is found
+   *
+   * @param statementRecords - records of Statement
+   * @param maxErrors - number of error records after which validation stops, 1 to stop at the
+   * first error, {@link #NO_ERROR_LIMIT} to validate every record
+   * @return statementResult - Response with Result success or error, truncated when validation
+   * stopped at the error limit
+   */
+  public StatementResult validateStatementRecords(List<StatementRecord> statementRecords,
+      int maxErrors) {
+    checkMaxErrors(maxErrors);
+    //a limited validation wants the first errors in delivery order, which only a single pass
+    //finds without validating every chunk
+    if (maxErrors == NO_ERROR_LIMIT && validationPool != null
+        && statementRecords.size() >= parallelThreshold) {
+      return validationPool.invoke(new ParallelStatementValidation(statementRules,
+          statementRecords, parallelChunkSize, this::newValidationSummary)).getResult();
+    }
+    StatementValidation statementValidation = new StatementValidation(statementRules,
+        statementRecords.size(), maxErrors, newValidationSummary());
+    for (StatementRecord statementRecord : statementRecords) {
+      statementValidation.accept(statementRecord);
+      if (statementValidation.isErrorLimitReached()) {
+        break;
+      }
+    }
+    return statementValidation.getResult();
+  }
 
-    List<ErrorRecord> errorRecordsWithEndBalance = validateEndBalance(statementRecords);
+  /**
+   * Perform the validation on the records of a columnar batch, the rules read the columns
+   * instead of a record object per record
+   *
+   * @param statementBatch - records of Statement
+   * @return statementResult - Response with Result success or error
+   */
+  public StatementResult validateStatementBatch(StatementBatch statementBatch) {
+    return validateStatementBatch(statementBatch, NO_ERROR_LIMIT);
+  }
 
-    String result = createResult(errorRecordsWithReferenceNotUnique.isEmpty(),
-        errorRecordsWithEndBalance.isEmpty());
-    return StatementResult.builder().errorRecords(Stream
-        .concat(errorRecordsWithReferenceNotUnique.stream(), errorRecordsWithEndBalance.stream())
-        .distinct().collect(
-            Collectors.toList())).result(result).build();
+  /**
+   * Perform the validation on the records of a columnar batch until the maximum number of error
+   * records is found
+   *
+   * @param statementBatch - records of Statement
+   * @param maxErrors - number of error records after which validation stops, 1 to stop at the
+   * first error, {@link #NO_ERROR_LIMIT} to validate every record
+   * @return statementResult - Response with Result success or error, truncated when validation
+   * stopped at the error limit
+   */
+  public StatementResult validateStatementBatch(StatementBatch statementBatch, int maxErrors) {
+    checkMaxErrors(maxErrors);
+    if (maxErrors == NO_ERROR_LIMIT && validationPool != null
+        && statementBatch.size() >= parallelThreshold) {
+      return validationPool.invoke(new ParallelStatementValidation(statementRules,
+          statementBatch, parallelChunkSize, this::newValidationSummary)).getResult();
+    }
+    StatementValidation statementValidation = new StatementValidation(statementRules,
+        statementBatch.size(), maxErrors, newValidationSummary());
+    for (int i = 0; i < statementBatch.size(); i++) {
+      statementValidation.accept(statementBatch, i);
+      if (statementValidation.isErrorLimitReached()) {
+        break;
+      }
+    }
+    return statementValidation.getResult();
   }
 
+  /**
+   * Validate a shard of a delivery without completing it, the partial result is merged with the
+   * partial results of the other shards by a {@link ShardedValidation}
+   *
+   * @param statementBatch - consecutive records of a delivery
+   * @return partialStatementResult - validation state of the shard
+   */
+  public PartialStatementResult validateShard(StatementBatch statementBatch) {
+    PartialValidation partialValidation;
+    if (validationPool != null && statementBatch.size() >= parallelThreshold) {
+      partialValidation = validationPool.invoke(new ParallelStatementValidation(statementRules,
+          statementBatch, parallelChunkSize, this::newValidationSummary));
+    } else {
+      partialValidation = new PartialValidation(statementRules, statementBatch.size(),
+          newValidationSummary());
+      for (int i = 0; i < statementBatch.size(); i++) {
+        partialValidation.accept(null, statementBatch, i);
+      }
+    }
+    return partialValidation.toPartialResult();
+  }
 
-  private List<ErrorRecord> validateEndBalance(List<StatementRecord> statementRecords) {
-    return statementRecords.stream().
-        filter(statementRecord -> !statementRecord.getStartBalance().add(statementRecord.getMutation())
-            .equals(statementRecord.getEndBalance()))
-        .map(this::createErrorRecord).distinct()
-        .collect(Collectors.toList());
+  /**
+   * Start merging the partial results of the shards of a delivery
+   *
+   * @return shardedValidation - merged validation state of a single delivery
+   */
+  public ShardedValidation newShardedValidation() {
+    return new ShardedValidation(statementRules, this::newValidationSummary);
   }
 
-  private List<ErrorRecord> validateReferenceNotUnique(List<StatementRecord> statementRecords) {
-    return statementRecords
-        .stream().filter(statementRecord -> Collections.frequency(statementRecords, statementRecord) > 1)
-        .map(this::createErrorRecord).distinct()
-        .collect(Collectors.toList());
+  /**
+   * Start an incremental validation for a delivery of which the records are offered one at a
+   * time, e.g. while they are being parsed
+   *
+   * @return statementValidation - validation state of a single delivery
+   */
+  public StatementValidation newValidation() {
+    return newValidation(NO_ERROR_LIMIT);
   }
 
-  private ErrorRecord createErrorRecord(StatementRecord statementRecord) {
-    final String logMethod = "createErrorRecord(StatementRecord):ErrorRecord Error : %s";
-    ErrorRecord errorRecord = ErrorRecord.builder().reference(statementRecord.getReference())
-        .accountNumber(statementRecord.getAccountNumber()).build();
-    log.error(String.format(logMethod, errorRecord));
-    return errorRecord;
+  /**
+   * Start an incremental validation that ignores further records once the maximum number of error
+   * records is found
+   *
+   * @param maxErrors - number of error records after which validation stops
+   * @return statementValidation - validation state of a single delivery
+   */
+  public StatementValidation newValidation(int maxErrors) {
+    return newValidation(maxErrors, null);
   }
 
-  private String createResult(boolean referenceNotUnique, boolean incorrectEndBalance) {
-    if (!referenceNotUnique && !incorrectEndBalance) {
-      return DUPLICATE_REFERENCE_INCORRECT_END_BALANCE;
-    } else if (!referenceNotUnique) {
-      return DUPLICATE_REFERENCE;
-    } else if (!incorrectEndBalance) {
-      return INCORRECT_END_BALANCE;
-    } else {
-      return SUCCESS;
+  /**
+   * Start an incremental validation handing every error record to a consumer as soon as it is
+   * reported, the result then holds no error records
+   *
+   * @param maxErrors - number of error records after which validation stops
+   * @param errorRecordConsumer - receives the de-duplicated error records in delivery order, null
+   * to collect them in the result
+   * @return statementValidation - validation state of a single delivery
+   */
+  public StatementValidation newValidation(int maxErrors,
+      Consumer<ErrorRecord> errorRecordConsumer) {
+    checkMaxErrors(maxErrors);
+    return new StatementValidation(statementRules, DEFAULT_EXPECTED_RECORDS, maxErrors,
+        newValidationSummary(), errorRecordConsumer);
+  }
+
+  private static void checkMaxErrors(int maxErrors) {
+    if (maxErrors < 1) {
+      throw new IllegalArgumentException("Maximum number of errors must be at least 1 : "
+          + maxErrors);
+    }
+  }
+
+  private ValidationSummary newValidationSummary() {
+    return new ValidationSummary(statementRules, errorSamples, errorSampleRate,
+        statementMetrics);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (validationPool != null) {
+      validationPool.shutdown();
     }
   }
 }
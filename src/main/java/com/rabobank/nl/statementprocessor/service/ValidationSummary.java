@@ -0,0 +1,167 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the errors of every rule of one delivery and logs them as a single summary with the first
+ * error records as samples, instead of a log line per error record, and records the delivery in
+ * the {@link StatementMetrics}. Error records are only logged one by one to the
+ * {@link #ERROR_RECORDS_LOGGER} logger at debug level, and then only one in every sample rate. Not
+ * thread safe.
+ */
+@Slf4j
+class ValidationSummary {
+
+  static final String ERROR_RECORDS_LOGGER = "statement.validation.error-records";
+
+  private static final Logger errorRecordsLog = LoggerFactory.getLogger(ERROR_RECORDS_LOGGER);
+
+  private final List<StatementRule> rules;
+  private final int maxSamples;
+  private final int sampleRate;
+  private final long[] ruleErrors;
+  private final StatementMetrics statementMetrics;
+  private final int ruleTimingSampleRate;
+  private final long[] ruleNanos;
+  private int untilTimed = 1;
+  private long timedRecords;
+  private final List<ErrorRecord> samples = new ArrayList<>();
+  private long records;
+  private long errorRecords;
+
+  /**
+   * @param rules - rules of the validation, in order of the result codes
+   * @param maxSamples - number of error records included in the summary
+   * @param sampleRate - one in this many error records is logged to the error records logger
+   * @param statementMetrics - meters the delivery is recorded in
+   */
+  ValidationSummary(List<StatementRule> rules, int maxSamples, int sampleRate,
+      StatementMetrics statementMetrics) {
+    this.rules = rules;
+    this.statementMetrics = statementMetrics;
+    this.ruleTimingSampleRate = statementMetrics.getRuleTimingSampleRate();
+    this.ruleNanos = new long[rules.size()];
+    this.maxSamples = maxSamples;
+    this.sampleRate = Math.max(1, sampleRate);
+    this.ruleErrors = new long[rules.size()];
+  }
+
+  /**
+   * Count the next record
+   *
+   * @return true when the rules should be timed on this record
+   */
+  boolean accepted() {
+    records++;
+    if (--untilTimed > 0) {
+      return false;
+    }
+    untilTimed = ruleTimingSampleRate;
+    timedRecords++;
+    return true;
+  }
+
+  /**
+   * @param ruleIndex - index of the rule timed
+   * @param nanos - time the rule spent on a timed record
+   */
+  void timed(int ruleIndex, long nanos) {
+    ruleNanos[ruleIndex] += nanos;
+  }
+
+  /**
+   * @param ruleIndex - index of the rule reporting an error, before errors are de-duplicated
+   */
+  void rejected(int ruleIndex) {
+    ruleErrors[ruleIndex]++;
+  }
+
+  /**
+   * @param errorRecord - error record included in the result
+   */
+  void reported(ErrorRecord errorRecord) {
+    if (samples.size() < maxSamples) {
+      samples.add(errorRecord);
+    }
+    if (errorRecords++ % sampleRate == 0 && errorRecordsLog.isDebugEnabled()) {
+      final String logMethod = "reported(ErrorRecord):void Error : %s";
+      errorRecordsLog.debug(String.format(logMethod, errorRecord));
+    }
+  }
+
+  /**
+   * Add the counts of the records directly following the records counted by this summary
+   *
+   * @param following - summary of the next chunk, not used afterwards
+   */
+  void merge(ValidationSummary following) {
+    records += following.records;
+    timedRecords += following.timedRecords;
+    for (int i = 0; i < ruleErrors.length; i++) {
+      ruleErrors[i] += following.ruleErrors[i];
+      ruleNanos[i] += following.ruleNanos[i];
+    }
+  }
+
+  /**
+   * Count the records and rule errors of a shard validated on another instance, rules are not
+   * timed on such records
+   *
+   * @param shardRecords - number of records of the shard
+   * @param shardRuleErrors - errors of every rule in the shard, before errors are de-duplicated
+   */
+  void restore(long shardRecords, long[] shardRuleErrors) {
+    records += shardRecords;
+    for (int i = 0; i < ruleErrors.length; i++) {
+      ruleErrors[i] += shardRuleErrors[i];
+    }
+  }
+
+  long getRuleErrors(int ruleIndex) {
+    return ruleErrors[ruleIndex];
+  }
+
+  List<ErrorRecord> getSamples() {
+    return samples;
+  }
+
+  /**
+   * Record the delivery in the meters and log its summary, at warn level when any error was
+   * reported
+   *
+   * @param statementResult - result of the delivery
+   */
+  void complete(StatementResult statementResult) {
+    statementMetrics.recordDelivery(rules, statementResult.getResult(), records, timedRecords,
+        ruleNanos);
+    if (errorRecords == 0) {
+      if (log.isInfoEnabled()) {
+        final String logMethod = "complete(StatementResult):void Result : %s, records : %d";
+        log.info(String.format(logMethod, statementResult.getResult(), records));
+      }
+      return;
+    }
+    if (log.isWarnEnabled()) {
+      //rules sharing a result code are counted together
+      Map<String, Long> errorsByResultCode = new LinkedHashMap<>();
+      for (int i = 0; i < ruleErrors.length; i++) {
+        if (ruleErrors[i] > 0) {
+          errorsByResultCode.merge(rules.get(i).getResultCode(), ruleErrors[i], Long::sum);
+        }
+      }
+      final String logMethod = "complete(StatementResult):void Result : %s, records : %d, "
+          + "errors : %s, error records : %d, first error records : %s";
+      log.warn(String.format(logMethod, statementResult.getResult(), records,
+          errorsByResultCode, errorRecords, samples));
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package com.rabobank.nl.statementprocessor.service.batch;
+
+import static com.rabobank.nl.statementprocessor.util.ScaledAmounts.NOT_SCALED;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import com.rabobank.nl.statementprocessor.service.format.RecordFields;
+import com.rabobank.nl.statementprocessor.util.ScaledAmounts;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records of a delivery bound in memory as columns instead of one object per record. References
+ * are kept in a long[], amounts as unscaled longs at the scale of the batch and account numbers
+ * as codes into a dictionary of the distinct account numbers. Amounts with more decimals than the
+ * scale, too large for a long or null are kept exactly on the side. Descriptions are not
+ * validated and not kept. Not thread safe while records are added.
+ */
+public class StatementBatch {
+
+  static final int NO_ACCOUNT_NUMBER = -1;
+  static final int START_BALANCE = 0;
+  static final int MUTATION = 1;
+  static final int END_BALANCE = 2;
+
+  private final int scale;
+  private int size;
+  private long[] references;
+  private final BitSet nullReferences = new BitSet();
+  private int[] accountNumberCodes;
+  private final StringDictionary accountNumbers = new StringDictionary(Integer.MAX_VALUE);
+  private long[] startBalances;
+  private long[] mutations;
+  private long[] endBalances;
+  //exact amounts of the records of which a column is NOT_SCALED, keyed by index * 3 + column
+  private final Map<Long, BigDecimal> exactAmounts = new HashMap<>();
+
+  /**
+   * @param scale - number of decimals amounts are kept at
+   * @param expectedRecords - number of records the columns are sized for
+   */
+  public StatementBatch(int scale, int expectedRecords) {
+    if (scale < 0 || scale > ScaledAmounts.MAX_LONG_PRECISION) {
+      throw new IllegalArgumentException("Amount scale must be between 0 and "
+          + ScaledAmounts.MAX_LONG_PRECISION + " : " + scale);
+    }
+    int capacity = Math.max(16, expectedRecords);
+    this.scale = scale;
+    this.references = new long[capacity];
+    this.accountNumberCodes = new int[capacity];
+    this.startBalances = new long[capacity];
+    this.mutations = new long[capacity];
+    this.endBalances = new long[capacity];
+  }
+
+  /**
+   * Add a record as the last one of the batch, its description is dropped
+   *
+   * @param statementRecord - record of Statement
+   */
+  public void add(StatementRecord statementRecord) {
+    Long reference = statementRecord.getReference();
+    String accountNumber = statementRecord.getAccountNumber();
+    int index = append(reference != null, reference != null ? reference : 0,
+        accountNumber == null ? NO_ACCOUNT_NUMBER : accountNumbers.encode(accountNumber));
+    setAmount(index, START_BALANCE, statementRecord.getStartBalance());
+    setAmount(index, MUTATION, statementRecord.getMutation());
+    setAmount(index, END_BALANCE, statementRecord.getEndBalance());
+  }
+
+  /**
+   * Add a record parsed from a CSV or XML delivery as the last one of the batch, amounts are
+   * scaled straight from their characters
+   *
+   * @param recordFields - fields of the record
+   * @throws StatementFormatException when the reference or an amount is malformed
+   */
+  public void add(RecordFields recordFields) throws StatementFormatException {
+    boolean hasReference = recordFields.isPresent(RecordFields.REFERENCE);
+    int index = append(hasReference, hasReference ? recordFields.getReference() : 0,
+        recordFields.isPresent(RecordFields.ACCOUNT_NUMBER) ? encodeAccountNumber(
+            recordFields.getCharacters(RecordFields.ACCOUNT_NUMBER),
+            recordFields.getOffset(RecordFields.ACCOUNT_NUMBER),
+            recordFields.getLength(RecordFields.ACCOUNT_NUMBER)) : NO_ACCOUNT_NUMBER);
+    setAmount(index, START_BALANCE, recordFields, RecordFields.START_BALANCE);
+    setAmount(index, MUTATION, recordFields, RecordFields.MUTATION);
+    setAmount(index, END_BALANCE, recordFields, RecordFields.END_BALANCE);
+  }
+
+  /**
+   * @return code of the account number held by the characters, to append a record with
+   */
+  int encodeAccountNumber(char[] characters, int offset, int length) {
+    return accountNumbers.encode(characters, offset, length);
+  }
+
+  /**
+   * Add a record of which the amounts are set afterwards
+   *
+   * @param accountNumberCode - code of the account number, {@link #NO_ACCOUNT_NUMBER} when absent
+   * @return index of the added record
+   */
+  int append(boolean hasReference, long reference, int accountNumberCode) {
+    if (size == references.length) {
+      int capacity = Math.max(16, size << 1);
+      references = Arrays.copyOf(references, capacity);
+      accountNumberCodes = Arrays.copyOf(accountNumberCodes, capacity);
+      startBalances = Arrays.copyOf(startBalances, capacity);
+      mutations = Arrays.copyOf(mutations, capacity);
+      endBalances = Arrays.copyOf(endBalances, capacity);
+    }
+    int index = size++;
+    if (hasReference) {
+      references[index] = reference;
+    } else {
+      nullReferences.set(index);
+    }
+    accountNumberCodes[index] = accountNumberCode;
+    return index;
+  }
+
+  /**
+   * @param index - index of the record
+   * @param column - amount column
+   * @param amount - exact amount, null when absent
+   */
+  void setAmount(int index, int column, BigDecimal amount) {
+    setAmount(index, column,
+        amount == null ? NOT_SCALED : ScaledAmounts.toScaled(amount, scale), amount);
+  }
+
+  /**
+   * @param index - index of the record
+   * @param column - amount column
+   * @param scaled - unscaled amount at the scale of the batch or {@link ScaledAmounts#NOT_SCALED}
+   * @param amount - exact amount, only used when the scaled amount is NOT_SCALED
+   */
+  void setAmount(int index, int column, long scaled, BigDecimal amount) {
+    column(column)[index] = scaled;
+    if (scaled == NOT_SCALED) {
+      exactAmounts.put(exactAmountKey(index, column), amount);
+    }
+  }
+
+  private void setAmount(int index, int column, RecordFields recordFields, int field)
+      throws StatementFormatException {
+    long scaled = recordFields.isPresent(field) ? recordFields.getScaledAmount(field, scale)
+        : NOT_SCALED;
+    //only amounts without a scaled value, absent or malformed, are parsed exactly
+    setAmount(index, column, scaled, scaled == NOT_SCALED ? recordFields.getAmount(field) : null);
+  }
+
+  /**
+   * Release the memory only needed to add records, the columns are trimmed to the size of the
+   * batch and the lookup of account numbers is dropped until the next record is added
+   */
+  public void trimToSize() {
+    references = Arrays.copyOf(references, size);
+    accountNumberCodes = Arrays.copyOf(accountNumberCodes, size);
+    startBalances = Arrays.copyOf(startBalances, size);
+    mutations = Arrays.copyOf(mutations, size);
+    endBalances = Arrays.copyOf(endBalances, size);
+    accountNumbers.trimToSize();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return number of decimals of the scaled amounts
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  public boolean hasReference(int index) {
+    return !nullReferences.get(index);
+  }
+
+  /**
+   * @param index - index of the record
+   * @return reference of the record, 0 when it has none
+   */
+  public long getReference(int index) {
+    return references[index];
+  }
+
+  public String getAccountNumber(int index) {
+    int code = accountNumberCodes[index];
+    return code == NO_ACCOUNT_NUMBER ? null : accountNumbers.get(code);
+  }
+
+  /**
+   * @param index - index of the record
+   * @return unscaled start balance at the scale of the batch, {@link ScaledAmounts#NOT_SCALED}
+   * when only the exact amount is known
+   */
+  public long getScaledStartBalance(int index) {
+    return startBalances[index];
+  }
+
+  public long getScaledMutation(int index) {
+    return mutations[index];
+  }
+
+  public long getScaledEndBalance(int index) {
+    return endBalances[index];
+  }
+
+  public BigDecimal getStartBalance(int index) {
+    return getAmount(index, START_BALANCE);
+  }
+
+  public BigDecimal getMutation(int index) {
+    return getAmount(index, MUTATION);
+  }
+
+  public BigDecimal getEndBalance(int index) {
+    return getAmount(index, END_BALANCE);
+  }
+
+  /**
+   * @param index - index of the record
+   * @return the record as a new object, without description
+   */
+  public StatementRecord get(int index) {
+    return StatementRecord.builder()
+        .reference(hasReference(index) ? references[index] : null)
+        .accountNumber(getAccountNumber(index))
+        .startBalance(getStartBalance(index))
+        .mutation(getMutation(index))
+        .endBalance(getEndBalance(index)).build();
+  }
+
+  private BigDecimal getAmount(int index, int column) {
+    long scaled = column(column)[index];
+    if (scaled == NOT_SCALED) {
+      return exactAmounts.get(exactAmountKey(index, column));
+    }
+    return BigDecimal.valueOf(scaled, scale);
+  }
+
+  private long[] column(int column) {
+    switch (column) {
+      case START_BALANCE:
+        return startBalances;
+      case MUTATION:
+        return mutations;
+      default:
+        return endBalances;
+    }
+  }
+
+  private static long exactAmountKey(int index, int column) {
+    return (long) index * 3 + column;
+  }
+}
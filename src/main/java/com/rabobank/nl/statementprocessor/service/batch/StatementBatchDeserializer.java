@@ -0,0 +1,158 @@
+package com.rabobank.nl.statementprocessor.service.batch;
+
+import static com.rabobank.nl.statementprocessor.service.batch.StatementBatch.END_BALANCE;
+import static com.rabobank.nl.statementprocessor.service.batch.StatementBatch.MUTATION;
+import static com.rabobank.nl.statementprocessor.service.batch.StatementBatch.NO_ACCOUNT_NUMBER;
+import static com.rabobank.nl.statementprocessor.service.batch.StatementBatch.START_BALANCE;
+import static com.rabobank.nl.statementprocessor.util.ScaledAmounts.NOT_SCALED;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.rabobank.nl.statementprocessor.util.ScaledAmounts;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a JSON array of statement records straight into the columns of a {@link StatementBatch},
+ * without creating a {@link com.rabobank.nl.statementprocessor.api.model.StatementRecord} or a
+ * BigDecimal per record. Plain decimal amounts are parsed from the characters of the number, other
+ * notations fall back to BigDecimal. Unknown properties and descriptions are skipped.
+ */
+public class StatementBatchDeserializer extends StdDeserializer<StatementBatch> {
+
+  private static final int EXPECTED_RECORDS = 1024;
+
+  private final int scale;
+
+  /**
+   * @param scale - number of decimals amounts are kept at in the batch
+   */
+  public StatementBatchDeserializer(int scale) {
+    super(StatementBatch.class);
+    this.scale = scale;
+  }
+
+  @Override
+  public StatementBatch deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    if (!parser.isExpectedStartArrayToken()) {
+      return (StatementBatch) context.handleUnexpectedToken(StatementBatch.class, parser);
+    }
+    StatementBatch statementBatch = new StatementBatch(scale, EXPECTED_RECORDS);
+    long[] scaledAmounts = new long[3];
+    BigDecimal[] exactAmounts = new BigDecimal[3];
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        context.reportWrongTokenException(StatementBatch.class, JsonToken.START_OBJECT,
+            "Expected a statement record");
+      }
+      readRecord(parser, context, statementBatch, scaledAmounts, exactAmounts);
+    }
+    statementBatch.trimToSize();
+    return statementBatch;
+  }
+
+  private void readRecord(JsonParser parser, DeserializationContext context,
+      StatementBatch statementBatch, long[] scaledAmounts, BigDecimal[] exactAmounts)
+      throws IOException {
+    boolean hasReference = false;
+    long reference = 0;
+    int accountNumberCode = NO_ACCOUNT_NUMBER;
+    for (int column = 0; column < scaledAmounts.length; column++) {
+      scaledAmounts[column] = NOT_SCALED;
+      exactAmounts[column] = null;
+    }
+    String field;
+    while ((field = parser.nextFieldName()) != null) {
+      JsonToken token = parser.nextToken();
+      switch (field) {
+        case "reference":
+          hasReference = token != JsonToken.VALUE_NULL;
+          reference = hasReference ? readReference(parser, context, token) : 0;
+          break;
+        case "accountNumber":
+          accountNumberCode = readAccountNumber(parser, context, token, statementBatch);
+          break;
+        case "startBalance":
+          readAmount(parser, context, token, START_BALANCE, scaledAmounts, exactAmounts);
+          break;
+        case "mutation":
+          readAmount(parser, context, token, MUTATION, scaledAmounts, exactAmounts);
+          break;
+        case "endBalance":
+          readAmount(parser, context, token, END_BALANCE, scaledAmounts, exactAmounts);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    int index = statementBatch.append(hasReference, reference, accountNumberCode);
+    for (int column = 0; column < scaledAmounts.length; column++) {
+      statementBatch.setAmount(index, column, scaledAmounts[column], exactAmounts[column]);
+    }
+  }
+
+  private static long readReference(JsonParser parser, DeserializationContext context,
+      JsonToken token) throws IOException {
+    if (token.isNumeric()) {
+      return parser.getLongValue();
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      String text = parser.getText().trim();
+      try {
+        return Long.parseLong(text);
+      } catch (NumberFormatException e) {
+        throw context.weirdStringException(text, Long.class, "not a valid reference");
+      }
+    }
+    return (Long) context.handleUnexpectedToken(Long.class, parser);
+  }
+
+  private static int readAccountNumber(JsonParser parser, DeserializationContext context,
+      JsonToken token, StatementBatch statementBatch) throws IOException {
+    if (token == JsonToken.VALUE_NULL) {
+      return NO_ACCOUNT_NUMBER;
+    }
+    if (!token.isScalarValue()) {
+      context.handleUnexpectedToken(String.class, parser);
+    }
+    //a repeated account number is found in the dictionary without creating a String
+    return statementBatch.encodeAccountNumber(parser.getTextCharacters(), parser.getTextOffset(),
+        parser.getTextLength());
+  }
+
+  private void readAmount(JsonParser parser, DeserializationContext context, JsonToken token,
+      int column, long[] scaledAmounts, BigDecimal[] exactAmounts) throws IOException {
+    if (token == JsonToken.VALUE_NULL) {
+      scaledAmounts[column] = NOT_SCALED;
+      exactAmounts[column] = null;
+      return;
+    }
+    if (!token.isNumeric() && token != JsonToken.VALUE_STRING) {
+      context.handleUnexpectedToken(BigDecimal.class, parser);
+    }
+    //the characters of a JSON number are read without converting them to a number first
+    long scaled = ScaledAmounts.parseScaled(parser.getTextCharacters(), parser.getTextOffset(),
+        parser.getTextLength(), scale);
+    BigDecimal exact = null;
+    if (scaled == NOT_SCALED) {
+      exact = token.isNumeric() ? parser.getDecimalValue() : parseDecimal(parser, context);
+      scaled = ScaledAmounts.toScaled(exact, scale);
+    }
+    scaledAmounts[column] = scaled;
+    exactAmounts[column] = exact;
+  }
+
+  private static BigDecimal parseDecimal(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    String text = parser.getText().trim();
+    try {
+      return new BigDecimal(text);
+    } catch (NumberFormatException e) {
+      throw context.weirdStringException(text, BigDecimal.class, "not a valid amount");
+    }
+  }
+}
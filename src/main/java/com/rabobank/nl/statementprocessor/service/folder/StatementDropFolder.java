@@ -0,0 +1,266 @@
+package com.rabobank.nl.statementprocessor.service.folder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidation;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.util.DaemonThreads;
+import com.rabobank.nl.statementprocessor.util.VirtualThreads;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates deliveries dropped as files in an input folder. New files are picked up through a
+ * {@link WatchService}, files present at startup are picked up as well. Every file is
+ * memory-mapped and parsed straight from the mapping, the records are validated as they are
+ * parsed on a bounded worker pool. The result is written as JSON to the output folder and the
+ * delivery is moved to the processed folder. Files should be moved into the input folder once
+ * complete, hidden files and files ending in .tmp or .part are ignored. Only registered when the
+ * drop folder is enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "statement.drop-folder.enabled", havingValue = "true")
+@Slf4j
+public class StatementDropFolder {
+
+  static final String RESULT_SUFFIX = ".result.json";
+
+  //a mapping can't exceed 2 GiB, larger files are mapped in regions of 1 GiB
+  private static final long REGION_SIZE = 1L << 30;
+
+  private final StatementValidationProcessor statementValidationProcessor;
+  private final StatementRecordReader statementRecordReader;
+  private final ObjectWriter resultWriter;
+  private final Path inputDirectory;
+  private final Path outputDirectory;
+  private final Path processedDirectory;
+  private final ExecutorService workerExecutor;
+  private final Semaphore queuePermits;
+  private final Set<Path> queuedFiles = ConcurrentHashMap.newKeySet();
+  private final WatchService watchService;
+  private final Thread watcher;
+
+  /**
+   * Create the folders when absent and start watching the input folder
+   *
+   * @param statementValidationProcessor - validation of the records
+   * @param statementRecordReader - parses the files
+   * @param objectMapper - writes the results
+   * @param inputDirectory - folder the deliveries are dropped in
+   * @param outputDirectory - folder the results are written to
+   * @param processedDirectory - folder the deliveries are moved to once validated
+   * @param workers - number of files validated at the same time
+   * @param queueCapacity - number of files waiting for a worker before the input folder is no
+   * longer watched until a worker is free
+   * @param virtualThreads - validate files on virtual threads, still no more than the workers at a
+   * time
+   */
+  public StatementDropFolder(StatementValidationProcessor statementValidationProcessor,
+      StatementRecordReader statementRecordReader, ObjectMapper objectMapper,
+      @Value("${statement.drop-folder.input:drop-folder/in}") String inputDirectory,
+      @Value("${statement.drop-folder.output:drop-folder/out}") String outputDirectory,
+      @Value("${statement.drop-folder.processed:drop-folder/processed}") String processedDirectory,
+      @Value("${statement.drop-folder.workers:2}") int workers,
+      @Value("${statement.drop-folder.queue-capacity:1000}") int queueCapacity,
+      @Value("${statement.threads.virtual:false}") boolean virtualThreads) {
+    this.statementValidationProcessor = statementValidationProcessor;
+    this.statementRecordReader = statementRecordReader;
+    this.resultWriter = objectMapper.writerFor(StatementResult.class);
+    this.inputDirectory = Paths.get(inputDirectory);
+    this.outputDirectory = Paths.get(outputDirectory);
+    this.processedDirectory = Paths.get(processedDirectory);
+    this.queuePermits = new Semaphore(workers + queueCapacity);
+    ThreadFactory workerThreadFactory = DaemonThreads.namedThreadFactory("statement-drop-folder-");
+    this.workerExecutor = Executors.newFixedThreadPool(workers, virtualThreads
+        ? VirtualThreads.threadFactory("statement-drop-folder-", workerThreadFactory)
+        : workerThreadFactory);
+    try {
+      Files.createDirectories(this.inputDirectory);
+      Files.createDirectories(this.outputDirectory);
+      Files.createDirectories(this.processedDirectory);
+      this.watchService = this.inputDirectory.getFileSystem().newWatchService();
+      this.inputDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+    } catch (IOException e) {
+      workerExecutor.shutdown();
+      throw new UncheckedIOException("Unable to watch drop folder " + inputDirectory, e);
+    }
+    this.watcher = DaemonThreads.namedThreadFactory("statement-drop-folder-watcher-")
+        .newThread(this::watch);
+    watcher.start();
+    final String logMethod = "StatementDropFolder(...) Watching %s, results in %s";
+    log.info(String.format(logMethod, this.inputDirectory, this.outputDirectory));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      watcher.interrupt();
+    }
+    //queued files are dropped and stay in the input folder, files being validated are awaited
+    workerExecutor.shutdownNow();
+    try {
+      workerExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      watcher.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void watch() {
+    try {
+      scan();
+      while (true) {
+        WatchKey watchKey = watchService.take();
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            //events were lost, the folder itself tells which files are still there
+            scan();
+          } else {
+            submit(inputDirectory.resolve((Path) event.context()));
+          }
+        }
+        if (!watchKey.reset()) {
+          final String logMethod = "watch():void Drop folder no longer accessible : %s";
+          log.error(String.format(logMethod, inputDirectory));
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      //shut down
+    }
+  }
+
+  private void scan() throws InterruptedException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDirectory)) {
+      for (Path file : files) {
+        submit(file);
+      }
+    } catch (IOException e) {
+      final String logMethod = "scan():void Unable to list %s";
+      log.error(String.format(logMethod, inputDirectory), e);
+    }
+  }
+
+  private void submit(Path file) throws InterruptedException {
+    String name = file.getFileName().toString();
+    if (name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part")
+        || !Files.isRegularFile(file) || !queuedFiles.add(file)) {
+      return;
+    }
+    try {
+      //blocks the watcher while the queue is full, files dropped meanwhile are found by the
+      //overflow scan
+      queuePermits.acquire();
+    } catch (InterruptedException e) {
+      queuedFiles.remove(file);
+      throw e;
+    }
+    try {
+      workerExecutor.execute(() -> {
+        try {
+          process(file);
+        } finally {
+          queuedFiles.remove(file);
+          queuePermits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      queuedFiles.remove(file);
+      queuePermits.release();
+    }
+  }
+
+  void process(Path file) {
+    final String logMethod = "process(Path):void %s : %s";
+    StatementResult statementResult;
+    try (InputStream inputStream = openMapped(file)) {
+      MediaType contentType = StatementRecordReader.contentTypeOf(file.getFileName().toString());
+      StatementValidation statementValidation = statementValidationProcessor.newValidation();
+      statementRecordReader.read(inputStream, contentType, statementValidation::accept);
+      statementResult = statementValidation.getResult();
+    } catch (NoSuchFileException e) {
+      //removed before it was validated
+      return;
+    } catch (JsonProcessingException e) {
+      log.error(String.format(logMethod, file, e.getMessage()));
+      statementResult = StatementResult.builder().result("BAD_REQUEST")
+          .errorRecords(Collections.emptyList()).build();
+    } catch (IOException | RuntimeException e) {
+      log.error(String.format(logMethod, file, e));
+      statementResult = StatementResult.builder().result("INTERNAL_SERVER_ERROR")
+          .errorRecords(Collections.emptyList()).build();
+    }
+    String name = file.getFileName().toString();
+    Path resultFile = outputDirectory.resolve(name + RESULT_SUFFIX);
+    Path temporaryFile = outputDirectory.resolve(name + RESULT_SUFFIX + ".tmp");
+    try {
+      resultWriter.writeValue(temporaryFile.toFile(), statementResult);
+      Files.move(temporaryFile, resultFile, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      Files.move(file, processedDirectory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+      log.info(String.format(logMethod, file, statementResult.getResult()));
+    } catch (IOException e) {
+      //the delivery stays in the input folder and is validated again at the next start
+      log.error(String.format(logMethod, file, e));
+    }
+  }
+
+  /**
+   * Open a file as a stream over its memory mapping, the file is not copied to the heap. The
+   * mapping stays valid once the file is closed, moved or deleted until it is garbage collected.
+   *
+   * @param file - file to read
+   * @return stream of the content of the file
+   * @throws IOException when the file can't be mapped
+   */
+  static InputStream openMapped(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      List<InputStream> regions = new ArrayList<>();
+      for (long position = 0; position < size; position += REGION_SIZE) {
+        regions.add(new ByteBufferBackedInputStream(channel.map(MapMode.READ_ONLY, position,
+            Math.min(REGION_SIZE, size - position))));
+      }
+      return new SequenceInputStream(Collections.enumeration(regions));
+    }
+  }
+}
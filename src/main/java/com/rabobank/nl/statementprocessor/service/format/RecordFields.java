@@ -0,0 +1,218 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import com.rabobank.nl.statementprocessor.util.ScaledAmounts;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Fields of the record being parsed from a CSV or XML delivery, as ranges of characters. A parser
+ * either points a field at its own buffer or appends the characters to the buffer of the field.
+ * Amounts and references are parsed from the characters, no String is created for them. Reused
+ * for every record of a delivery, a handler must not keep it.
+ */
+public final class RecordFields {
+
+  public static final int REFERENCE = 0;
+  public static final int ACCOUNT_NUMBER = 1;
+  public static final int DESCRIPTION = 2;
+  public static final int START_BALANCE = 3;
+  public static final int MUTATION = 4;
+  public static final int END_BALANCE = 5;
+
+  static final int FIELDS = 6;
+
+  private final char[][] buffers = new char[FIELDS][16];
+  private final char[][] valueBuffers = new char[FIELDS][];
+  private final char[][] characters = new char[FIELDS][];
+  private final int[] offsets = new int[FIELDS];
+  private final int[] lengths = new int[FIELDS];
+  private long recordNumber;
+
+  /**
+   * Start the next record, all fields are absent
+   */
+  void clear() {
+    recordNumber++;
+    Arrays.fill(characters, null);
+    Arrays.fill(lengths, 0);
+  }
+
+  /**
+   * Point the field at characters of the buffer of the parser, valid until the next record
+   */
+  void set(int field, char[] source, int offset, int length) {
+    //surrounding whitespace is not part of any field
+    while (length > 0 && source[offset] <= ' ') {
+      offset++;
+      length--;
+    }
+    while (length > 0 && source[offset + length - 1] <= ' ') {
+      length--;
+    }
+    characters[field] = source;
+    offsets[field] = offset;
+    lengths[field] = length;
+  }
+
+  /**
+   * Set the field to a value the parser only has as a String, copied to a buffer of its own so
+   * characters appended later replace it as they replace a field pointed at the parser's buffer
+   */
+  void set(int field, String value) {
+    int length = value.length();
+    if (valueBuffers[field] == null || valueBuffers[field].length < length) {
+      valueBuffers[field] = new char[Math.max(length, 16)];
+    }
+    value.getChars(0, length, valueBuffers[field], 0);
+    set(field, valueBuffers[field], 0, length);
+  }
+
+  /**
+   * Append characters to the field, copied to the buffer of the field
+   */
+  void append(int field, char[] source, int offset, int length) {
+    if (characters[field] != buffers[field]) {
+      characters[field] = buffers[field];
+      offsets[field] = 0;
+      lengths[field] = 0;
+    }
+    int required = lengths[field] + length;
+    if (required > buffers[field].length) {
+      buffers[field] = Arrays.copyOf(buffers[field], Math.max(required, buffers[field].length << 1));
+      characters[field] = buffers[field];
+    }
+    System.arraycopy(source, offset, buffers[field], lengths[field], length);
+    lengths[field] = required;
+  }
+
+  /**
+   * Remove the surrounding whitespace of the appended characters
+   */
+  void trim(int field) {
+    if (characters[field] != null) {
+      set(field, characters[field], offsets[field], lengths[field]);
+    }
+  }
+
+  /**
+   * @return true when the field is present and not empty
+   */
+  public boolean isPresent(int field) {
+    return characters[field] != null && lengths[field] > 0;
+  }
+
+  public char[] getCharacters(int field) {
+    return characters[field];
+  }
+
+  public int getOffset(int field) {
+    return offsets[field];
+  }
+
+  public int getLength(int field) {
+    return lengths[field];
+  }
+
+  /**
+   * @return number of the record within the delivery, counting from 1
+   */
+  public long getRecordNumber() {
+    return recordNumber;
+  }
+
+  /**
+   * @return the reference, only when it is present
+   * @throws StatementFormatException when the field is not a whole number
+   */
+  public long getReference() throws StatementFormatException {
+    char[] source = characters[REFERENCE];
+    int position = offsets[REFERENCE];
+    int end = position + lengths[REFERENCE];
+    boolean negative = source[position] == '-';
+    if (negative || source[position] == '+') {
+      position++;
+    }
+    if (position == end) {
+      throw invalid(REFERENCE, "not a valid reference");
+    }
+    long reference = 0;
+    for (; position < end; position++) {
+      int digit = source[position] - '0';
+      if (digit < 0 || digit > 9) {
+        throw invalid(REFERENCE, "not a valid reference");
+      }
+      //accumulated negatively, the range of negative longs is the larger one
+      long next = reference * 10 - digit;
+      if (reference < Long.MIN_VALUE / 10 || next > reference) {
+        throw invalid(REFERENCE, "not a valid reference");
+      }
+      reference = next;
+    }
+    if (!negative && reference == Long.MIN_VALUE) {
+      throw invalid(REFERENCE, "not a valid reference");
+    }
+    return negative ? reference : -reference;
+  }
+
+  /**
+   * @param field - amount field, only when it is present
+   * @param scale - number of decimals of the scaled value
+   * @return the unscaled amount at the scale or {@link ScaledAmounts#NOT_SCALED}
+   */
+  public long getScaledAmount(int field, int scale) {
+    return ScaledAmounts.parseScaled(characters[field], offsets[field], lengths[field], scale);
+  }
+
+  /**
+   * @param field - amount field
+   * @return the exact amount, null when absent
+   * @throws StatementFormatException when the field is not a number
+   */
+  public BigDecimal getAmount(int field) throws StatementFormatException {
+    if (!isPresent(field)) {
+      return null;
+    }
+    try {
+      return new BigDecimal(characters[field], offsets[field], lengths[field]);
+    } catch (NumberFormatException e) {
+      throw invalid(field, "not a valid amount");
+    }
+  }
+
+  /**
+   * @param field - text field
+   * @param dictionary - dictionary of the field for the delivery, repeated values are one instance
+   * @return the text, null when absent
+   */
+  public String getText(int field, StringDictionary dictionary) {
+    if (!isPresent(field)) {
+      return null;
+    }
+    return dictionary.intern(characters[field], offsets[field], lengths[field]);
+  }
+
+  /**
+   * @param accountNumbers - dictionary of the account numbers of the delivery
+   * @param descriptions - dictionary of the descriptions of the delivery
+   * @return the record held by the fields
+   * @throws StatementFormatException when the reference or an amount is malformed
+   */
+  public StatementRecord toStatementRecord(StringDictionary accountNumbers,
+      StringDictionary descriptions) throws StatementFormatException {
+    return StatementRecord.builder()
+        .reference(isPresent(REFERENCE) ? getReference() : null)
+        .accountNumber(getText(ACCOUNT_NUMBER, accountNumbers))
+        .description(getText(DESCRIPTION, descriptions))
+        .startBalance(getAmount(START_BALANCE))
+        .mutation(getAmount(MUTATION))
+        .endBalance(getAmount(END_BALANCE)).build();
+  }
+
+  private StatementFormatException invalid(int field, String reason) {
+    return new StatementFormatException("Record " + recordNumber + ": '" + new String(
+        characters[field], offsets[field], lengths[field]) + "' is " + reason);
+  }
+}
@@ -0,0 +1,17 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import java.io.IOException;
+
+/**
+ * Receiver of the records of a CSV or XML delivery, in order of the delivery
+ */
+@FunctionalInterface
+public interface RecordHandler {
+
+  /**
+   * @param recordFields - fields of the next record, only valid during the call
+   * @return false to stop parsing, the rest of the delivery is then not parsed
+   * @throws IOException when the record is malformed
+   */
+  boolean accept(RecordFields recordFields) throws IOException;
+}
@@ -0,0 +1,222 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses a CSV delivery with a header row naming the columns, e.g.
+ * {@code Reference,Account Number,Description,Start Balance,Mutation,End Balance}. Column names
+ * are matched ignoring case, spaces and underscores, unknown columns are skipped. Fields may be
+ * quoted as in RFC 4180. The text is read into a char buffer and every field is handed over as
+ * a range of that buffer, quoted fields are unescaped in place, so no String is created per
+ * field. Thread safe, every delivery is parsed with its own buffer.
+ */
+public class StatementCsvParser {
+
+  private static final int BUFFER_SIZE = 1 << 14;
+  private static final int MAX_RECORD_LENGTH = 1 << 20;
+  private static final Map<String, Integer> COLUMNS = new HashMap<>();
+
+  static {
+    COLUMNS.put("reference", RecordFields.REFERENCE);
+    COLUMNS.put("accountnumber", RecordFields.ACCOUNT_NUMBER);
+    COLUMNS.put("description", RecordFields.DESCRIPTION);
+    COLUMNS.put("startbalance", RecordFields.START_BALANCE);
+    COLUMNS.put("mutation", RecordFields.MUTATION);
+    COLUMNS.put("endbalance", RecordFields.END_BALANCE);
+  }
+
+  /**
+   * Parse the records and hand each one to the handler as soon as it is read
+   *
+   * @param reader - CSV text, the header row first
+   * @param recordHandler - receives every record in order of the delivery, returns false to stop
+   * @return number of records read
+   * @throws IOException when the reader fails or the CSV is malformed
+   */
+  public long parse(Reader reader, RecordHandler recordHandler) throws IOException {
+    Tokenizer tokenizer = new Tokenizer(reader);
+    if (!tokenizer.readRecord()) {
+      throw new StatementFormatException("Expected a header row of statement records");
+    }
+    int[] columns = new int[tokenizer.count];
+    for (int i = 0; i < columns.length; i++) {
+      String name = new String(tokenizer.buffer, tokenizer.offsets[i], tokenizer.lengths[i])
+          .replaceAll("[\\s_\\uFEFF]", "").toLowerCase(Locale.ROOT);
+      columns[i] = COLUMNS.getOrDefault(name, -1);
+    }
+    RecordFields recordFields = new RecordFields();
+    long records = 0;
+    while (tokenizer.readRecord()) {
+      if (tokenizer.count == 1 && tokenizer.lengths[0] == 0) {
+        //blank line
+        continue;
+      }
+      recordFields.clear();
+      for (int i = 0; i < Math.min(columns.length, tokenizer.count); i++) {
+        if (columns[i] >= 0) {
+          recordFields.set(columns[i], tokenizer.buffer, tokenizer.offsets[i],
+              tokenizer.lengths[i]);
+        }
+      }
+      records++;
+      if (!recordHandler.accept(recordFields)) {
+        break;
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Splits the text into records of fields. A record always stays in the buffer as a whole, the
+   * buffer is compacted or grown when a record crosses its end.
+   */
+  private static class Tokenizer {
+
+    private final Reader reader;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private int recordStart;
+    private int out;
+    private long lines;
+    private int count;
+    private int[] offsets = new int[8];
+    private int[] lengths = new int[8];
+
+    private Tokenizer(Reader reader) {
+      this.reader = reader;
+    }
+
+    /**
+     * @return false when there are no more records
+     */
+    private boolean readRecord() throws IOException {
+      recordStart = position;
+      count = 0;
+      if (!ensure()) {
+        return false;
+      }
+      lines++;
+      while (true) {
+        if (!ensure()) {
+          //the last field of the input is empty
+          addField(position, 0);
+          return true;
+        }
+        //relative to the record start, which moves when the buffer is compacted
+        int fieldOffset = position - recordStart;
+        if (buffer[position] == '"') {
+          position++;
+          //unescaped characters are written over the quoted ones, never ahead of them
+          out = position - 1;
+          while (true) {
+            if (!ensure()) {
+              throw new StatementFormatException("Line " + lines + ": unterminated quoted field");
+            }
+            char character = buffer[position++];
+            if (character == '"') {
+              if (!ensure() || buffer[position] != '"') {
+                break;
+              }
+              position++;
+            }
+            buffer[out++] = character;
+          }
+          addField(recordStart + fieldOffset, out - recordStart - fieldOffset);
+          while (ensure() && buffer[position] == ' ') {
+            position++;
+          }
+          if (!ensure()) {
+            return true;
+          }
+          char character = buffer[position];
+          if (character == ',') {
+            position++;
+            continue;
+          }
+          if (character == '\r' || character == '\n') {
+            skipLineEnd();
+            return true;
+          }
+          throw new StatementFormatException("Line " + lines
+              + ": unexpected character after a quoted field");
+        }
+        while (true) {
+          if (!ensure()) {
+            addField(recordStart + fieldOffset, position - recordStart - fieldOffset);
+            return true;
+          }
+          char character = buffer[position];
+          if (character == ',' || character == '\r' || character == '\n') {
+            addField(recordStart + fieldOffset, position - recordStart - fieldOffset);
+            if (character == ',') {
+              position++;
+              break;
+            }
+            skipLineEnd();
+            return true;
+          }
+          position++;
+        }
+      }
+    }
+
+    private void skipLineEnd() throws IOException {
+      if (buffer[position++] == '\r' && ensure() && buffer[position] == '\n') {
+        position++;
+      }
+    }
+
+    private void addField(int offset, int length) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count << 1);
+        lengths = Arrays.copyOf(lengths, count << 1);
+      }
+      offsets[count] = offset;
+      lengths[count] = length;
+      count++;
+    }
+
+    /**
+     * @return true when a character is available at the position
+     */
+    private boolean ensure() throws IOException {
+      while (position == limit) {
+        if (endOfInput) {
+          return false;
+        }
+        if (recordStart > 0) {
+          int shift = recordStart;
+          System.arraycopy(buffer, recordStart, buffer, 0, limit - recordStart);
+          limit -= shift;
+          position -= shift;
+          out -= shift;
+          for (int i = 0; i < count; i++) {
+            offsets[i] -= shift;
+          }
+          recordStart = 0;
+        } else if (limit == buffer.length) {
+          if (buffer.length >= MAX_RECORD_LENGTH) {
+            throw new StatementFormatException("Line " + lines + ": record longer than "
+                + MAX_RECORD_LENGTH + " characters");
+          }
+          buffer = Arrays.copyOf(buffer, buffer.length << 1);
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+          endOfInput = true;
+        } else {
+          limit += read;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams the {@code record} elements of an XML delivery, whatever the root element, e.g.
+ * {@code <records><record reference="194261"><accountNumber>NL91RABO0315273637</accountNumber>
+ * ...</record></records>}. The reference is either an attribute or an element, the other fields
+ * are elements named like the JSON properties, unknown elements are skipped. Element text is
+ * copied from the StAX reader into reusable buffers, no String is created for it. A reference
+ * attribute is read as a String, StAX has no other access to attribute values. DTDs and external
+ * entities are rejected. Thread safe.
+ */
+public class StatementXmlParser {
+
+  private static final String RECORD = "record";
+  private static final String[] FIELD_NAMES = {"reference", "accountNumber", "description",
+      "startBalance", "mutation", "endBalance"};
+
+  /**
+   * Created on the first XML delivery, loading the StAX implementation is left out of the startup
+   * of deliveries in other formats
+   */
+  private static class XmlInputFactoryHolder {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+      XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+  }
+
+  /**
+   * Parse the records and hand each one to the handler as soon as its element ended
+   *
+   * @param inputStream - XML document, its encoding is taken from the XML declaration
+   * @param recordHandler - receives every record in order of the delivery, returns false to stop
+   * @return number of records read
+   * @throws IOException when the stream fails or the XML is malformed
+   */
+  public long parse(InputStream inputStream, RecordHandler recordHandler) throws IOException {
+    XMLStreamReader reader;
+    try {
+      reader = XmlInputFactoryHolder.XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+    } catch (XMLStreamException e) {
+      throw new StatementFormatException("Unable to read XML : " + e.getMessage(), e);
+    }
+    RecordFields recordFields = new RecordFields();
+    long records = 0;
+    try {
+      boolean inRecord = false;
+      int field = -1;
+      //depth within the record, fields are the direct children of the record
+      int depth = 0;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.DTD:
+            throw new StatementFormatException("DTDs are not accepted in statement records");
+          case XMLStreamConstants.START_ELEMENT:
+            if (!inRecord) {
+              if (RECORD.equals(reader.getLocalName())) {
+                inRecord = true;
+                depth = 0;
+                recordFields.clear();
+                String reference = reader.getAttributeValue(null, FIELD_NAMES[0]);
+                if (reference != null) {
+                  recordFields.set(RecordFields.REFERENCE, reference);
+                }
+              }
+            } else if (++depth == 1) {
+              field = fieldOf(reader.getLocalName());
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (field >= 0 && depth == 1) {
+              recordFields.append(field, reader.getTextCharacters(), reader.getTextStart(),
+                  reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (!inRecord) {
+              break;
+            }
+            if (depth == 0) {
+              inRecord = false;
+              records++;
+              if (!recordHandler.accept(recordFields)) {
+                return records;
+              }
+            } else if (depth-- == 1 && field >= 0) {
+              recordFields.trim(field);
+              field = -1;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new StatementFormatException("Record " + (records + 1) + ": " + e.getMessage(), e);
+    } finally {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        //the stream is closed by its owner
+      }
+    }
+    return records;
+  }
+
+  private static int fieldOf(String name) {
+    for (int i = 0; i < FIELD_NAMES.length; i++) {
+      if (FIELD_NAMES[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
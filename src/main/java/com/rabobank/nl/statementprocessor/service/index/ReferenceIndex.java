@@ -0,0 +1,285 @@
+package com.rabobank.nl.statementprocessor.service.index;
+
+import com.rabobank.nl.statementprocessor.util.LongBloomFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * References of all deliveries received, persisted in a directory so they survive restarts.
+ * Every delivery is appended as an immutable segment of sorted references, segments are merged
+ * in the background once there are more than the merge factor. A lookup searches at most the
+ * maximum number of segments, an append that would exceed it waits for the merge. A bloom filter
+ * over all references answers most lookups of new references without touching a segment.
+ * Lookups are thread safe and don't block on appends or merges.
+ */
+@Component
+@ConditionalOnProperty(name = "statement.reference-index.enabled", havingValue = "true")
+@Slf4j
+public class ReferenceIndex {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private final Path directory;
+  private final int mergeFactor;
+  private final int maxSegments;
+  private final LongBloomFilter bloomFilter;
+  private final Object appendLock = new Object();
+  private final Object mergeLock = new Object();
+  private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+  private final ExecutorService mergeExecutor;
+
+  private volatile ReferenceSegment[] segments;
+  private long nextGeneration;
+
+  /**
+   * Open the index in the directory, creating it when absent
+   *
+   * @param directory - directory holding the segment files
+   * @param expectedReferences - number of references the bloom filter is sized for
+   * @param falsePositiveRate - rate of lookups of new references that have to search the segments
+   * @param mergeFactor - number of segments from which segments are merged
+   * @param maxSegments - number of segments a lookup searches at most, more than the merge factor
+   */
+  public ReferenceIndex(
+      @Value("${statement.reference-index.directory:reference-index}") String directory,
+      @Value("${statement.reference-index.expected-references:10000000}") long expectedReferences,
+      @Value("${statement.reference-index.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${statement.reference-index.merge-factor:4}") int mergeFactor,
+      @Value("${statement.reference-index.max-segments:8}") int maxSegments) {
+    if (mergeFactor < 2) {
+      throw new IllegalArgumentException("Merge factor must be at least 2 : " + mergeFactor);
+    }
+    if (maxSegments <= mergeFactor) {
+      throw new IllegalArgumentException(
+          "Max segments must be more than the merge factor : " + maxSegments);
+    }
+    this.directory = Paths.get(directory);
+    this.mergeFactor = mergeFactor;
+    this.maxSegments = maxSegments;
+    this.bloomFilter = new LongBloomFilter(expectedReferences, falsePositiveRate);
+    this.segments = load();
+    //segments left by an index with a higher bound are merged before the first lookup
+    if (segments.length > maxSegments) {
+      mergeSegments();
+    }
+    this.mergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "reference-index-merge");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduleMerge();
+  }
+
+  /**
+   * @param reference - reference to look up
+   * @return true when the reference was added before
+   */
+  public boolean contains(long reference) {
+    if (!bloomFilter.mightContain(reference)) {
+      return false;
+    }
+    for (ReferenceSegment segment : segments) {
+      if (segment.contains(reference)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Add the references of a delivery, durably on disk before this method returns. Waits for the
+   * smallest segments to be merged when the index holds the maximum number of segments.
+   *
+   * @param references - references in any order, may hold duplicates, not modified
+   * @param count - number of references to add
+   */
+  public void add(long[] references, int count) {
+    long[] sorted = Arrays.copyOf(references, count);
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    if (distinct == 0) {
+      return;
+    }
+    long generation;
+    synchronized (appendLock) {
+      generation = nextGeneration++;
+    }
+    ReferenceSegment segment;
+    try {
+      segment = ReferenceSegment.write(segmentFile(generation), generation, sorted, distinct);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write reference segment " + generation, e);
+    }
+    while (!publish(segment, sorted, distinct)) {
+      mergeSegments();
+    }
+    scheduleMerge();
+  }
+
+  /**
+   * @return number of references stored, references of deliveries not merged yet may be counted
+   * more than once
+   */
+  public long size() {
+    long size = 0;
+    for (ReferenceSegment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  int segmentCount() {
+    return segments.length;
+  }
+
+  /**
+   * Merge the smallest segments until no more than the merge factor remain. Merged segments are
+   * deleted only after the merged segment replaced them, a crash in between leaves duplicate
+   * references in two segments which the next merge removes.
+   */
+  void mergeSegments() {
+    synchronized (mergeLock) {
+      List<ReferenceSegment> merging;
+      while ((merging = smallestSegments()) != null) {
+        long generation;
+        synchronized (appendLock) {
+          generation = nextGeneration++;
+        }
+        ReferenceSegment merged;
+        try {
+          merged = ReferenceSegment.merge(segmentFile(generation), generation, merging);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Unable to merge reference segments", e);
+        }
+        synchronized (appendLock) {
+          List<ReferenceSegment> remaining = new ArrayList<>(Arrays.asList(segments));
+          remaining.removeAll(merging);
+          remaining.add(merged);
+          //largest first, known references are most likely found in the oldest merged segments
+          remaining.sort(Comparator.comparingLong(ReferenceSegment::size).reversed());
+          segments = remaining.toArray(new ReferenceSegment[0]);
+        }
+        for (ReferenceSegment segment : merging) {
+          try {
+            //lookups still using the mapping of a deleted file keep working until it is unmapped
+            Files.deleteIfExists(segment.file());
+          } catch (IOException e) {
+            final String logMethod = "mergeSegments():void Unable to delete : %s";
+            log.warn(String.format(logMethod, segment.file()), e);
+          }
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    //a merge in progress is completed, an interrupted one would only leave a temporary file
+    mergeExecutor.shutdown();
+    try {
+      mergeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean publish(ReferenceSegment segment, long[] references, int count) {
+    synchronized (appendLock) {
+      if (segments.length >= maxSegments) {
+        return false;
+      }
+      for (int i = 0; i < count; i++) {
+        bloomFilter.put(references[i]);
+      }
+      //published after the bloom filter so a lookup finding the segment also passes the filter
+      ReferenceSegment[] current = segments;
+      ReferenceSegment[] appended = Arrays.copyOf(current, current.length + 1);
+      appended[current.length] = segment;
+      segments = appended;
+      return true;
+    }
+  }
+
+  private List<ReferenceSegment> smallestSegments() {
+    ReferenceSegment[] current = segments;
+    if (current.length <= mergeFactor) {
+      return null;
+    }
+    List<ReferenceSegment> bySize = new ArrayList<>(Arrays.asList(current));
+    bySize.sort(Comparator.comparingLong(ReferenceSegment::size));
+    return bySize.subList(0, mergeFactor);
+  }
+
+  private void scheduleMerge() {
+    if (segments.length > mergeFactor && mergeScheduled.compareAndSet(false, true)) {
+      mergeExecutor.execute(() -> {
+        mergeScheduled.set(false);
+        try {
+          mergeSegments();
+        } catch (RuntimeException e) {
+          final String logMethod = "scheduleMerge():void Merge failed : %s";
+          log.error(String.format(logMethod, directory), e);
+        }
+      });
+    }
+  }
+
+  private ReferenceSegment[] load() {
+    List<ReferenceSegment> loaded = new ArrayList<>();
+    try {
+      Files.createDirectories(directory);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          String name = file.getFileName().toString();
+          if (name.endsWith(ReferenceSegment.EXTENSION + ".tmp")) {
+            //left behind by a crash while writing, never published
+            Files.delete(file);
+          } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(ReferenceSegment.EXTENSION)) {
+            long generation = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                name.length() - ReferenceSegment.EXTENSION.length()), 16);
+            loaded.add(ReferenceSegment.open(file, generation));
+            nextGeneration = Math.max(nextGeneration, generation + 1);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to open reference index " + directory, e);
+    }
+    for (ReferenceSegment segment : loaded) {
+      for (long i = 0; i < segment.size(); i++) {
+        bloomFilter.put(segment.get(i));
+      }
+    }
+    final String logMethod = "load():ReferenceSegment[] Opened %s with %d segments";
+    log.info(String.format(logMethod, directory, loaded.size()));
+    loaded.sort(Comparator.comparingLong(ReferenceSegment::size).reversed());
+    return loaded.toArray(new ReferenceSegment[0]);
+  }
+
+  private Path segmentFile(long generation) {
+    return directory.resolve(String.format("%s%016x%s", SEGMENT_PREFIX, generation,
+        ReferenceSegment.EXTENSION));
+  }
+}
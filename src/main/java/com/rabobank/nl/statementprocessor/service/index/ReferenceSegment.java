@@ -0,0 +1,265 @@
+package com.rabobank.nl.statementprocessor.service.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Immutable file of distinct references in ascending order, memory-mapped read only. Every
+ * 512th reference is kept on the heap, so a lookup searches the heap first and then a single
+ * 4 KiB block of the file instead of touching a page per step of the search. A radix table over
+ * the high bits of the references narrows the search of the heap to the blocks of one prefix, the
+ * position within the block is interpolated so evenly spread references touch one or two cache
+ * lines of the block rather than one per step of a binary search.
+ */
+class ReferenceSegment {
+
+  static final String EXTENSION = ".ref";
+
+  private static final int BLOCK_BITS = 9;
+  private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+  //two cache lines either way, evenly spread references are rarely further off the estimate
+  private static final int SCAN_LENGTH = 16;
+  //a mapping can't exceed 2 GiB, larger segments are mapped in regions of 1 GiB
+  private static final int REGION_BITS = 27;
+  private static final long REGION_MASK = (1L << REGION_BITS) - 1;
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+  private final Path file;
+  private final long generation;
+  private final long size;
+  private final LongBuffer[] regions;
+  private final long[] blockFirstReferences;
+  private final long lastReference;
+  private final int radixShift;
+  private final int[] radixBlocks;
+
+  private ReferenceSegment(Path file, long generation) throws IOException {
+    this.file = file;
+    this.generation = generation;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long bytes = channel.size();
+      if (bytes % Long.BYTES != 0) {
+        throw new IOException("Corrupt reference segment " + file + " of " + bytes + " bytes");
+      }
+      this.size = bytes / Long.BYTES;
+      this.regions = new LongBuffer[(int) ((size + REGION_MASK) >>> REGION_BITS)];
+      for (int i = 0; i < regions.length; i++) {
+        long position = ((long) i << REGION_BITS) * Long.BYTES;
+        regions[i] = channel.map(MapMode.READ_ONLY, position, Math.min(bytes - position,
+            (REGION_MASK + 1) * Long.BYTES)).asLongBuffer();
+      }
+    }
+    this.blockFirstReferences = new long[(int) ((size + BLOCK_SIZE - 1) >>> BLOCK_BITS)];
+    for (int i = 0; i < blockFirstReferences.length; i++) {
+      blockFirstReferences[i] = get((long) i << BLOCK_BITS);
+    }
+    //about two prefixes per block, a lookup of evenly spread references searches one or two
+    int radixBits = Integer.SIZE - Integer.numberOfLeadingZeros(blockFirstReferences.length);
+    this.lastReference = size > 0 ? get(size - 1) : 0;
+    long span = size > 0 ? lastReference - blockFirstReferences[0] : 0;
+    this.radixShift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(span) - radixBits);
+    this.radixBlocks = new int[(int) (span >>> radixShift) + 2];
+    int block = 0;
+    for (int prefix = 0; prefix < radixBlocks.length; prefix++) {
+      while (block < blockFirstReferences.length
+          && prefixOf(blockFirstReferences[block]) < prefix) {
+        block++;
+      }
+      radixBlocks[prefix] = block;
+    }
+  }
+
+  /**
+   * Open an existing segment
+   *
+   * @param file - segment file
+   * @param generation - generation of the segment, newer segments have a higher generation
+   * @return the mapped segment
+   * @throws IOException when the file can't be mapped
+   */
+  static ReferenceSegment open(Path file, long generation) throws IOException {
+    return new ReferenceSegment(file, generation);
+  }
+
+  /**
+   * Write the sorted references as a new segment. The segment is written to a temporary file
+   * and forced to disk before it is renamed, so a segment file is either complete or absent.
+   *
+   * @param file - segment file to create
+   * @param generation - generation of the segment
+   * @param references - references in ascending order without duplicates
+   * @param count - number of references to write
+   * @return the mapped segment
+   * @throws IOException when the segment can't be written
+   */
+  static ReferenceSegment write(Path file, long generation, long[] references, int count)
+      throws IOException {
+    Path temporaryFile = temporaryFile(file);
+    try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile.toFile());
+        DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(fileOutputStream, WRITE_BUFFER_SIZE))) {
+      for (int i = 0; i < count; i++) {
+        output.writeLong(references[i]);
+      }
+      output.flush();
+      fileOutputStream.getChannel().force(true);
+    }
+    return publish(temporaryFile, file, generation);
+  }
+
+  /**
+   * Merge segments into a new segment holding the distinct references of all of them
+   *
+   * @param file - segment file to create
+   * @param generation - generation of the segment
+   * @param segments - segments to merge, not modified
+   * @return the mapped segment
+   * @throws IOException when the segment can't be written
+   */
+  static ReferenceSegment merge(Path file, long generation, List<ReferenceSegment> segments)
+      throws IOException {
+    Path temporaryFile = temporaryFile(file);
+    long[] positions = new long[segments.size()];
+    try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile.toFile());
+        DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(fileOutputStream, WRITE_BUFFER_SIZE))) {
+      boolean written = false;
+      long last = 0;
+      while (true) {
+        //few segments are merged at a time, a linear scan for the smallest head is enough
+        int smallest = -1;
+        long reference = 0;
+        for (int i = 0; i < positions.length; i++) {
+          ReferenceSegment segment = segments.get(i);
+          if (positions[i] < segment.size) {
+            long head = segment.get(positions[i]);
+            if (smallest < 0 || head < reference) {
+              smallest = i;
+              reference = head;
+            }
+          }
+        }
+        if (smallest < 0) {
+          break;
+        }
+        positions[smallest]++;
+        if (!written || reference != last) {
+          output.writeLong(reference);
+          written = true;
+          last = reference;
+        }
+      }
+      output.flush();
+      fileOutputStream.getChannel().force(true);
+    }
+    return publish(temporaryFile, file, generation);
+  }
+
+  /**
+   * @param reference - reference to look up
+   * @return true when the segment holds the reference
+   */
+  boolean contains(long reference) {
+    if (size == 0 || reference < blockFirstReferences[0] || reference > lastReference) {
+      return false;
+    }
+    int prefix = prefixOf(reference);
+    int low = radixBlocks[prefix];
+    int high = radixBlocks[prefix + 1] - 1;
+    //last block starting at or before the reference, the block before those of its prefix when
+    //none of them does
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (blockFirstReferences[middle] <= reference) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    long from = (long) high << BLOCK_BITS;
+    long to = Math.min(size, from + BLOCK_SIZE) - 1;
+    //estimate the position from the first references of this block and the next, a block of a
+    //single reference estimates NaN which is cast to 0
+    long first = blockFirstReferences[high];
+    boolean lastBlock = high == blockFirstReferences.length - 1;
+    long next = lastBlock ? lastReference : blockFirstReferences[high + 1];
+    long nextPosition = lastBlock ? to : from + BLOCK_SIZE;
+    long position = Math.min(to, from + (long) ((nextPosition - from)
+        * (((double) reference - first) / ((double) next - first))));
+    //scan the neighbouring references, each step touches at most one more cache line
+    long value = get(position);
+    if (value < reference) {
+      long limit = Math.min(to, position + SCAN_LENGTH);
+      while (position < limit && (value = get(++position)) < reference) {
+      }
+      if (value >= reference) {
+        return value == reference;
+      }
+      from = position + 1;
+    } else if (value > reference) {
+      long limit = Math.max(from, position - SCAN_LENGTH);
+      while (position > limit && (value = get(--position)) > reference) {
+      }
+      if (value <= reference) {
+        return value == reference;
+      }
+      to = position - 1;
+    } else {
+      return true;
+    }
+    //binary search what is left of the block when the references are unevenly spread
+    while (from <= to) {
+      long middle = (from + to) >>> 1;
+      value = get(middle);
+      if (value < reference) {
+        from = middle + 1;
+      } else if (value > reference) {
+        to = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int prefixOf(long reference) {
+    //the difference to the first reference is at most the span, also when it overflows a long
+    return (int) ((reference - blockFirstReferences[0]) >>> radixShift);
+  }
+
+  long get(long index) {
+    return regions[(int) (index >>> REGION_BITS)].get((int) (index & REGION_MASK));
+  }
+
+  long size() {
+    return size;
+  }
+
+  long generation() {
+    return generation;
+  }
+
+  Path file() {
+    return file;
+  }
+
+  private static ReferenceSegment publish(Path temporaryFile, Path file, long generation)
+      throws IOException {
+    Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+    return open(file, generation);
+  }
+
+  private static Path temporaryFile(Path file) {
+    return file.resolveSibling(file.getFileName() + ".tmp");
+  }
+}
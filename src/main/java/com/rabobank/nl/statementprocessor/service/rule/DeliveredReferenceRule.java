@@ -0,0 +1,119 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DUPLICATE_REFERENCE;
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.SUCCESS;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ReferenceSet;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.index.ReferenceIndex;
+import java.util.Arrays;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects references already received in an earlier delivery, as a duplicate reference. The
+ * references of a delivery are added to the {@link ReferenceIndex} once it was validated to the
+ * end and accepted, a rejected delivery is expected to be delivered again once corrected.
+ * Deliveries validated at the same time are not checked against each other. A delivery validated
+ * in shards is looked up in the index of every instance validating a shard and added to the index
+ * of the instance merging the shards. Only registered when the reference index is enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "statement.reference-index.enabled", havingValue = "true")
+@Order(1)
+public class DeliveredReferenceRule implements StatementRule {
+
+  private final ReferenceIndex referenceIndex;
+
+  public DeliveredReferenceRule(ReferenceIndex referenceIndex) {
+    this.referenceIndex = referenceIndex;
+  }
+
+  @Override
+  public String getResultCode() {
+    //shares the code of the duplicates within a delivery, the combined result lists it once
+    return DUPLICATE_REFERENCE;
+  }
+
+  @Override
+  public RuleEvaluation newEvaluation(int expectedRecords) {
+    return new DeliveredReferenceEvaluation(expectedRecords);
+  }
+
+  @Override
+  public RuleEvaluation restoreEvaluation(ReferenceSet partialState, int records) {
+    DeliveredReferenceEvaluation evaluation = new DeliveredReferenceEvaluation(0);
+    evaluation.references = partialState.getReferences();
+    evaluation.count = evaluation.references.length;
+    return evaluation;
+  }
+
+  /**
+   * Looks up every reference in the index and collects the references of the delivery
+   */
+  private class DeliveredReferenceEvaluation implements RuleEvaluation {
+
+    private long[] references;
+    private int count;
+
+    DeliveredReferenceEvaluation(int expectedRecords) {
+      this.references = new long[Math.max(16, expectedRecords)];
+    }
+
+    @Override
+    public ErrorRecord evaluate(StatementRecord statementRecord) {
+      Long reference = statementRecord.getReference();
+      if (reference == null) {
+        return null;
+      }
+      return evaluate(reference, statementRecord.getAccountNumber());
+    }
+
+    @Override
+    public ErrorRecord evaluate(StatementBatch statementBatch, int index) {
+      if (!statementBatch.hasReference(index)) {
+        return null;
+      }
+      return evaluate(statementBatch.getReference(index), statementBatch.getAccountNumber(index));
+    }
+
+    private ErrorRecord evaluate(long reference, String accountNumber) {
+      if (referenceIndex.contains(reference)) {
+        return ErrorRecord.builder().reference(reference).accountNumber(accountNumber).build();
+      }
+      append(reference);
+      return null;
+    }
+
+    @Override
+    public void merge(RuleEvaluation following, BoundaryErrors boundaryErrors) {
+      DeliveredReferenceEvaluation next = (DeliveredReferenceEvaluation) following;
+      for (int i = 0; i < next.count; i++) {
+        append(next.references[i]);
+      }
+    }
+
+    @Override
+    public ReferenceSet getPartialState() {
+      return ReferenceSet.builder().references(Arrays.copyOf(references, count)).build();
+    }
+
+    @Override
+    public void complete(StatementResult statementResult) {
+      if (SUCCESS.equals(statementResult.getResult()) && !statementResult.isTruncated()) {
+        referenceIndex.add(references, count);
+      }
+    }
+
+    private void append(long reference) {
+      if (count == references.length) {
+        references = Arrays.copyOf(references, references.length << 1);
+      }
+      references[count++] = reference;
+    }
+  }
+}
@@ -0,0 +1,306 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DUPLICATE_REFERENCE;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ReferenceSet;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.util.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects references occurring more than once in a delivery, the error is reported once per
+ * reference with the account number of its first occurrence
+ */
+@Component
+@Order(1)
+public class DuplicateReferenceRule implements StatementRule {
+
+  @Override
+  public String getResultCode() {
+    return DUPLICATE_REFERENCE;
+  }
+
+  @Override
+  public RuleEvaluation newEvaluation(int expectedRecords) {
+    return new DuplicateReferenceEvaluation(expectedRecords);
+  }
+
+  @Override
+  public RuleEvaluation restoreEvaluation(ReferenceSet partialState, int records) {
+    long[] references = partialState.getReferences();
+    DuplicateReferenceEvaluation evaluation = new DuplicateReferenceEvaluation(references.length);
+    BitSet reported = new BitSet(references.length);
+    for (int reportedIndex : partialState.getReportedIndexes()) {
+      reported.set(reportedIndex);
+    }
+    for (int i = 0; i < references.length; i++) {
+      evaluation.partitions[DuplicateReferenceEvaluation.partitionOf(references[i])]
+          .restoreDistinctReference(references[i], partialState.getAccountNumbers()[i],
+              partialState.getPositions()[i], reported.get(i));
+    }
+    if (partialState.getNullReferencePosition() != null) {
+      evaluation.nullReferencePosition = partialState.getNullReferencePosition();
+      evaluation.nullReferenceAccountNumber = partialState.getNullReferenceAccountNumber();
+      evaluation.nullReferenceReported = partialState.isNullReferenceReported();
+    }
+    evaluation.records = records;
+    return evaluation;
+  }
+
+  /**
+   * Keeps the distinct references with the account and position of their first occurrence, the
+   * records themselves are not retained. References are spread over partitions by hash so the
+   * evaluations of two chunks are merged partition by partition in parallel.
+   */
+  private static class DuplicateReferenceEvaluation implements RuleEvaluation {
+
+    private static final int PARTITION_BITS = 4;
+
+    private final ReferencePartition[] partitions = new ReferencePartition[1 << PARTITION_BITS];
+    private String nullReferenceAccountNumber;
+    private int nullReferencePosition = -1;
+    private boolean nullReferenceReported;
+    private int records;
+
+    DuplicateReferenceEvaluation(int expectedRecords) {
+      for (int i = 0; i < partitions.length; i++) {
+        partitions[i] = new ReferencePartition(expectedRecords >>> PARTITION_BITS);
+      }
+    }
+
+    @Override
+    public ErrorRecord evaluate(StatementRecord statementRecord) {
+      Long reference = statementRecord.getReference();
+      return reference != null ? evaluate(reference, statementRecord.getAccountNumber())
+          : evaluateNullReference(statementRecord.getAccountNumber());
+    }
+
+    @Override
+    public ErrorRecord evaluate(StatementBatch statementBatch, int index) {
+      //account numbers of a batch are shared strings, keeping them costs no copy
+      return statementBatch.hasReference(index)
+          ? evaluate(statementBatch.getReference(index), statementBatch.getAccountNumber(index))
+          : evaluateNullReference(statementBatch.getAccountNumber(index));
+    }
+
+    private ErrorRecord evaluate(long reference, String accountNumber) {
+      return partitions[partitionOf(reference)].evaluate(reference, accountNumber, records++);
+    }
+
+    private ErrorRecord evaluateNullReference(String accountNumber) {
+      int position = records++;
+      if (nullReferencePosition < 0) {
+        nullReferencePosition = position;
+        nullReferenceAccountNumber = accountNumber;
+        return null;
+      }
+      if (nullReferenceReported) {
+        return null;
+      }
+      nullReferenceReported = true;
+      return ErrorRecord.builder().accountNumber(nullReferenceAccountNumber).build();
+    }
+
+    @Override
+    public void merge(RuleEvaluation following, BoundaryErrors boundaryErrors) {
+      DuplicateReferenceEvaluation next = (DuplicateReferenceEvaluation) following;
+      if (next.nullReferencePosition >= 0) {
+        if (nullReferencePosition < 0) {
+          nullReferencePosition = records + next.nullReferencePosition;
+          nullReferenceAccountNumber = next.nullReferenceAccountNumber;
+          nullReferenceReported = next.nullReferenceReported;
+        } else if (!nullReferenceReported) {
+          nullReferenceReported = true;
+          boundaryErrors.report(next.nullReferencePosition,
+              ErrorRecord.builder().accountNumber(nullReferenceAccountNumber).build());
+        }
+      }
+      List<PartitionMerge> partitionMerges = new ArrayList<>(partitions.length);
+      for (int i = 0; i < partitions.length; i++) {
+        partitionMerges.add(new PartitionMerge(partitions[i], next.partitions[i], records));
+      }
+      if (ForkJoinTask.inForkJoinPool()) {
+        ForkJoinTask.invokeAll(partitionMerges);
+      } else {
+        partitionMerges.forEach(PartitionMerge::compute);
+      }
+      for (PartitionMerge partitionMerge : partitionMerges) {
+        for (int i = 0; i < partitionMerge.boundaryErrors.size(); i++) {
+          boundaryErrors.report(partitionMerge.boundaryPositions[i],
+              partitionMerge.boundaryErrors.get(i));
+        }
+      }
+      records += next.records;
+    }
+
+    @Override
+    public int listedPosition(ErrorRecord errorRecord, int position) {
+      //a duplicate is listed at the first occurrence of its reference, as it was reported with
+      Long reference = errorRecord.getReference();
+      return reference != null ? partitions[partitionOf(reference)].firstPosition(reference)
+          : nullReferencePosition;
+    }
+
+    @Override
+    public ReferenceSet getPartialState() {
+      int distinctReferences = 0;
+      for (ReferencePartition partition : partitions) {
+        distinctReferences += partition.distinctReferences;
+      }
+      long[] references = new long[distinctReferences];
+      String[] accountNumbers = new String[distinctReferences];
+      int[] positions = new int[distinctReferences];
+      int[] reportedIndexes = new int[distinctReferences];
+      int reported = 0;
+      int offset = 0;
+      for (ReferencePartition partition : partitions) {
+        System.arraycopy(partition.references, 0, references, offset,
+            partition.distinctReferences);
+        System.arraycopy(partition.accountNumbers, 0, accountNumbers, offset,
+            partition.distinctReferences);
+        System.arraycopy(partition.firstPositions, 0, positions, offset,
+            partition.distinctReferences);
+        for (int i = partition.reportedReferenceIndexes.nextSetBit(0); i >= 0;
+            i = partition.reportedReferenceIndexes.nextSetBit(i + 1)) {
+          reportedIndexes[reported++] = offset + i;
+        }
+        offset += partition.distinctReferences;
+      }
+      return ReferenceSet.builder().references(references).accountNumbers(accountNumbers)
+          .positions(positions).reportedIndexes(Arrays.copyOf(reportedIndexes, reported))
+          .nullReferencePosition(nullReferencePosition >= 0 ? nullReferencePosition : null)
+          .nullReferenceAccountNumber(nullReferenceAccountNumber)
+          .nullReferenceReported(nullReferenceReported).build();
+    }
+
+    private static int partitionOf(long reference) {
+      //high bits of a different mix than the slot of the hash map within the partition
+      return (int) ((reference * 0xC2B2AE3D27D4EB4FL) >>> (Long.SIZE - PARTITION_BITS));
+    }
+  }
+
+  /**
+   * Distinct references of one partition with the account and position of their first occurrence
+   */
+  private static class ReferencePartition {
+
+    private static final int NO_VALUE = LongIntHashMap.NO_VALUE;
+
+    private final LongIntHashMap referenceIndexes;
+    private long[] references;
+    private String[] accountNumbers;
+    private int[] firstPositions;
+    private int distinctReferences;
+    private final BitSet reportedReferenceIndexes = new BitSet();
+
+    ReferencePartition(int expectedReferences) {
+      int capacity = Math.max(16, expectedReferences);
+      referenceIndexes = new LongIntHashMap(expectedReferences);
+      references = new long[capacity];
+      accountNumbers = new String[capacity];
+      firstPositions = new int[capacity];
+    }
+
+    ErrorRecord evaluate(long reference, String accountNumber, int position) {
+      int firstIndex = referenceIndexes.putIfAbsent(reference, distinctReferences);
+      if (firstIndex == NO_VALUE) {
+        addDistinctReference(reference, accountNumber, position);
+        return null;
+      }
+      if (reportedReferenceIndexes.get(firstIndex)) {
+        return null;
+      }
+      reportedReferenceIndexes.set(firstIndex);
+      return ErrorRecord.builder().reference(reference)
+          .accountNumber(accountNumbers[firstIndex]).build();
+    }
+
+    int firstPosition(long reference) {
+      return firstPositions[referenceIndexes.get(reference)];
+    }
+
+    void restoreDistinctReference(long reference, String accountNumber, int position,
+        boolean reported) {
+      if (reported) {
+        reportedReferenceIndexes.set(distinctReferences);
+      }
+      referenceIndexes.putIfAbsent(reference, distinctReferences);
+      addDistinctReference(reference, accountNumber, position);
+    }
+
+    private void addDistinctReference(long reference, String accountNumber, int position) {
+      if (distinctReferences == accountNumbers.length) {
+        int capacity = distinctReferences << 1;
+        references = Arrays.copyOf(references, capacity);
+        accountNumbers = Arrays.copyOf(accountNumbers, capacity);
+        firstPositions = Arrays.copyOf(firstPositions, capacity);
+      }
+      references[distinctReferences] = reference;
+      accountNumbers[distinctReferences] = accountNumber;
+      firstPositions[distinctReferences] = position;
+      distinctReferences++;
+    }
+  }
+
+  /**
+   * Merge of one partition, the partitions of two chunks are merged independently
+   */
+  private static class PartitionMerge extends RecursiveAction {
+
+    private final ReferencePartition partition;
+    private final ReferencePartition next;
+    private final int offset;
+    private final List<ErrorRecord> boundaryErrors = new ArrayList<>();
+    private int[] boundaryPositions = new int[4];
+
+    /**
+     * @param partition - partition to merge into
+     * @param next - same partition of the following chunk
+     * @param offset - number of records before the following chunk
+     */
+    PartitionMerge(ReferencePartition partition, ReferencePartition next, int offset) {
+      this.partition = partition;
+      this.next = next;
+      this.offset = offset;
+    }
+
+    @Override
+    protected void compute() {
+      for (int nextIndex = 0; nextIndex < next.distinctReferences; nextIndex++) {
+        long reference = next.references[nextIndex];
+        int firstIndex = partition.referenceIndexes
+            .putIfAbsent(reference, partition.distinctReferences);
+        if (firstIndex == LongIntHashMap.NO_VALUE) {
+          if (next.reportedReferenceIndexes.get(nextIndex)) {
+            partition.reportedReferenceIndexes.set(partition.distinctReferences);
+          }
+          partition.addDistinctReference(reference, next.accountNumbers[nextIndex],
+              offset + next.firstPositions[nextIndex]);
+        } else if (!partition.reportedReferenceIndexes.get(firstIndex)) {
+          //the first occurrence in the next chunk is the second one of the delivery, the error
+          //the next chunk may have reported itself carries the wrong account and comes later
+          partition.reportedReferenceIndexes.set(firstIndex);
+          addBoundaryError(next.firstPositions[nextIndex], ErrorRecord.builder()
+              .reference(reference).accountNumber(partition.accountNumbers[firstIndex]).build());
+        }
+      }
+    }
+
+    private void addBoundaryError(int position, ErrorRecord errorRecord) {
+      if (boundaryErrors.size() == boundaryPositions.length) {
+        boundaryPositions = Arrays.copyOf(boundaryPositions, boundaryPositions.length << 1);
+      }
+      boundaryPositions[boundaryErrors.size()] = position;
+      boundaryErrors.add(errorRecord);
+    }
+  }
+}
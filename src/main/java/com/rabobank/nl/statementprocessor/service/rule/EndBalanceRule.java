@@ -0,0 +1,114 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.INCORRECT_END_BALANCE;
+import static com.rabobank.nl.statementprocessor.util.ScaledAmounts.NOT_SCALED;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.util.ScaledAmounts;
+import java.math.BigDecimal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects records of which the end balance is not the start balance plus the mutation. Amounts
+ * are compared as unscaled longs at a fixed scale, BigDecimal arithmetic is only used when an
+ * amount has more decimals than the fixed scale or doesn't fit in a long. Records of a
+ * {@link StatementBatch} at the same scale are compared on its amount columns.
+ */
+@Component
+@Order(2)
+public class EndBalanceRule implements StatementRule {
+
+  public static final int DEFAULT_AMOUNT_SCALE = 2;
+
+  private final int amountScale;
+
+  public EndBalanceRule() {
+    this(DEFAULT_AMOUNT_SCALE);
+  }
+
+  /**
+   * @param amountScale - number of decimals of the fixed scale amounts are compared at
+   */
+  @Autowired
+  public EndBalanceRule(
+      @Value("${statement.validation.amount-scale:" + DEFAULT_AMOUNT_SCALE + "}") int amountScale) {
+    if (amountScale < 0 || amountScale > ScaledAmounts.MAX_LONG_PRECISION) {
+      throw new IllegalArgumentException("Amount scale must be between 0 and "
+          + ScaledAmounts.MAX_LONG_PRECISION + " : " + amountScale);
+    }
+    this.amountScale = amountScale;
+  }
+
+  @Override
+  public String getResultCode() {
+    return INCORRECT_END_BALANCE;
+  }
+
+  @Override
+  public RuleEvaluation newEvaluation(int expectedRecords) {
+    return new EndBalanceEvaluation();
+  }
+
+  private boolean hasCorrectEndBalance(StatementBatch statementBatch, int index) {
+    if (statementBatch.getScale() == amountScale) {
+      long sum = add(statementBatch.getScaledStartBalance(index),
+          statementBatch.getScaledMutation(index));
+      long scaledEndBalance = statementBatch.getScaledEndBalance(index);
+      if (sum != NOT_SCALED && scaledEndBalance != NOT_SCALED) {
+        return sum == scaledEndBalance;
+      }
+    }
+    return hasCorrectEndBalance(statementBatch.getStartBalance(index),
+        statementBatch.getMutation(index), statementBatch.getEndBalance(index));
+  }
+
+  private boolean hasCorrectEndBalance(BigDecimal startBalance, BigDecimal mutation,
+      BigDecimal endBalance) {
+    long scaledStartBalance = ScaledAmounts.toScaled(startBalance, amountScale);
+    long scaledMutation = ScaledAmounts.toScaled(mutation, amountScale);
+    long scaledEndBalance = ScaledAmounts.toScaled(endBalance, amountScale);
+    long sum = add(scaledStartBalance, scaledMutation);
+    if (sum != NOT_SCALED && scaledEndBalance != NOT_SCALED) {
+      return sum == scaledEndBalance;
+    }
+    return startBalance.add(mutation).compareTo(endBalance) == 0;
+  }
+
+  private static long add(long scaledStartBalance, long scaledMutation) {
+    if (scaledStartBalance == NOT_SCALED || scaledMutation == NOT_SCALED) {
+      return NOT_SCALED;
+    }
+    return ScaledAmounts.add(scaledStartBalance, scaledMutation);
+  }
+
+  /**
+   * Judges every record on its own, reading only the amount columns of a batch
+   */
+  private class EndBalanceEvaluation implements RuleEvaluation {
+
+    @Override
+    public ErrorRecord evaluate(StatementRecord statementRecord) {
+      if (hasCorrectEndBalance(statementRecord.getStartBalance(), statementRecord.getMutation(),
+          statementRecord.getEndBalance())) {
+        return null;
+      }
+      return ErrorRecord.builder().reference(statementRecord.getReference())
+          .accountNumber(statementRecord.getAccountNumber()).build();
+    }
+
+    @Override
+    public ErrorRecord evaluate(StatementBatch statementBatch, int index) {
+      if (hasCorrectEndBalance(statementBatch, index)) {
+        return null;
+      }
+      return ErrorRecord.builder()
+          .reference(statementBatch.hasReference(index) ? statementBatch.getReference(index) : null)
+          .accountNumber(statementBatch.getAccountNumber(index)).build();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ReferenceSet;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+
+/**
+ * State of a {@link StatementRule} for one delivery, receives every record exactly once and in
+ * order of the delivery. Not thread safe.
+ */
+@FunctionalInterface
+public interface RuleEvaluation {
+
+  /**
+   * Evaluate the next record of the delivery
+   *
+   * @param statementRecord - record of Statement
+   * @return error record when the rule rejects the record, null otherwise
+   */
+  ErrorRecord evaluate(StatementRecord statementRecord);
+
+  /**
+   * Evaluate the next record of the delivery, read from the columns of a batch. Rules should
+   * override this to read the columns they need, by default the record is materialized.
+   *
+   * @param statementBatch - batch holding the record
+   * @param index - index of the record in the batch
+   * @return error record when the rule rejects the record, null otherwise
+   */
+  default ErrorRecord evaluate(StatementBatch statementBatch, int index) {
+    return evaluate(statementBatch.get(index));
+  }
+
+  /**
+   * Merge the evaluation of the records directly following the records seen by this evaluation,
+   * used when a delivery is validated in chunks. Rules judging every record on its own have
+   * nothing to merge, rules keeping state across records must override this.
+   *
+   * @param following - evaluation of the next chunk of the same rule, not used afterwards
+   * @param boundaryErrors - receives the errors that only show across the chunk boundary
+   */
+  default void merge(RuleEvaluation following, BoundaryErrors boundaryErrors) {
+  }
+
+  /**
+   * Position an error of this rule is listed at in a collected result, where the errors of a rule
+   * follow those of the rules before it in order of this position. By default the position of the
+   * rejected record, a rule rejecting a record for an earlier one lists it at the earlier one.
+   *
+   * @param errorRecord - error reported by this evaluation or by one merged into it
+   * @param position - position in the delivery of the record the error was reported for
+   * @return position in the delivery to list the error at
+   */
+  default int listedPosition(ErrorRecord errorRecord, int position) {
+    return position;
+  }
+
+  /**
+   * State of the evaluation for a shard of a delivery validated on another instance, restored
+   * with {@link StatementRule#restoreEvaluation(ReferenceSet, int)} to be merged. Rules judging
+   * every record on its own have no state.
+   *
+   * @return the references seen, null when the rule keeps no state across records
+   */
+  default ReferenceSet getPartialState() {
+    return null;
+  }
+
+  /**
+   * Called once after the last record of a delivery was evaluated and its result created, not
+   * called when the delivery couldn't be read to the end. Rules keeping state beyond a single
+   * delivery record it here.
+   *
+   * @param statementResult - result of the delivery
+   */
+  default void complete(StatementResult statementResult) {
+  }
+
+  /**
+   * Receiver of the errors found while merging two evaluations
+   */
+  @FunctionalInterface
+  interface BoundaryErrors {
+
+    /**
+     * @param position - position of the rejected record within the following chunk
+     * @param errorRecord - the error, reported as if the chunks were evaluated as one
+     */
+    void report(int position, ErrorRecord errorRecord);
+  }
+}
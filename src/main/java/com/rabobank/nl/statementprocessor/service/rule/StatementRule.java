@@ -0,0 +1,38 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import com.rabobank.nl.statementprocessor.api.model.ReferenceSet;
+
+/**
+ * Validation rule applied to the records of a delivery. Every rule registered as a bean takes
+ * part in the single pass over the records, in the order given by
+ * {@link org.springframework.core.annotation.Order}, which is also the order of the result codes
+ * in a combined result.
+ */
+public interface StatementRule {
+
+  /**
+   * @return result code reported when the rule rejects at least one record
+   */
+  String getResultCode();
+
+  /**
+   * Start the evaluation of the rule for one delivery
+   *
+   * @param expectedRecords - number of records expected, a sizing hint only
+   * @return evaluation state of a single delivery
+   */
+  RuleEvaluation newEvaluation(int expectedRecords);
+
+  /**
+   * Restore the evaluation of a shard of a delivery from its partial state, to be merged with
+   * the evaluations of the adjacent shards. Rules keeping state across records must override
+   * this together with {@link RuleEvaluation#getPartialState()}.
+   *
+   * @param partialState - state of the evaluation, null when the rule keeps no state
+   * @param records - number of records of the shard
+   * @return evaluation state of the shard
+   */
+  default RuleEvaluation restoreEvaluation(ReferenceSet partialState, int records) {
+    return newEvaluation(records);
+  }
+}
@@ -0,0 +1,52 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the platform threads of the background work of the services, daemon threads so they
+ * never keep the JVM from exiting.
+ */
+public final class DaemonThreads {
+
+  private static final long MIN_EVICTION_PERIOD_MILLIS = 1000;
+
+  private DaemonThreads() {
+  }
+
+  /**
+   * @param prefix - prefix of the thread names, followed by a sequence number
+   * @return factory of daemon platform threads
+   */
+  public static ThreadFactory namedThreadFactory(String prefix) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Run an eviction on a thread of its own every tenth of the time entries are kept, at most once
+   * a second. Shut the executor down to stop it.
+   *
+   * @param prefix - prefix of the name of the thread
+   * @param timeToLive - time entries are kept before they are evicted
+   * @param eviction - removes the entries kept longer than the time to live
+   * @return executor running the eviction
+   */
+  public static ScheduledExecutorService scheduleEviction(String prefix, Duration timeToLive,
+      Runnable eviction) {
+    ScheduledExecutorService evictionExecutor = Executors
+        .newSingleThreadScheduledExecutor(namedThreadFactory(prefix));
+    long evictionPeriod = Math.max(MIN_EVICTION_PERIOD_MILLIS, timeToLive.toMillis() / 10);
+    evictionExecutor.scheduleWithFixedDelay(eviction, evictionPeriod, evictionPeriod,
+        TimeUnit.MILLISECONDS);
+    return evictionExecutor;
+  }
+}
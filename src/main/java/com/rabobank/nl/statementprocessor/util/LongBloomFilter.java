@@ -0,0 +1,97 @@
+package com.rabobank.nl.statementprocessor.util;
+
+/**
+ * Blocked bloom filter for primitive long values. All bits of a value are set within one block of
+ * 512 bits, so a lookup touches a single cache line whatever the number of hash functions. Puts
+ * must not run concurrently with each other, lookups may run concurrently with a put.
+ */
+public class LongBloomFilter {
+
+  private static final int WORDS_PER_BLOCK = 8;
+  private static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE;
+  private static final int MAX_HASH_FUNCTIONS = 16;
+  private static final double LN2 = Math.log(2);
+
+  private final long[] words;
+  private final long blocks;
+  private final int hashFunctions;
+
+  /**
+   * @param expectedValues - number of values expected, more values raise the false positive rate
+   * @param falsePositiveRate - rate of lookups of absent values reported as present at the
+   * expected number of values
+   */
+  public LongBloomFilter(long expectedValues, double falsePositiveRate) {
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1 : "
+          + falsePositiveRate);
+    }
+    long values = Math.max(1, expectedValues);
+    double bits = -values * Math.log(falsePositiveRate) / (LN2 * LN2);
+    long requiredBlocks = Math.max(1, (long) Math.ceil(bits / BITS_PER_BLOCK));
+    if (requiredBlocks > Integer.MAX_VALUE / WORDS_PER_BLOCK) {
+      throw new IllegalArgumentException("Expected values too large : " + expectedValues);
+    }
+    this.blocks = requiredBlocks;
+    this.words = new long[(int) requiredBlocks * WORDS_PER_BLOCK];
+    this.hashFunctions = (int) Math.max(1,
+        Math.min(MAX_HASH_FUNCTIONS, Math.round(bits / values * LN2)));
+  }
+
+  /**
+   * @param value - value to add
+   */
+  public void put(long value) {
+    long hash = mix(value);
+    int block = block(hash);
+    int bitHash = (int) hash;
+    int step = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      int bit = bitHash & (BITS_PER_BLOCK - 1);
+      words[block + (bit >>> 6)] |= 1L << bit;
+      bitHash += step;
+    }
+  }
+
+  /**
+   * @param value - value to look up
+   * @return false when the value was certainly not added, true when it probably was
+   */
+  public boolean mightContain(long value) {
+    long hash = mix(value);
+    int block = block(hash);
+    int bitHash = (int) hash;
+    int step = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      int bit = bitHash & (BITS_PER_BLOCK - 1);
+      if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+      bitHash += step;
+    }
+    return true;
+  }
+
+  /**
+   * @return size of the filter in bytes
+   */
+  public long sizeInBytes() {
+    return (long) words.length * Long.BYTES;
+  }
+
+  private int block(long hash) {
+    //maps the high 32 bits of the hash onto the blocks without a division
+    return (int) (((hash >>> 32) * blocks) >>> 32) * WORDS_PER_BLOCK;
+  }
+
+  private static long mix(long value) {
+    //murmur3 finalizer, references are often sequential numbers
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,117 @@
+package com.rabobank.nl.statementprocessor.util;
+
+/**
+ * Open addressing hash set specialised for primitive long values, avoids boxing every reference
+ * into a Long and dispatching equals() on every probe. Not thread safe.
+ */
+public class LongHashSet {
+
+  private static final int DEFAULT_EXPECTED_SIZE = 16;
+  private static final long EMPTY = 0L;
+
+  private long[] keys;
+  private int mask;
+  private int size;
+  private boolean containsEmptyKey;
+
+  public LongHashSet() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * @param expectedSize - number of values expected, used to size the table up front
+   */
+  public LongHashSet(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Add the value to the set
+   *
+   * @param value - value to add
+   * @return true when the value was not yet present
+   */
+  public boolean add(long value) {
+    if (value == EMPTY) {
+      if (containsEmptyKey) {
+        return false;
+      }
+      containsEmptyKey = true;
+      size++;
+      return true;
+    }
+    int slot = slot(value);
+    long current;
+    while ((current = keys[slot]) != EMPTY) {
+      if (current == value) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = value;
+    if (++size > (mask + 1) >>> 1) {
+      rehash();
+    }
+    return true;
+  }
+
+  /**
+   * @param value - value to look up
+   * @return true when the value is present
+   */
+  public boolean contains(long value) {
+    if (value == EMPTY) {
+      return containsEmptyKey;
+    }
+    int slot = slot(value);
+    long current;
+    while ((current = keys[slot]) != EMPTY) {
+      if (current == value) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int slot(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    allocate(oldKeys.length << 1);
+    for (long key : oldKeys) {
+      if (key != EMPTY) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    //keep the load factor at or below one half
+    long required = Math.max(DEFAULT_EXPECTED_SIZE, (long) expectedSize * 2);
+    if (required > (1 << 30)) {
+      throw new IllegalArgumentException("Expected size too large : " + expectedSize);
+    }
+    return Integer.highestOneBit((int) required - 1) << 1;
+  }
+}
@@ -0,0 +1,156 @@
+package com.rabobank.nl.statementprocessor.util;
+
+/**
+ * Open addressing hash map from primitive long keys to non negative int values, avoids boxing
+ * both the key and the value. Not thread safe.
+ */
+public class LongIntHashMap {
+
+  /**
+   * Returned by lookups when the key is not present
+   */
+  public static final int NO_VALUE = -1;
+
+  private static final int DEFAULT_EXPECTED_SIZE = 16;
+  private static final long EMPTY = 0L;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  private int emptyKeyValue = NO_VALUE;
+
+  public LongIntHashMap() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * @param expectedSize - number of keys expected, used to size the table up front
+   */
+  public LongIntHashMap(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * @param key - key to look up
+   * @return the value mapped to the key or {@link #NO_VALUE}
+   */
+  public int get(long key) {
+    if (key == EMPTY) {
+      return emptyKeyValue;
+    }
+    int slot = slot(key);
+    long current;
+    while ((current = keys[slot]) != EMPTY) {
+      if (current == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Map the key to the value unless the key is already present
+   *
+   * @param key - key to add
+   * @param value - non negative value
+   * @return the value already mapped to the key or {@link #NO_VALUE} when the value was added
+   */
+  public int putIfAbsent(long key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative : " + value);
+    }
+    if (key == EMPTY) {
+      int existing = emptyKeyValue;
+      if (existing == NO_VALUE) {
+        emptyKeyValue = value;
+        size++;
+      }
+      return existing;
+    }
+    int slot = slot(key);
+    long current;
+    while ((current = keys[slot]) != EMPTY) {
+      if (current == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > (mask + 1) >>> 1) {
+      rehash();
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Map the key to the value, replacing the value already mapped to it
+   *
+   * @param key - key to add or replace the value of
+   * @param value - non negative value
+   * @return the value mapped to the key before or {@link #NO_VALUE} when the key was added
+   */
+  public int put(long key, int value) {
+    int existing = putIfAbsent(key, value);
+    if (existing == NO_VALUE || existing == value) {
+      return existing;
+    }
+    if (key == EMPTY) {
+      emptyKeyValue = value;
+      return existing;
+    }
+    int slot = slot(key);
+    while (keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    values[slot] = value;
+    return existing;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length << 1);
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != EMPTY) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    //keep the load factor at or below one half
+    long required = Math.max(DEFAULT_EXPECTED_SIZE, (long) expectedSize * 2);
+    if (required > (1 << 30)) {
+      throw new IllegalArgumentException("Expected size too large : " + expectedSize);
+    }
+    return Integer.highestOneBit((int) required - 1) << 1;
+  }
+}
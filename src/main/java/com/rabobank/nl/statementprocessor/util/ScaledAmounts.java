@@ -0,0 +1,113 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts as unscaled longs at a fixed number of decimals, e.g. 12.30 as 1230 at scale 2.
+ * Amounts with more decimals than the scale or too large for a long have no scaled value and are
+ * represented by {@link #NOT_SCALED}.
+ */
+public final class ScaledAmounts {
+
+  public static final long NOT_SCALED = Long.MIN_VALUE;
+  public static final int MAX_LONG_PRECISION = 18;
+
+  private static final long[] POWERS_OF_TEN = new long[MAX_LONG_PRECISION + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private ScaledAmounts() {
+  }
+
+  /**
+   * @param amount - amount to convert
+   * @param scale - number of decimals of the scaled value
+   * @return unscaled value of the amount at the scale or {@link #NOT_SCALED}
+   */
+  public static long toScaled(BigDecimal amount, int scale) {
+    int amountScale = amount.scale();
+    if (amountScale > scale || scale - amountScale > MAX_LONG_PRECISION
+        || amount.precision() > MAX_LONG_PRECISION) {
+      return NOT_SCALED;
+    }
+    //at scale zero longValue() returns the unscaled value as is, the short lived BigDecimal in
+    //between is removed by escape analysis while BigDecimal.unscaledValue() allocates a BigInteger
+    long unscaled = amount.scaleByPowerOfTen(amountScale).longValue();
+    return multiply(unscaled, scale - amountScale);
+  }
+
+  /**
+   * Parse a plain decimal number, without exponent and optionally signed, straight to its scaled
+   * value
+   *
+   * @param characters - characters holding the number
+   * @param offset - position of the first character of the number
+   * @param length - number of characters of the number
+   * @param scale - number of decimals of the scaled value
+   * @return unscaled value of the number at the scale or {@link #NOT_SCALED} when it has more
+   * decimals, is too large or is not a plain decimal number
+   */
+  public static long parseScaled(char[] characters, int offset, int length, int scale) {
+    int position = offset;
+    int end = offset + length;
+    boolean negative = position < end && characters[position] == '-';
+    if (negative || position < end && characters[position] == '+') {
+      position++;
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int decimals = -1;
+    for (; position < end; position++) {
+      char character = characters[position];
+      if (character == '.' && decimals < 0) {
+        decimals = 0;
+      } else if (character >= '0' && character <= '9') {
+        if (++digits > MAX_LONG_PRECISION) {
+          return NOT_SCALED;
+        }
+        unscaled = unscaled * 10 + (character - '0');
+        if (decimals >= 0) {
+          decimals++;
+        }
+      } else {
+        return NOT_SCALED;
+      }
+    }
+    decimals = Math.max(0, decimals);
+    if (digits == 0 || decimals > scale) {
+      return NOT_SCALED;
+    }
+    long scaled = multiply(unscaled, scale - decimals);
+    return negative && scaled != NOT_SCALED ? -scaled : scaled;
+  }
+
+  /**
+   * @param first - scaled amount, not {@link #NOT_SCALED}
+   * @param second - scaled amount at the same scale, not {@link #NOT_SCALED}
+   * @return sum of the amounts or {@link #NOT_SCALED} when it overflows
+   */
+  public static long add(long first, long second) {
+    long sum = first + second;
+    //the sum only overflowed when both operands have a sign different from the sum
+    if (((first ^ sum) & (second ^ sum)) < 0 || sum == NOT_SCALED) {
+      return NOT_SCALED;
+    }
+    return sum;
+  }
+
+  private static long multiply(long unscaled, int exponent) {
+    if (exponent > MAX_LONG_PRECISION) {
+      return NOT_SCALED;
+    }
+    long factor = POWERS_OF_TEN[exponent];
+    if (Math.abs(unscaled) > Long.MAX_VALUE / factor) {
+      return NOT_SCALED;
+    }
+    return unscaled * factor;
+  }
+}
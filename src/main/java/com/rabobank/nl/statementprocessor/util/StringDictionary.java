@@ -0,0 +1,174 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary of distinct strings, each encoded as a dense int code in order of first addition.
+ * Strings can be looked up straight from a char[] region, so a repeated value read by a parser
+ * reuses the instance of its first occurrence without allocating a String. Once the maximum size
+ * is reached new strings are no longer encoded. Not thread safe.
+ */
+public class StringDictionary {
+
+  /**
+   * Returned by {@link #encode} when the string is absent and the dictionary is full
+   */
+  public static final int NOT_ENCODED = -1;
+
+  private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+  private final int maxSize;
+  private String[] values;
+  private int[] hashes;
+  private int size;
+  //code + 1 of the string in every slot, 0 for an empty slot, null once trimmed
+  private int[] table;
+  private int mask;
+
+  /**
+   * @param maxSize - number of distinct strings from which new strings are not encoded
+   */
+  public StringDictionary(int maxSize) {
+    this.maxSize = maxSize;
+    this.values = new String[DEFAULT_EXPECTED_SIZE];
+    this.hashes = new int[DEFAULT_EXPECTED_SIZE];
+    allocate(DEFAULT_EXPECTED_SIZE * 2);
+  }
+
+  /**
+   * @param characters - characters holding the string
+   * @param offset - position of the first character
+   * @param length - number of characters
+   * @return the instance of the string in the dictionary, a new instance when the dictionary is
+   * full and doesn't hold the string
+   */
+  public String intern(char[] characters, int offset, int length) {
+    int code = encode(characters, offset, length);
+    return code == NOT_ENCODED ? new String(characters, offset, length) : values[code];
+  }
+
+  /**
+   * @param value - string to look up
+   * @return the instance of the string in the dictionary, the string itself when it was added or
+   * the dictionary is full
+   */
+  public String intern(String value) {
+    int code = encode(value);
+    return code == NOT_ENCODED ? value : values[code];
+  }
+
+  /**
+   * @param characters - characters holding the string
+   * @param offset - position of the first character
+   * @param length - number of characters
+   * @return code of the string, added when absent, or {@link #NOT_ENCODED} when the dictionary is
+   * full
+   */
+  public int encode(char[] characters, int offset, int length) {
+    //same hash as String.hashCode(), so lookups by String and by characters meet
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + characters[i];
+    }
+    int slot = slot(hash);
+    int entry;
+    while ((entry = table[slot]) != 0) {
+      if (hashes[entry - 1] == hash && matches(values[entry - 1], characters, offset, length)) {
+        return entry - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return add(slot, hash, new String(characters, offset, length));
+  }
+
+  /**
+   * @param value - string to look up
+   * @return code of the string, added when absent, or {@link #NOT_ENCODED} when the dictionary is
+   * full
+   */
+  public int encode(String value) {
+    int hash = value.hashCode();
+    int slot = slot(hash);
+    int entry;
+    while ((entry = table[slot]) != 0) {
+      if (hashes[entry - 1] == hash && values[entry - 1].equals(value)) {
+        return entry - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return add(slot, hash, value);
+  }
+
+  /**
+   * @param code - code returned by {@link #encode}
+   * @return the string of the code
+   */
+  public String get(int code) {
+    return values[code];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Release the memory only needed to add strings, the lookup table is rebuilt when a string is
+   * encoded afterwards
+   */
+  public void trimToSize() {
+    values = Arrays.copyOf(values, size);
+    hashes = Arrays.copyOf(hashes, size);
+    table = null;
+  }
+
+  private int add(int slot, int hash, String value) {
+    if (size >= maxSize) {
+      return NOT_ENCODED;
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.max(DEFAULT_EXPECTED_SIZE, size << 1));
+      hashes = Arrays.copyOf(hashes, values.length);
+    }
+    int code = size++;
+    values[code] = value;
+    hashes[code] = hash;
+    table[slot] = code + 1;
+    if (size > (mask + 1) >>> 1) {
+      allocate(table.length << 1);
+    }
+    return code;
+  }
+
+  private int slot(int hash) {
+    if (table == null) {
+      allocate(Integer.highestOneBit(Math.max(DEFAULT_EXPECTED_SIZE, size * 4) - 1) << 1);
+    }
+    //spread the high bits, the hash of similar strings mostly differs in the low bits
+    int spread = hash * 0x9E3779B9;
+    return (spread ^ (spread >>> 16)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    table = new int[capacity];
+    mask = capacity - 1;
+    for (int code = 0; code < size; code++) {
+      int slot = slot(hashes[code]);
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = code + 1;
+    }
+  }
+
+  private static boolean matches(String value, char[] characters, int offset, int length) {
+    if (value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) != characters[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,100 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates virtual threads when the application runs on Java 21 or later. The methods are looked
+ * up by reflection, so the application keeps building for and running on Java 8 with platform
+ * threads.
+ */
+@Slf4j
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_FACTORY;
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null;
+    Method builderName = null;
+    Method builderFactory = null;
+    Method newThreadPerTaskExecutor = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      builderName = builder.getMethod("name", String.class, long.class);
+      builderFactory = builder.getMethod("factory");
+      newThreadPerTaskExecutor = Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+    } catch (ReflectiveOperationException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_FACTORY = builderFactory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return true when the running Java version supports virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param prefix - prefix of the thread names, followed by a sequence number
+   * @return factory of virtual threads
+   * @throws UnsupportedOperationException when the running Java version has no virtual threads
+   */
+  public static ThreadFactory threadFactory(String prefix) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or later, running "
+          + System.getProperty("java.version"));
+    }
+    try {
+      Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+      return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Unable to create virtual thread factory", e);
+    }
+  }
+
+  /**
+   * @param prefix - prefix of the thread names, followed by a sequence number
+   * @param platformThreadFactory - used instead, with a warning, when the running Java version has
+   * no virtual threads
+   * @return factory of virtual threads, or the platform thread factory
+   */
+  public static ThreadFactory threadFactory(String prefix, ThreadFactory platformThreadFactory) {
+    if (!isSupported()) {
+      final String logMethod = "threadFactory(String, ThreadFactory):ThreadFactory Virtual threads require Java 21 or later, running %s, %s threads are platform threads";
+      log.warn(String.format(logMethod, System.getProperty("java.version"), prefix));
+      return platformThreadFactory;
+    }
+    return threadFactory(prefix);
+  }
+
+  /**
+   * @param prefix - prefix of the thread names, followed by a sequence number
+   * @return executor starting a new virtual thread for every task
+   * @throws UnsupportedOperationException when the running Java version has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+    ThreadFactory threadFactory = threadFactory(prefix);
+    try {
+      return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Unable to create virtual thread executor", e);
+    }
+  }
+}
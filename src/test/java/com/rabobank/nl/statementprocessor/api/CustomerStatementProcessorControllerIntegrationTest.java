@@ -1,19 +1,35 @@
 package com.rabobank.nl.statementprocessor.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecordPage;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob.JobStatus;
 import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementSession;
 import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -104,5 +120,496 @@ class CustomerStatementProcessorControllerIntegrationTest {
     assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
   }
 
+  @Test
+  void processStream_CustomerStatementThroughAllLayersSameResultAsProcess() throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(3l).accountNumber("789")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(-10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(-10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(2l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    String content = objectMapper.writeValueAsString(statementRecords);
+
+    //when
+    MvcResult expectedResult = mockMvc.perform(
+        post("/customerstatement/v1/process")
+            .contentType("application/json")
+            .content(content))
+        .andExpect(status().isOk())
+        .andReturn();
+    MvcResult mvcResult = mockMvc.perform(
+        post("/customerstatement/v2/process")
+            .contentType("application/json")
+            .content(content))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    String expectedResponseBody = expectedResult.getResponse().getContentAsString();
+
+    //Then
+    assertThat(actualResponseBody).contains(
+        StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void processStream_CustomerStatementThroughAllLayersWithJsonParsingException() throws Exception {
+    //Given
+    StatementResult statementResults = StatementResult.builder().build();
+    //when
+    MvcResult mvcResult = mockMvc.perform(
+        post("/customerstatement/v2/process")
+            .contentType("application/json")
+            .content(objectMapper.writeValueAsString(statementResults)))
+        .andExpect(status().isBadRequest())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result("BAD_REQUEST").errorRecords(Collections.emptyList()).build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void jobs_CustomerStatementThroughAllLayersAsynchronously() throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(-10)).endBalance(new BigDecimal(110)).build());
+
+    //when
+    MvcResult submitResult = mockMvc.perform(
+        post("/customerstatement/v1/jobs")
+            .contentType("application/json")
+            .content(objectMapper.writeValueAsString(statementRecords)))
+        .andExpect(status().isAccepted())
+        .andReturn();
+    StatementJob statementJob = objectMapper
+        .readValue(submitResult.getResponse().getContentAsString(), StatementJob.class);
+    String jobLocation = submitResult.getResponse().getHeader("Location");
+    for (int i = 0; i < 500 && statementJob.getStatus() != JobStatus.FINISHED; i++) {
+      Thread.sleep(10);
+      statementJob = objectMapper.readValue(mockMvc.perform(get(jobLocation))
+          .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(),
+          StatementJob.class);
+    }
+    MvcResult mvcResult = mockMvc.perform(get(jobLocation + "/result"))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.INCORRECT_END_BALANCE).errorRecords(Collections
+            .singletonList(ErrorRecord.builder().reference(1l).accountNumber("123").build()))
+        .build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(statementJob.getStatus()).isEqualTo(JobStatus.FINISHED);
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void sessions_CustomerStatementThroughAllLayersInChunks() throws Exception {
+    //Given
+    List<StatementRecord> firstChunk = new ArrayList<>();
+    firstChunk.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    List<StatementRecord> secondChunk = new ArrayList<>();
+    secondChunk.add(StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+
+    //when
+    MvcResult openResult = mockMvc.perform(post("/customerstatement/v1/sessions"))
+        .andExpect(status().isCreated())
+        .andReturn();
+    String sessionLocation = openResult.getResponse().getHeader("Location");
+    for (List<StatementRecord> chunk : Arrays.asList(firstChunk, secondChunk)) {
+      mockMvc.perform(post(sessionLocation + "/chunks")
+          .contentType("application/json")
+          .content(objectMapper.writeValueAsString(chunk)))
+          .andExpect(status().isOk());
+    }
+    StatementSession statementSession = objectMapper.readValue(mockMvc.perform(
+        get(sessionLocation)).andExpect(status().isOk()).andReturn().getResponse()
+        .getContentAsString(), StatementSession.class);
+    MvcResult mvcResult = mockMvc.perform(post(sessionLocation + "/close"))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(Collections
+            .singletonList(ErrorRecord.builder().reference(1l).accountNumber("123").build()))
+        .build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(statementSession.getChunks()).isEqualTo(2);
+    assertThat(statementSession.getRecords()).isEqualTo(2);
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+    mockMvc.perform(post(sessionLocation + "/close")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void jobs_UnknownJobNotFound() throws Exception {
+    //when
+    MvcResult mvcResult = mockMvc.perform(get("/customerstatement/v1/jobs/unknown/result"))
+        .andExpect(status().isNotFound())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result("NOT_FOUND").errorRecords(Collections.emptyList()).build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process", "/customerstatement/v2/process"})
+  void process_CustomerStatementThroughAllLayersInBinaryFormats(String path) throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal("100.25"))
+        .mutation(new BigDecimal("-10.10")).endBalance(new BigDecimal("90.15")).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    JsonNode expectedResponseBody = objectMapper.valueToTree(StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(Collections
+            .singletonList(ErrorRecord.builder().reference(1l).accountNumber("123").build()))
+        .build());
+
+    for (JsonFactory format : new JsonFactory[]{new SmileFactory(), new CBORFactory()}) {
+      ObjectMapper binaryMapper = new ObjectMapper(format);
+      String mediaType = format instanceof SmileFactory ? "application/x-jackson-smile"
+          : "application/cbor";
+
+      //when
+      MvcResult mvcResult = mockMvc.perform(
+          post(path)
+              .contentType(mediaType)
+              .content(binaryMapper.writeValueAsBytes(statementRecords)))
+          .andExpect(status().isOk())
+          .andReturn();
+      MvcResult jsonResult = mockMvc.perform(
+          post(path)
+              .contentType(mediaType)
+              .accept("application/json")
+              .content(binaryMapper.writeValueAsBytes(statementRecords)))
+          .andExpect(status().isOk())
+          .andReturn();
+
+      //Then
+      assertThat(mvcResult.getResponse().getContentType()).isEqualTo(mediaType);
+      assertThat(binaryMapper.readTree(mvcResult.getResponse().getContentAsByteArray())
+          .toString()).isEqualTo(expectedResponseBody.toString());
+      assertThat(jsonResult.getResponse().getContentType()).isEqualTo("application/json");
+      assertThat(objectMapper.readTree(jsonResult.getResponse().getContentAsString()).toString())
+          .isEqualTo(expectedResponseBody.toString());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process", "/customerstatement/v2/process"})
+  void process_CustomerStatementThroughAllLayersInTextFormats(String path) throws Exception {
+    //Given
+    String csv = "Reference,Account Number,Description,Start Balance,Mutation,End Balance\r\n"
+        + "1,123,\"Some, Description\",100.25,-10.10,90.15\r\n"
+        + "1,456,Some Description,100,+10,110\r\n";
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><records>"
+        + "<record reference=\"1\"><accountNumber>123</accountNumber>"
+        + "<startBalance>100.25</startBalance><mutation>-10.10</mutation>"
+        + "<endBalance>90.15</endBalance></record>"
+        + "<record><reference>1</reference><accountNumber>456</accountNumber>"
+        + "<description><![CDATA[Some & Description]]></description>"
+        + "<startBalance>100</startBalance><mutation>10</mutation>"
+        + "<endBalance>110</endBalance></record></records>";
+    String expectedResponseBody = objectMapper.writeValueAsString(StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(Collections
+            .singletonList(ErrorRecord.builder().reference(1l).accountNumber("123").build()))
+        .build());
+
+    //when
+    MvcResult csvResult = mockMvc.perform(
+        post(path)
+            .contentType("text/csv")
+            .content(csv))
+        .andExpect(status().isOk())
+        .andReturn();
+    MvcResult xmlResult = mockMvc.perform(
+        post(path)
+            .contentType("application/xml")
+            .content(xml))
+        .andExpect(status().isOk())
+        .andReturn();
+    MvcResult malformedResult = mockMvc.perform(
+        post(path)
+            .contentType("text/csv")
+            .content("Reference,Account Number\r\nnot a reference,123\r\n"))
+        .andExpect(status().isBadRequest())
+        .andReturn();
+
+    //Then
+    assertThat(csvResult.getResponse().getContentAsString())
+        .isEqualToIgnoringWhitespace(expectedResponseBody);
+    assertThat(xmlResult.getResponse().getContentAsString())
+        .isEqualToIgnoringWhitespace(expectedResponseBody);
+    assertThat(malformedResult.getResponse().getContentAsString()).contains("BAD_REQUEST");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process", "/customerstatement/v2/process"})
+  void process_CustomerStatementThroughAllLayersGzipCompressed(String path) throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 1000; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+      objectMapper.writeValue(outputStream, statementRecords);
+    }
+
+    //when
+    MvcResult mvcResult = mockMvc.perform(
+        post(path)
+            .contentType("application/json")
+            .header("Content-Encoding", "gzip")
+            .content(compressed.toByteArray()))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    String expectedResponseBody = objectMapper.writeValueAsString(StatementResult.builder()
+        .result(StatementValidationProcessor.SUCCESS).errorRecords(Collections.emptyList())
+        .build());
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process?mode=failFast",
+      "/customerstatement/v2/process?mode=failFast", "/customerstatement/v1/process?maxErrors=1",
+      "/customerstatement/v2/process?maxErrors=1"})
+  void process_CustomerStatementThroughAllLayersStopsAtFirstError(String path) throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 100; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(reference % 10 == 0 ? 11 : 10)).endBalance(new BigDecimal(110))
+          .build());
+    }
+
+    //when
+    MvcResult mvcResult = mockMvc.perform(
+        post(path)
+            .contentType("application/json")
+            .content(objectMapper.writeValueAsString(statementRecords)))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    String expectedResponseBody = objectMapper.writeValueAsString(StatementResult.builder()
+        .result(StatementValidationProcessor.INCORRECT_END_BALANCE)
+        .errorRecords(Collections.singletonList(
+            ErrorRecord.builder().reference(10L).accountNumber("123").build()))
+        .truncated(true).build());
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+    assertThat(actualResponseBody).contains("\"truncated\":true");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process?mode=lenient",
+      "/customerstatement/v2/process?maxErrors=0", "/customerstatement/v2/process?maxErrors=all",
+      "/customerstatement/v2/process?errorRecords=all"})
+  void process_CustomerStatementThroughAllLayersWithInvalidMode(String path) throws Exception {
+    //when
+    MvcResult mvcResult = mockMvc.perform(
+        post(path)
+            .contentType("application/json")
+            .content("[]"))
+        .andExpect(status().isBadRequest())
+        .andReturn();
+
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    String expectedResponseBody = objectMapper.writeValueAsString(StatementResult.builder()
+        .result("BAD_REQUEST").errorRecords(Collections.emptyList()).build());
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"application/json", "application/x-ndjson"})
+  void processStream_CustomerStatementThroughAllLayersStreamingErrorRecords(String accept)
+      throws Exception {
+    //Given
+    String content = objectMapper.writeValueAsString(invalidStatementRecords(100));
+
+    //when
+    MvcResult expectedResult = mockMvc.perform(
+        post("/customerstatement/v2/process")
+            .contentType("application/json")
+            .content(content))
+        .andExpect(status().isOk())
+        .andReturn();
+    MvcResult mvcResult = mockMvc.perform(
+        post("/customerstatement/v2/process?errorRecords=stream")
+            .contentType("application/json")
+            .accept(accept)
+            .content(content))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    StatementResult expectedStatementResult = objectMapper.readValue(
+        expectedResult.getResponse().getContentAsString(), StatementResult.class);
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    StatementResult actualStatementResult;
+    if (accept.equals("application/json")) {
+      actualStatementResult = objectMapper.readValue(actualResponseBody, StatementResult.class);
+    } else {
+      //an error record per line, the result on the last line
+      String[] lines = actualResponseBody.split("\n");
+      List<ErrorRecord> errorRecords = new ArrayList<>();
+      for (int i = 0; i < lines.length - 1; i++) {
+        errorRecords.add(objectMapper.readValue(lines[i], ErrorRecord.class));
+      }
+      actualStatementResult = objectMapper.readValue(lines[lines.length - 1],
+          StatementResult.class);
+      assertThat(actualStatementResult.getErrorRecords()).isEmpty();
+      actualStatementResult.setErrorRecords(errorRecords);
+    }
+
+    //Then
+    assertThat(mvcResult.getResponse().getContentType()).startsWith(accept);
+    assertThat(actualResponseBody).startsWith(accept.equals("application/json")
+        ? "{\"errorRecords\":[{" : "{\"reference\":10,");
+    assertThat(actualStatementResult.getErrorRecords()).hasSize(10);
+    assertThat(actualStatementResult).usingRecursiveComparison()
+        .isEqualTo(expectedStatementResult);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"application/json", "application/x-ndjson"})
+  void processStream_CustomerStatementThroughAllLayersStreamingErrorRecordsInvalidJson(
+      String accept) throws Exception {
+    //Given
+    String content = objectMapper.writeValueAsString(invalidStatementRecords(10));
+    String invalidAfterFirstError = content.substring(0, content.length() - 1) + ",{]";
+
+    //when
+    MvcResult invalidResult = mockMvc.perform(
+        post("/customerstatement/v2/process?errorRecords=stream")
+            .contentType("application/json")
+            .accept(accept)
+            .content("{}"))
+        .andExpect(status().isBadRequest())
+        .andReturn();
+    MvcResult invalidAfterFirstErrorResult = mockMvc.perform(
+        post("/customerstatement/v2/process?errorRecords=stream")
+            .contentType("application/json")
+            .accept(accept)
+            .content(invalidAfterFirstError))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    //Then
+    assertThat(invalidResult.getResponse().getContentAsString()).isEqualToIgnoringWhitespace(
+        objectMapper.writeValueAsString(StatementResult.builder().result("BAD_REQUEST")
+            .errorRecords(Collections.emptyList()).build()));
+    //the status went out with the first error record, the result tells the delivery is invalid
+    assertThat(invalidAfterFirstErrorResult.getResponse().getContentAsString())
+        .contains("{\"reference\":10,").contains("\"result\":\"BAD_REQUEST\"");
+  }
+
+  @Test
+  void processStream_CustomerStatementThroughAllLayersStoringErrorRecords() throws Exception {
+    //Given
+    String content = objectMapper.writeValueAsString(invalidStatementRecords(100));
+
+    //when
+    MvcResult mvcResult = mockMvc.perform(
+        post("/customerstatement/v2/process?errorRecords=store")
+            .contentType("application/json")
+            .content(content))
+        .andExpect(status().isOk())
+        .andReturn();
+    StatementResult statementResult = objectMapper
+        .readValue(mvcResult.getResponse().getContentAsString(), StatementResult.class);
+    List<ErrorRecord> errorRecords = new ArrayList<>();
+    String cursor = null;
+    do {
+      MvcResult pageResult = mockMvc.perform(
+          get("/customerstatement/v1/errorsets/" + statementResult.getErrorSetId())
+              .param("limit", "4")
+              .param("cursor", cursor))
+          .andExpect(status().isOk())
+          .andReturn();
+      ErrorRecordPage errorRecordPage = objectMapper
+          .readValue(pageResult.getResponse().getContentAsString(), ErrorRecordPage.class);
+      errorRecords.addAll(errorRecordPage.getErrorRecords());
+      cursor = errorRecordPage.getNextCursor();
+    } while (cursor != null);
+    MvcResult invalidCursorResult = mockMvc.perform(
+        get("/customerstatement/v1/errorsets/" + statementResult.getErrorSetId())
+            .param("cursor", "12345678"))
+        .andExpect(status().isBadRequest())
+        .andReturn();
+    MvcResult unknownResult = mockMvc.perform(
+        get("/customerstatement/v1/errorsets/unknown"))
+        .andExpect(status().isNotFound())
+        .andReturn();
+
+    //Then
+    assertThat(statementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.INCORRECT_END_BALANCE);
+    assertThat(statementResult.getErrorRecords()).isEmpty();
+    assertThat(errorRecords).extracting(ErrorRecord::getReference)
+        .containsExactly(10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L, 100L);
+    assertThat(errorRecords).extracting(ErrorRecord::getAccountNumber).containsOnly("123");
+    assertThat(invalidCursorResult.getResponse().getContentAsString()).contains("BAD_REQUEST");
+    assertThat(unknownResult.getResponse().getContentAsString()).contains("NOT_FOUND");
+  }
+
+  private static List<StatementRecord> invalidStatementRecords(int records) {
+    //every tenth record has an incorrect end balance
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= records; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(reference % 10 == 0 ? 11 : 10)).endBalance(new BigDecimal(110))
+          .build());
+    }
+    return statementRecords;
+  }
 
-}
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package com.rabobank.nl.statementprocessor.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -11,19 +15,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.ErrorRecordStore;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementResultCache;
+import com.rabobank.nl.statementprocessor.service.StatementValidation;
 import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
-@WebMvcTest(controllers = CustomerStatementProcessorController.class)
+@WebMvcTest(controllers = CustomerStatementProcessorController.class,
+    properties = "statement.upload.max-decompressed-size=1KB")
+@Import({StatementRecordReader.class, StatementResultCache.class, ErrorRecordStore.class,
+    SimpleMeterRegistry.class})
 class CustomerStatementProcessorControllerTest {
 
   @Autowired
@@ -32,9 +53,24 @@ class CustomerStatementProcessorControllerTest {
   @MockBean
   StatementValidationProcessor statementValidationProcessor;
 
+  @SpyBean
+  StatementRecordReader statementRecordReader;
+
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private StatementResultCache statementResultCache;
+
+  @BeforeEach
+  void setUp() {
+    //tests post the same deliveries with different mocked results
+    statementResultCache.clear();
+  }
+
   @Test
   void process_CustomerStatementHappy() throws Exception {
 
@@ -52,7 +88,7 @@ class CustomerStatementProcessorControllerTest {
     //When
     StatementResult statementResult = StatementResult.builder()
         .result(StatementValidationProcessor.SUCCESS).errorRecords(Collections.emptyList()).build();
-    when(statementValidationProcessor.validateStatementRecords(anyList())).thenReturn(
+    when(statementValidationProcessor.validateStatementBatch(any(), anyInt())).thenReturn(
         statementResult);
 
     MvcResult mvcResult = mockMvc.perform(
@@ -90,7 +126,7 @@ class CustomerStatementProcessorControllerTest {
     StatementResult statementResult = StatementResult.builder()
         .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(errorRecords)
         .build();
-    when(statementValidationProcessor.validateStatementRecords(anyList())).thenReturn(
+    when(statementValidationProcessor.validateStatementBatch(any(), anyInt())).thenReturn(
         statementResult);
 
     MvcResult mvcResult = mockMvc.perform(
@@ -128,7 +164,7 @@ class CustomerStatementProcessorControllerTest {
     StatementResult statementResult = StatementResult.builder()
         .result(StatementValidationProcessor.INCORRECT_END_BALANCE).errorRecords(errorRecords)
         .build();
-    when(statementValidationProcessor.validateStatementRecords(anyList())).thenReturn(
+    when(statementValidationProcessor.validateStatementBatch(any(), anyInt())).thenReturn(
         statementResult);
 
     MvcResult mvcResult = mockMvc.perform(
@@ -177,7 +213,7 @@ class CustomerStatementProcessorControllerTest {
     StatementResult statementResult = StatementResult.builder()
         .result(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE)
         .errorRecords(errorRecords).build();
-    when(statementValidationProcessor.validateStatementRecords(anyList())).thenReturn(
+    when(statementValidationProcessor.validateStatementBatch(any(), anyInt())).thenReturn(
         statementResult);
 
     MvcResult mvcResult = mockMvc.perform(
@@ -199,6 +235,7 @@ class CustomerStatementProcessorControllerTest {
 
     //Given
     StatementResult statementResults = StatementResult.builder().build();
+    double badRequests = meterRegistry.counter("statement.errors", "result", "BAD_REQUEST").count();
 
     //When
     MvcResult mvcResult = mockMvc.perform(
@@ -215,12 +252,16 @@ class CustomerStatementProcessorControllerTest {
 
     //Then
     assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+    assertThat(meterRegistry.counter("statement.errors", "result", "BAD_REQUEST").count())
+        .isEqualTo(badRequests + 1);
   }
 
   @Test
   void process_CustomerStatementOtherErrors() throws Exception {
 
     //Given
+    double serverErrors = meterRegistry
+        .counter("statement.errors", "result", "INTERNAL_SERVER_ERROR").count();
 
     //When
     MvcResult mvcResult = mockMvc.perform(
@@ -236,5 +277,78 @@ class CustomerStatementProcessorControllerTest {
 
     //Then
     assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+    assertThat(meterRegistry.counter("statement.errors", "result", "INTERNAL_SERVER_ERROR")
+        .count()).isEqualTo(serverErrors + 1);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/customerstatement/v1/process", "/customerstatement/v2/process"})
+  void process_CustomerStatementDecompressedSizeExceeded(String path) throws Exception {
+
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 100; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+      objectMapper.writeValue(outputStream, statementRecords);
+    }
+    when(statementValidationProcessor.newValidation(anyInt())).thenReturn(mock(StatementValidation.class));
+
+    //When
+    MvcResult mvcResult = mockMvc.perform(
+        post(path)
+            .contentType("application/json")
+            .header("Content-Encoding", "gzip")
+            .content(compressed.toByteArray()))
+        .andExpect(status().isPayloadTooLarge())
+        .andReturn();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result("PAYLOAD_TOO_LARGE").errorRecords(Collections.emptyList()).build();
+    String actualResponseBody = mvcResult.getResponse().getContentAsString();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(compressed.size()).isLessThan(1024);
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void process_CustomerStatementRetriedAnsweredFromCache() throws Exception {
+
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    StatementResult statementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.SUCCESS).errorRecords(Collections.emptyList()).build();
+    when(statementValidationProcessor.validateStatementBatch(any(), anyInt())).thenReturn(
+        statementResult);
+    double hits = meterRegistry.counter("statement.result-cache.requests", "result", "hit")
+        .count();
+
+    //When
+    String[] responseBodies = new String[2];
+    for (int i = 0; i < responseBodies.length; i++) {
+      responseBodies[i] = mockMvc.perform(
+          post("/customerstatement/v1/process")
+              .contentType("application/json")
+              .content(objectMapper.writeValueAsString(statementRecords)))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+    }
+
+    //Then
+    verify(statementValidationProcessor, times(1)).validateStatementBatch(any(), anyInt());
+    //answered before the delivery is parsed
+    verify(statementRecordReader, times(1)).readBatch(any(), any());
+    assertThat(responseBodies[1]).isEqualTo(responseBodies[0]);
+    assertThat(meterRegistry.counter("statement.result-cache.requests", "result", "hit").count())
+        .isEqualTo(hits + 1);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveStatementProcessorControllerIntegrationTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  void processStream_CustomerStatementThroughAllLayersHappyScenario() throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 10000; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    }
+
+    //when
+    String actualResponseBody = webTestClient.post().uri("/customerstatement/v2/process")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(objectMapper.writeValueAsString(statementRecords))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.SUCCESS).errorRecords(Collections.emptyList()).build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void processStream_CustomerStatementThroughAllLayersDuplicateReferenceAndIncorrectEndBalance()
+      throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(120)).build());
+
+    //when
+    String actualResponseBody = webTestClient.post()
+        .uri("/customerstatement/v2/process")
+        .contentType(StatementRecordReader.APPLICATION_SMILE)
+        .accept(MediaType.APPLICATION_JSON)
+        .bodyValue(new ObjectMapper(new SmileFactory()).writeValueAsBytes(statementRecords))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    StatementResult statementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE)
+        .errorRecords(Collections.singletonList(
+            ErrorRecord.builder().reference(1l).accountNumber("123").build())).build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void processStream_CustomerStatementThroughAllLayersWithJsonParsingException()
+      throws Exception {
+    //when
+    String actualResponseBody = webTestClient.post()
+        .uri("/customerstatement/v2/process")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("[{\"reference\":1,\"accountNumber\":")
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    StatementResult statementResult = StatementResult.builder().result("BAD_REQUEST")
+        .errorRecords(Collections.emptyList()).build();
+    String expectedResponseBody = objectMapper.writeValueAsString(statementResult);
+
+    //Then
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+}
@@ -0,0 +1,136 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabobank.nl.statementprocessor.exception.DecompressedSizeExceededException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ReadListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+class RequestDecompressionFilterTest {
+
+  private static final String BODY = "[" + String.join(",", Collections.nCopies(100,
+      "{\"reference\":1,\"accountNumber\":\"123\"}")) + "]";
+
+  /**
+   * Test a compressed body is read decompressed and the encoding headers are hidden
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"gzip", "deflate"})
+  void decompressesBody(String contentEncoding) throws Exception {
+    //given
+    RequestDecompressionFilter underTest = new RequestDecompressionFilter(DataSize.ofKilobytes(4));
+    MockHttpServletRequest request = compressedRequest(contentEncoding);
+    MockFilterChain filterChain = new MockFilterChain();
+
+    //when
+    underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+    HttpServletRequest filteredRequest = (HttpServletRequest) filterChain.getRequest();
+
+    //then
+    assertThat(new String(readFully(filteredRequest.getInputStream()), StandardCharsets.UTF_8))
+        .isEqualTo(BODY);
+    assertThat(filteredRequest.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(filteredRequest.getContentLengthLong()).isEqualTo(-1);
+    assertThat(Collections.list(filteredRequest.getHeaderNames()))
+        .doesNotContain(HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LENGTH);
+  }
+
+  /**
+   * Test reading fails once the decompressed body exceeds the maximum size
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"gzip", "deflate"})
+  void rejectsBodyInflatingBeyondMaximum(String contentEncoding) throws Exception {
+    //given
+    RequestDecompressionFilter underTest = new RequestDecompressionFilter(
+        DataSize.ofBytes(BODY.length() - 1));
+    MockFilterChain filterChain = new MockFilterChain();
+
+    //when
+    underTest.doFilter(compressedRequest(contentEncoding), new MockHttpServletResponse(),
+        filterChain);
+    InputStream inputStream = filterChain.getRequest().getInputStream();
+
+    //then
+    assertThatThrownBy(() -> readFully(inputStream))
+        .isInstanceOf(DecompressedSizeExceededException.class);
+  }
+
+  /**
+   * Test a non-blocking read of a compressed body is answered with 415 and reported to the read
+   * listener instead of failing in the container
+   */
+  @Test
+  void rejectsNonBlockingRead() throws Exception {
+    //given
+    RequestDecompressionFilter underTest = new RequestDecompressionFilter(DataSize.ofKilobytes(4));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+    List<Throwable> readErrors = new ArrayList<>();
+
+    //when
+    underTest.doFilter(compressedRequest("gzip"), response, filterChain);
+    filterChain.getRequest().getInputStream().setReadListener(new ReadListener() {
+      @Override
+      public void onDataAvailable() {
+      }
+
+      @Override
+      public void onAllDataRead() {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        readErrors.add(throwable);
+      }
+    });
+
+    //then
+    assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+    assertThat(response.getErrorMessage()).contains("can only be read blocking");
+    assertThat(readErrors).singleElement().isInstanceOf(IOException.class);
+  }
+
+  private static MockHttpServletRequest compressedRequest(String contentEncoding)
+      throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream outputStream = "gzip".equals(contentEncoding)
+        ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+      outputStream.write(BODY.getBytes(StandardCharsets.UTF_8));
+    }
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+    request.addHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+    request.setContent(compressed.toByteArray());
+    return request;
+  }
+
+  private static byte[] readFully(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buffer = new byte[512];
+    int read;
+    while ((read = inputStream.read(buffer)) >= 0) {
+      outputStream.write(buffer, 0, read);
+    }
+    return outputStream.toByteArray();
+  }
+}
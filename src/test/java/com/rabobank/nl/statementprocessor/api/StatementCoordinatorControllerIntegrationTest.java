@@ -0,0 +1,113 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.nl.statementprocessor.CustomerStatementProcessorApplication;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Coordinator spreading the shards of a delivery over two peers, all running in this process
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = "statement.shards.records-per-shard=3")
+class StatementCoordinatorControllerIntegrationTest {
+
+  private static final List<ConfigurableApplicationContext> peers = new ArrayList<>();
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @DynamicPropertySource
+  static void shardProperties(DynamicPropertyRegistry registry) {
+    for (int i = 0; i < 2; i++) {
+      peers.add(new SpringApplicationBuilder(CustomerStatementProcessorApplication.class)
+          .run("--server.port=0"));
+    }
+    registry.add("statement.shards.peers", () -> peers.stream()
+        .map(peer -> "http://localhost:"
+            + ((WebServerApplicationContext) peer).getWebServer().getPort())
+        .collect(Collectors.joining(",")));
+  }
+
+  @AfterAll
+  static void stopPeers() {
+    peers.forEach(ConfigurableApplicationContext::close);
+  }
+
+  @Test
+  void processSharded_CustomerStatementThroughAllLayersSameAsProcess() throws Exception {
+    //Given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 10; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference % 7)
+          .accountNumber("NL" + reference).description("Some Description")
+          .startBalance(new BigDecimal("100.10")).mutation(new BigDecimal("-0.10"))
+          .endBalance(new BigDecimal(reference == 5 ? 99 : 100)).build());
+    }
+    statementRecords.add(StatementRecord.builder().accountNumber("NL11")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    String delivery = objectMapper.writeValueAsString(statementRecords);
+
+    //when
+    String actualResponseBody = webTestClient.post().uri("/customerstatement/v1/process/sharded")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(delivery)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    String expectedResponseBody = webTestClient.post().uri("/customerstatement/v1/process")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(delivery)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    //Then
+    assertThat(objectMapper.readValue(actualResponseBody, StatementResult.class).getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
+  }
+
+  @Test
+  void processSharded_ShardRejectedByPeerBadGateway() {
+    //Given
+    String delivery = "[{\"reference\":1,\"accountNumber\":\"123\",\"startBalance\":100,"
+        + "\"mutation\":10,\"endBalance\":110},{\"reference\":\"two\"}]";
+
+    //when
+    String actualResponseBody = webTestClient.post().uri("/customerstatement/v1/process/sharded")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(delivery)
+        .exchange()
+        .expectStatus().isEqualTo(502)
+        .expectBody(String.class).returnResult().getResponseBody();
+
+    //Then
+    assertThat(actualResponseBody)
+        .isEqualToIgnoringWhitespace("{\"result\":\"BAD_GATEWAY\",\"errorRecords\":[]}");
+  }
+}
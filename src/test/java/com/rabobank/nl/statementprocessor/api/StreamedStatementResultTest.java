@@ -0,0 +1,67 @@
+package com.rabobank.nl.statementprocessor.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class StreamedStatementResultTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /**
+   * Test the first error record is sent before the delivery is validated, and later error
+   * records within the flush interval are buffered
+   */
+  @Test
+  void acceptSendsFirstErrorRecordRightAway() throws Exception {
+    //given
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    StreamedStatementResult underTest = new StreamedStatementResult(objectMapper, response, true);
+
+    //when
+    boolean startedBefore = underTest.isStarted();
+    underTest.accept(ErrorRecord.builder().reference(1L).accountNumber("123").build());
+    String sentAfterFirst = response.getContentAsString();
+    underTest.accept(ErrorRecord.builder().reference(2L).accountNumber("456").build());
+    String sentAfterSecond = response.getContentAsString();
+    underTest.complete(StatementResult.builder()
+        .result(StatementValidationProcessor.INCORRECT_END_BALANCE).truncated(true).build());
+
+    //then
+    assertThat(startedBefore).isFalse();
+    assertThat(underTest.isStarted()).isTrue();
+    assertThat(response.isCommitted()).isTrue();
+    assertThat(response.getContentType()).isEqualTo("application/x-ndjson");
+    assertThat(sentAfterFirst).isEqualTo("{\"reference\":1,\"accountNumber\":\"123\"}\n");
+    assertThat(sentAfterSecond).isEqualTo(sentAfterFirst);
+    assertThat(response.getContentAsString()).isEqualTo(sentAfterFirst
+        + "{\"reference\":2,\"accountNumber\":\"456\"}\n"
+        + "{\"result\":\"INCORRECT_END_BALANCE\",\"errorRecords\":[],\"truncated\":true}\n");
+  }
+
+  /**
+   * Test a delivery without error records is written as a result with an empty error records
+   * array, the result after the error records
+   */
+  @Test
+  void completeWithoutErrorRecords() throws Exception {
+    //given
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    StreamedStatementResult underTest = new StreamedStatementResult(objectMapper, response, false);
+
+    //when
+    underTest.complete(StatementResult.builder().result(StatementValidationProcessor.SUCCESS)
+        .errorRecords(Collections.emptyList()).build());
+
+    //then
+    assertThat(response.getContentType()).isEqualTo("application/json");
+    assertThat(response.getContentAsString())
+        .isEqualTo("{\"errorRecords\":[],\"result\":\"SUCCESS\"}");
+  }
+}
@@ -0,0 +1,43 @@
+package com.rabobank.nl.statementprocessor.api.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class DictionaryStringDeserializerTest {
+
+  private static final String STATEMENT_RECORD = "{\"reference\":1,\"accountNumber\":\"NL01\","
+      + "\"description\":\"Some Description\",\"startBalance\":1,\"mutation\":1,\"endBalance\":2}";
+
+  ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .modulesToInstall(new ParameterNamesModule()).build();
+
+  /**
+   * Test repeated strings of a delivery share one instance, only when the reader carries the
+   * dictionaries of the delivery
+   */
+  @Test
+  void deserializeSharesRepeatedStrings() throws IOException {
+    //given
+    ObjectReader deliveryReader = objectMapper.readerFor(StatementRecord.class).withAttribute(
+        DictionaryStringDeserializer.DICTIONARIES, DictionaryStringDeserializer.newDictionaries());
+    ObjectReader plainReader = objectMapper.readerFor(StatementRecord.class);
+
+    //when
+    StatementRecord first = deliveryReader.readValue(STATEMENT_RECORD);
+    StatementRecord second = deliveryReader.readValue(STATEMENT_RECORD);
+    StatementRecord plain = plainReader.readValue(STATEMENT_RECORD);
+
+    //then
+    assertThat(second.getAccountNumber()).isEqualTo("NL01").isSameAs(first.getAccountNumber());
+    assertThat(second.getDescription()).isSameAs(first.getDescription());
+    assertThat(plain.getAccountNumber()).isEqualTo("NL01").isNotSameAs(first.getAccountNumber());
+    assertThat(objectMapper.readValue("{\"accountNumber\":12}", StatementRecord.class)
+        .getAccountNumber()).isEqualTo("12");
+  }
+}
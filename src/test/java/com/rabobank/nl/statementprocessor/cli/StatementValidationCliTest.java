@@ -0,0 +1,106 @@
+package com.rabobank.nl.statementprocessor.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class StatementValidationCliTest {
+
+  private static final String DELIVERY = "[{\"reference\":1,\"accountNumber\":\"123\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110},"
+      + "{\"reference\":1,\"accountNumber\":\"456\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110}]";
+
+  @TempDir
+  Path directory;
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+  /**
+   * Test every file is validated in its format by extension, a result is written per file and the
+   * exit code is the one of the worst result
+   */
+  @Test
+  void runFiles() throws Exception {
+    //given
+    Path valid = Files.write(directory.resolve("valid.csv"), ("reference,startBalance,mutation,"
+        + "endBalance\n1,100,10,110\n").getBytes(StandardCharsets.UTF_8));
+    Path duplicate = Files.write(directory.resolve("duplicate.json"),
+        DELIVERY.getBytes(StandardCharsets.UTF_8));
+
+    //when
+    int exitCode = run(new ByteArrayInputStream(new byte[0]), valid.toString(),
+        duplicate.toString());
+
+    //then
+    assertThat(exitCode).isEqualTo(StatementValidationCli.EXIT_DUPLICATE_REFERENCE);
+    assertThat(output.toString("UTF-8").split("\\R")).containsExactly(
+        "{\"result\":\"SUCCESS\",\"errorRecords\":[]}",
+        "{\"result\":\"DUPLICATE_REFERENCE\",\"errorRecords\":[{\"reference\":1,"
+            + "\"accountNumber\":\"123\"}]}");
+  }
+
+  /**
+   * Test standard input is validated when no file is given, stopping at the error limit
+   */
+  @Test
+  void runStandardInput() throws Exception {
+    //when
+    int exitCode = run(new ByteArrayInputStream(DELIVERY.replace("110}", "111}")
+        .getBytes(StandardCharsets.UTF_8)), "--mode=failFast");
+
+    //then
+    assertThat(exitCode).isEqualTo(StatementValidationCli.EXIT_INCORRECT_END_BALANCE);
+    assertThat(output.toString("UTF-8")).contains("\"truncated\":true");
+  }
+
+  /**
+   * Test malformed deliveries and unreadable files are reported with their own exit code
+   */
+  @Test
+  void runFailedDeliveries() throws Exception {
+    //when
+    int malformed = run(new ByteArrayInputStream("[{".getBytes(StandardCharsets.UTF_8)), "-");
+    int missing = run(new ByteArrayInputStream(new byte[0]),
+        directory.resolve("missing.json").toString());
+
+    //then
+    assertThat(malformed).isEqualTo(StatementValidationCli.EXIT_BAD_REQUEST);
+    assertThat(missing).isEqualTo(StatementValidationCli.EXIT_UNREADABLE);
+    assertThat(output.toString("UTF-8")).contains("BAD_REQUEST", "INTERNAL_SERVER_ERROR");
+    assertThat(error.toString("UTF-8")).contains("missing.json");
+  }
+
+  /**
+   * Test invalid arguments are rejected with the usage before any delivery is read
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"--mode=unknown", "--max-errors=0", "--max-errors=many",
+      "--format=yaml", "--amount-scale=99", "--unknown"})
+  void runInvalidArguments(String argument) throws Exception {
+    //when
+    int exitCode = run(new ByteArrayInputStream(DELIVERY.getBytes(StandardCharsets.UTF_8)),
+        argument);
+
+    //then
+    assertThat(exitCode).isEqualTo(StatementValidationCli.EXIT_USAGE);
+    assertThat(output.size()).isZero();
+    assertThat(error.toString("UTF-8")).contains("Usage");
+  }
+
+  private int run(InputStream standardInput, String... args) {
+    return StatementValidationCli.run(args, standardInput, new PrintStream(output, true),
+        new PrintStream(error, true));
+  }
+}
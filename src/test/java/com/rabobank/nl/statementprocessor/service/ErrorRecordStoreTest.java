@@ -0,0 +1,133 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecordPage;
+import com.rabobank.nl.statementprocessor.exception.ErrorSetNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.InvalidPageRequestException;
+import com.rabobank.nl.statementprocessor.service.ErrorRecordStore.ErrorSetWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ErrorRecordStoreTest {
+
+  private final ErrorRecordStore underTest = new ErrorRecordStore(Duration.ofMinutes(5), 100);
+
+  @AfterEach
+  void tearDown() {
+    underTest.shutdown();
+  }
+
+  /**
+   * Test the error records of an error set are read back in order page by page, including
+   * records without reference or account number
+   */
+  @Test
+  void getPageReadsErrorRecordsWithCursor() throws Exception {
+    //given
+    List<ErrorRecord> errorRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 250; reference++) {
+      errorRecords.add(ErrorRecord.builder().reference(reference == 7 ? null : reference)
+          .accountNumber(reference == 9 ? null : "NL91RABO031527363" + reference % 10).build());
+    }
+    String errorSetId;
+    try (ErrorSetWriter errorSet = underTest.newErrorSet()) {
+      errorRecords.forEach(errorSet);
+      errorSetId = errorSet.store();
+    }
+
+    //when
+    List<ErrorRecordPage> pages = new ArrayList<>();
+    String cursor = null;
+    do {
+      ErrorRecordPage page = underTest.getPage(errorSetId, cursor, 100);
+      pages.add(page);
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+
+    //then
+    assertThat(pages).extracting(page -> page.getErrorRecords().size())
+        .containsExactly(100, 100, 50);
+    List<ErrorRecord> readErrorRecords = new ArrayList<>();
+    pages.forEach(page -> readErrorRecords.addAll(page.getErrorRecords()));
+    //error records are equal by reference only
+    assertThat(readErrorRecords).usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyElementsOf(errorRecords);
+  }
+
+  /**
+   * Test an error set without error records is not stored
+   */
+  @Test
+  void storeWithoutErrorRecords() throws Exception {
+    //when
+    String errorSetId;
+    try (ErrorSetWriter errorSet = underTest.newErrorSet()) {
+      errorSetId = errorSet.store();
+    }
+
+    //then
+    assertThat(errorSetId).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  /**
+   * Test cursors only work for the error set they were returned for and the limit is bounded
+   */
+  @Test
+  void getPageRejectsInvalidRequests() throws Exception {
+    //given
+    String[] errorSetIds = new String[2];
+    for (int i = 0; i < errorSetIds.length; i++) {
+      try (ErrorSetWriter errorSet = underTest.newErrorSet()) {
+        for (long reference = 1; reference <= 10; reference++) {
+          errorSet.accept(ErrorRecord.builder().reference(reference).accountNumber("123").build());
+        }
+        errorSetIds[i] = errorSet.store();
+      }
+    }
+    String cursor = underTest.getPage(errorSetIds[0], null, 5).getNextCursor();
+
+    //then
+    assertThat(underTest.getPage(errorSetIds[0], cursor, 5).getErrorRecords())
+        .extracting(ErrorRecord::getReference).containsExactly(6L, 7L, 8L, 9L, 10L);
+    assertThatThrownBy(() -> underTest.getPage(errorSetIds[1], cursor, 5))
+        .isInstanceOf(InvalidPageRequestException.class);
+    assertThatThrownBy(() -> underTest.getPage(errorSetIds[0], "not a cursor", 5))
+        .isInstanceOf(InvalidPageRequestException.class);
+    assertThatThrownBy(() -> underTest.getPage(errorSetIds[0], null, 101))
+        .isInstanceOf(InvalidPageRequestException.class);
+    assertThatThrownBy(() -> underTest.getPage("unknown", null, 5))
+        .isInstanceOf(ErrorSetNotFoundException.class);
+  }
+
+  /**
+   * Test error sets are evicted once their time to live has passed
+   */
+  @Test
+  void evictExpiredErrorSets() throws Exception {
+    //given
+    String errorSetId;
+    try (ErrorSetWriter errorSet = underTest.newErrorSet()) {
+      errorSet.accept(ErrorRecord.builder().reference(1L).accountNumber("123").build());
+      errorSetId = errorSet.store();
+    }
+
+    //when
+    underTest.evictExpiredErrorSets(Instant.now().plus(Duration.ofMinutes(4)));
+    ErrorRecordPage retainedPage = underTest.getPage(errorSetId, null, 10);
+    underTest.evictExpiredErrorSets(Instant.now().plus(Duration.ofMinutes(6)));
+
+    //then
+    assertThat(retainedPage.getErrorRecords()).hasSize(1);
+    assertThat(retainedPage.getNextCursor()).isNull();
+    assertThatThrownBy(() -> underTest.getPage(errorSetId, null, 10))
+        .isInstanceOf(ErrorSetNotFoundException.class);
+  }
+}
@@ -0,0 +1,203 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob;
+import com.rabobank.nl.statementprocessor.api.model.StatementJob.JobStatus;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.exception.JobNotFinishedException;
+import com.rabobank.nl.statementprocessor.exception.JobNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.JobRejectedException;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class StatementJobServiceTest {
+
+  private static final String DELIVERY = "[{\"reference\":1,\"accountNumber\":\"123\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110},"
+      + "{\"reference\":1,\"accountNumber\":\"456\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110}]";
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .modulesToInstall(new ParameterNamesModule()).build();
+  private final StatementValidationProcessor statementValidationProcessor =
+      StatementValidationProcessorBuilder.of(new DuplicateReferenceRule(), new EndBalanceRule())
+          .build();
+
+  private StatementJobService underTest;
+
+  @AfterEach
+  void tearDown() {
+    underTest.shutdown();
+  }
+
+  /**
+   * Test a submitted job is validated in the background and its result can be fetched
+   */
+  @Test
+  void submitValidatesDeliveryAsynchronously() throws Exception {
+    //given
+    underTest = new StatementJobService(statementValidationProcessor,
+        new StatementRecordReader(objectMapper), 1, 1, Duration.ofHours(1));
+
+    //when
+    StatementJob statementJob = underTest.submit(delivery());
+    StatementJob finishedJob = awaitFinished(statementJob.getJobId());
+
+    //then
+    assertThat(statementJob.getStatus()).isEqualTo(JobStatus.QUEUED);
+    assertThat(finishedJob.getStatus()).isEqualTo(JobStatus.FINISHED);
+    assertThat(finishedJob.getFinishedAt()).isNotNull();
+    StatementResult statementResult = underTest.getResult(statementJob.getJobId());
+    assertThat(statementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE);
+    assertThat(statementResult.getErrorRecords()).hasSize(1);
+  }
+
+  /**
+   * Test a delivery which is not a JSON array of records fails the job with a bad request result
+   */
+  @Test
+  void submitInvalidDeliveryFailsJob() throws Exception {
+    //given
+    underTest = new StatementJobService(statementValidationProcessor,
+        new StatementRecordReader(objectMapper), 1, 1, Duration.ofHours(1));
+
+    //when
+    StatementJob statementJob = underTest
+        .submit(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+    StatementJob finishedJob = awaitFinished(statementJob.getJobId());
+
+    //then
+    assertThat(finishedJob.getStatus()).isEqualTo(JobStatus.FAILED);
+    assertThat(underTest.getResult(statementJob.getJobId()).getResult()).isEqualTo("BAD_REQUEST");
+  }
+
+  /**
+   * Test jobs are rejected once the running and queued jobs reach the configured limits, and the
+   * result of an unfinished job can't be fetched yet
+   */
+  @Test
+  void submitRejectedWhenQueueFull() throws Exception {
+    //given
+    CountDownLatch validationStarted = new CountDownLatch(1);
+    CountDownLatch releaseValidation = new CountDownLatch(1);
+    StatementValidationProcessor blockingProcessor = mock(StatementValidationProcessor.class);
+    when(blockingProcessor.newValidation()).thenAnswer(invocation -> {
+      validationStarted.countDown();
+      releaseValidation.await();
+      return statementValidationProcessor.newValidation();
+    });
+    underTest = new StatementJobService(blockingProcessor,
+        new StatementRecordReader(objectMapper), 1, 1, Duration.ofHours(1));
+
+    //when
+    StatementJob runningJob = underTest.submit(delivery());
+    validationStarted.await();
+    StatementJob queuedJob = underTest.submit(delivery());
+
+    //then
+    assertThatThrownBy(() -> underTest.submit(delivery()))
+        .isInstanceOf(JobRejectedException.class);
+    assertThat(underTest.getJob(runningJob.getJobId()).getStatus()).isEqualTo(JobStatus.RUNNING);
+    assertThat(underTest.getJob(queuedJob.getJobId()).getStatus()).isEqualTo(JobStatus.QUEUED);
+    assertThatThrownBy(() -> underTest.getResult(queuedJob.getJobId()))
+        .isInstanceOf(JobNotFinishedException.class);
+    releaseValidation.countDown();
+    assertThat(awaitFinished(queuedJob.getJobId()).getStatus()).isEqualTo(JobStatus.FINISHED);
+  }
+
+  /**
+   * Test the deliveries of queued and running jobs are deleted on shutdown
+   */
+  @Test
+  void shutdownDeletesSpooledDeliveries() throws Exception {
+    //given
+    CountDownLatch validationStarted = new CountDownLatch(1);
+    StatementValidationProcessor blockingProcessor = mock(StatementValidationProcessor.class);
+    when(blockingProcessor.newValidation()).thenAnswer(invocation -> {
+      validationStarted.countDown();
+      new CountDownLatch(1).await();
+      return statementValidationProcessor.newValidation();
+    });
+    underTest = new StatementJobService(blockingProcessor,
+        new StatementRecordReader(objectMapper), 1, 1, Duration.ofHours(1));
+    long spooledBefore = spooledDeliveries();
+    underTest.submit(delivery());
+    validationStarted.await();
+    underTest.submit(delivery());
+    long spooled = spooledDeliveries();
+
+    //when
+    underTest.shutdown();
+    long spooledAfter = spooledDeliveries();
+    for (int i = 0; i < 500 && spooledAfter > spooledBefore; i++) {
+      Thread.sleep(10);
+      spooledAfter = spooledDeliveries();
+    }
+
+    //then
+    assertThat(spooled).isEqualTo(spooledBefore + 2);
+    assertThat(spooledAfter).isEqualTo(spooledBefore);
+  }
+
+  /**
+   * Test finished jobs are evicted once their time to live has passed
+   */
+  @Test
+  void evictExpiredJobs() throws Exception {
+    //given
+    underTest = new StatementJobService(statementValidationProcessor,
+        new StatementRecordReader(objectMapper), 1, 1, Duration.ofMinutes(5));
+    StatementJob statementJob = awaitFinished(underTest.submit(delivery()).getJobId());
+
+    //when
+    underTest.evictExpiredJobs(statementJob.getFinishedAt().plus(Duration.ofMinutes(4)));
+    StatementJob retainedJob = underTest.getJob(statementJob.getJobId());
+    underTest.evictExpiredJobs(Instant.now().plus(Duration.ofMinutes(6)));
+
+    //then
+    assertThat(retainedJob.getStatus()).isEqualTo(JobStatus.FINISHED);
+    assertThatThrownBy(() -> underTest.getJob(statementJob.getJobId()))
+        .isInstanceOf(JobNotFoundException.class);
+  }
+
+  private InputStream delivery() {
+    return new ByteArrayInputStream(DELIVERY.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long spooledDeliveries() throws IOException {
+    try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+      return files.filter(file -> file.getFileName().toString().startsWith("statement-job-"))
+          .count();
+    }
+  }
+
+  private StatementJob awaitFinished(String jobId) throws InterruptedException {
+    StatementJob statementJob = underTest.getJob(jobId);
+    for (int i = 0; i < 500 && statementJob.getFinishedAt() == null; i++) {
+      Thread.sleep(10);
+      statementJob = underTest.getJob(jobId);
+    }
+    return statementJob;
+  }
+}
@@ -0,0 +1,66 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class StatementMetricsTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  /**
+   * Test every delivery is recorded once with its records, its result code and the time spent
+   * per rule, both when validated sequentially and in parallel
+   */
+  @Test
+  void recordDeliveries() {
+    //given
+    StatementMetrics statementMetrics = new StatementMetrics(meterRegistry, 4);
+    StatementValidationProcessor sequentialProcessor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).metrics(statementMetrics).build();
+    StatementValidationProcessor parallelProcessor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).parallel(1, 4, 7)
+        .metrics(statementMetrics).build();
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 100; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    }
+    List<StatementRecord> invalidStatementRecords = new ArrayList<>(statementRecords);
+    invalidStatementRecords.add(statementRecords.get(0));
+
+    //when
+    sequentialProcessor.validateStatementRecords(statementRecords);
+    sequentialProcessor.validateStatementRecords(Collections.emptyList());
+    parallelProcessor.validateStatementRecords(invalidStatementRecords);
+    parallelProcessor.shutdown();
+
+    //then
+    DistributionSummary records = meterRegistry.get("statement.validation.records").summary();
+    assertThat(records.count()).isEqualTo(3);
+    assertThat(records.totalAmount()).isEqualTo(201);
+    assertThat(meterRegistry.get("statement.validation.results")
+        .tag("result", StatementValidationProcessor.SUCCESS).counter().count()).isEqualTo(2);
+    assertThat(meterRegistry.get("statement.validation.results")
+        .tag("result", StatementValidationProcessor.DUPLICATE_REFERENCE).counter().count())
+        .isEqualTo(1);
+    for (String rule : new String[]{"DuplicateReferenceRule", "EndBalanceRule"}) {
+      Timer ruleTimer = meterRegistry.get("statement.validation.rule").tag("rule", rule).timer();
+      assertThat(ruleTimer.count()).isEqualTo(2);
+      assertThat(ruleTimer.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.NO_ERROR_LIMIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+class StatementResultCacheTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  /**
+   * Test a delivery with the same content and error limit is answered with the cached result and
+   * counted as hit
+   */
+  @Test
+  void getReturnsResultOfSameContent() throws Exception {
+    //given
+    StatementResultCache underTest = new StatementResultCache(10, 1000, Duration.ofMinutes(1),
+        meterRegistry);
+    StatementResult statementResult = result(StatementValidationProcessor.SUCCESS);
+    byte[] digest = digest("[{\"reference\":1}]");
+
+    //when
+    StatementResult missed = underTest.get(digest, APPLICATION_JSON, NO_ERROR_LIMIT);
+    underTest.put(digest, APPLICATION_JSON, NO_ERROR_LIMIT, statementResult);
+    StatementResult hit = underTest.get(digest("[{\"reference\":1}]"), APPLICATION_JSON,
+        NO_ERROR_LIMIT);
+    StatementResult other = underTest.get(digest("[{\"reference\":2}]"), APPLICATION_JSON,
+        NO_ERROR_LIMIT);
+    StatementResult otherErrorLimit = underTest.get(digest, APPLICATION_JSON, 1);
+    StatementResult otherContentType = underTest.get(digest, MediaType.valueOf("text/csv"),
+        NO_ERROR_LIMIT);
+
+    //then
+    assertThat(missed).isNull();
+    assertThat(hit).isEqualTo(statementResult);
+    assertThat(other).isNull();
+    assertThat(otherErrorLimit).isNull();
+    assertThat(otherContentType).isNull();
+    assertThat(meterRegistry.counter("statement.result-cache.requests", "result", "hit").count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.counter("statement.result-cache.requests", "result", "miss").count())
+        .isEqualTo(4);
+    assertThat(meterRegistry.get("statement.result-cache.size").gauge().value()).isEqualTo(1);
+  }
+
+  /**
+   * Test the least recently used result is evicted beyond the maximum number of entries
+   */
+  @Test
+  void putEvictsLeastRecentlyUsed() {
+    //given
+    StatementResultCache underTest = new StatementResultCache(2, 1000, Duration.ofMinutes(1),
+        meterRegistry);
+    byte[] first = {1};
+    byte[] second = {2};
+    byte[] third = {3};
+
+    //when
+    underTest.put(first, APPLICATION_JSON, NO_ERROR_LIMIT, result("FIRST"));
+    underTest.put(second, APPLICATION_JSON, NO_ERROR_LIMIT, result("SECOND"));
+    underTest.get(first, APPLICATION_JSON, NO_ERROR_LIMIT);
+    underTest.put(third, APPLICATION_JSON, NO_ERROR_LIMIT, result("THIRD"));
+
+    //then
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(underTest.get(first, APPLICATION_JSON, NO_ERROR_LIMIT).getResult())
+        .isEqualTo("FIRST");
+    assertThat(underTest.get(second, APPLICATION_JSON, NO_ERROR_LIMIT)).isNull();
+    assertThat(underTest.get(third, APPLICATION_JSON, NO_ERROR_LIMIT).getResult())
+        .isEqualTo("THIRD");
+  }
+
+  /**
+   * Test an expired result is not returned and a disabled cache keeps nothing
+   */
+  @Test
+  void getIgnoresExpiredResults() throws Exception {
+    //given
+    StatementResultCache expiring = new StatementResultCache(10, 1000, Duration.ofMillis(1),
+        meterRegistry);
+    StatementResultCache disabled = new StatementResultCache(0, 1000, Duration.ofMinutes(1),
+        meterRegistry);
+    byte[] digest = {1};
+
+    //when
+    expiring.put(digest, APPLICATION_JSON, NO_ERROR_LIMIT,
+        result(StatementValidationProcessor.SUCCESS));
+    disabled.put(digest, APPLICATION_JSON, NO_ERROR_LIMIT,
+        result(StatementValidationProcessor.SUCCESS));
+    Thread.sleep(5);
+
+    //then
+    assertThat(expiring.get(digest, APPLICATION_JSON, NO_ERROR_LIMIT)).isNull();
+    assertThat(expiring.size()).isZero();
+    assertThat(disabled.get(digest, APPLICATION_JSON, NO_ERROR_LIMIT)).isNull();
+    assertThat(disabled.size()).isZero();
+  }
+
+  /**
+   * Test least recently used results are evicted beyond the maximum number of error records and a
+   * result with more error records is not cached
+   */
+  @Test
+  void putEvictsBeyondMaxErrorRecords() {
+    //given
+    StatementResultCache underTest = new StatementResultCache(10, 5, Duration.ofMinutes(1),
+        meterRegistry);
+    byte[] first = {1};
+    byte[] second = {2};
+    byte[] third = {3};
+
+    //when
+    underTest.put(first, APPLICATION_JSON, NO_ERROR_LIMIT, result(2));
+    underTest.put(second, APPLICATION_JSON, NO_ERROR_LIMIT, result(3));
+    underTest.put(third, APPLICATION_JSON, NO_ERROR_LIMIT, result(6));
+    underTest.put(third, APPLICATION_JSON, NO_ERROR_LIMIT, result(1));
+
+    //then
+    assertThat(underTest.get(first, APPLICATION_JSON, NO_ERROR_LIMIT)).isNull();
+    assertThat(underTest.get(second, APPLICATION_JSON, NO_ERROR_LIMIT).getErrorRecords())
+        .hasSize(3);
+    assertThat(underTest.get(third, APPLICATION_JSON, NO_ERROR_LIMIT).getErrorRecords())
+        .hasSize(1);
+    assertThat(underTest.errorRecords()).isEqualTo(4);
+    assertThat(meterRegistry.get("statement.result-cache.error-records").gauge().value())
+        .isEqualTo(4);
+  }
+
+  /**
+   * Test a result changed after it was cached or after it was returned leaves the cached result
+   * alone, and its error records can't be changed
+   */
+  @Test
+  void getReturnsCopyOfCachedResult() {
+    //given
+    StatementResultCache underTest = new StatementResultCache(10, 1000, Duration.ofMinutes(1),
+        meterRegistry);
+    StatementResult statementResult = result(2);
+    byte[] digest = {1};
+
+    //when
+    underTest.put(digest, APPLICATION_JSON, NO_ERROR_LIMIT, statementResult);
+    statementResult.getErrorRecords().clear();
+    StatementResult hit = underTest.get(digest, APPLICATION_JSON, NO_ERROR_LIMIT);
+    hit.setErrorSetId("changed");
+    hit.setResult(StatementValidationProcessor.SUCCESS);
+    StatementResult secondHit = underTest.get(digest, APPLICATION_JSON, NO_ERROR_LIMIT);
+
+    //then
+    assertThat(secondHit).isNotSameAs(hit);
+    assertThat(secondHit.getResult()).isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE);
+    assertThat(secondHit.getErrorSetId()).isNull();
+    assertThat(secondHit.getErrorRecords()).hasSize(2);
+    assertThatThrownBy(() -> secondHit.getErrorRecords().clear())
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  private static byte[] digest(String delivery) throws IOException {
+    DigestInputStream inputStream = StatementResultCache
+        .digesting(new ByteArrayInputStream(delivery.getBytes(StandardCharsets.UTF_8)));
+    byte[] buffer = new byte[4];
+    int read;
+    int length = 0;
+    while ((read = inputStream.read(buffer)) >= 0) {
+      length += read;
+    }
+    assertThat(length).isEqualTo(delivery.length());
+    return inputStream.getMessageDigest().digest();
+  }
+
+  private static StatementResult result(int errorRecords) {
+    List<ErrorRecord> records = new ArrayList<>();
+    for (long reference = 1; reference <= errorRecords; reference++) {
+      records.add(ErrorRecord.builder().reference(reference).accountNumber("123").build());
+    }
+    return StatementResult.builder().result(StatementValidationProcessor.DUPLICATE_REFERENCE)
+        .errorRecords(records).build();
+  }
+
+  private static StatementResult result(String result) {
+    return StatementResult.builder().result(result).errorRecords(Collections.emptyList()).build();
+  }
+}
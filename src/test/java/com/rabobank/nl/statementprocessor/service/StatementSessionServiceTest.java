@@ -0,0 +1,123 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.api.model.StatementSession;
+import com.rabobank.nl.statementprocessor.exception.SessionNotFoundException;
+import com.rabobank.nl.statementprocessor.exception.SessionRejectedException;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class StatementSessionServiceTest {
+
+  private static final String FIRST_CHUNK = "[{\"reference\":1,\"accountNumber\":\"123\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110},"
+      + "{\"reference\":2,\"accountNumber\":\"456\","
+      + "\"startBalance\":100,\"mutation\":11,\"description\":\"Some Description\",\"endBalance\":110}]";
+  private static final String SECOND_CHUNK = "[{\"reference\":1,\"accountNumber\":\"789\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110}]";
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .modulesToInstall(new ParameterNamesModule()).build();
+  private final StatementValidationProcessor statementValidationProcessor =
+      StatementValidationProcessorBuilder.of(new DuplicateReferenceRule(), new EndBalanceRule())
+          .build();
+
+  private StatementSessionService underTest = new StatementSessionService(
+      statementValidationProcessor, new StatementRecordReader(objectMapper), 2,
+      Duration.ofMinutes(5));
+
+  @AfterEach
+  void tearDown() {
+    underTest.shutdown();
+  }
+
+  /**
+   * Test the chunks of a session give the result of the whole delivery, including duplicate
+   * references across chunks, and a chunk that can't be read leaves the session as it was
+   */
+  @Test
+  void closeValidatesAllChunks() throws Exception {
+    //given
+    String sessionId = underTest.open(StatementValidationProcessor.NO_ERROR_LIMIT)
+        .getSessionId();
+    underTest.append(sessionId, chunk(FIRST_CHUNK), MediaType.APPLICATION_JSON);
+
+    //when
+    assertThatThrownBy(() -> underTest.append(sessionId,
+        chunk("[{\"reference\":3},{\"reference\":\"three\"}]"), MediaType.APPLICATION_JSON))
+        .isInstanceOf(JsonProcessingException.class);
+    StatementSession statementSession = underTest
+        .append(sessionId, chunk(SECOND_CHUNK), MediaType.APPLICATION_JSON);
+    StatementResult statementResult = underTest.close(sessionId);
+
+    //then
+    assertThat(statementSession.getChunks()).isEqualTo(2);
+    assertThat(statementSession.getRecords()).isEqualTo(3);
+    assertThat(statementSession.getLastChunkAt()).isNotNull();
+    assertThat(statementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    assertThat(statementResult.getErrorRecords()).containsExactly(
+        ErrorRecord.builder().reference(1L).accountNumber("123").build(),
+        ErrorRecord.builder().reference(2L).accountNumber("456").build());
+    assertThatThrownBy(() -> underTest.close(sessionId))
+        .isInstanceOf(SessionNotFoundException.class);
+    assertThat(underTest.openSessions()).isZero();
+  }
+
+  /**
+   * Test sessions are rejected once the maximum of open sessions is reached
+   */
+  @Test
+  void openRejectedWhenMaximumReached() {
+    //given
+    underTest.open(1);
+    underTest.open(1);
+
+    //when / then
+    assertThatThrownBy(() -> underTest.open(1)).isInstanceOf(SessionRejectedException.class);
+  }
+
+  /**
+   * Test sessions without a chunk for the idle timeout are evicted
+   */
+  @Test
+  void evictIdleSessions() throws Exception {
+    //given
+    StatementSession statementSession = underTest.open(1);
+    underTest.append(statementSession.getSessionId(), chunk(FIRST_CHUNK),
+        MediaType.APPLICATION_JSON);
+
+    //when
+    underTest.evictIdleSessions(Instant.now().plus(Duration.ofMinutes(4)));
+    StatementSession retainedSession = underTest.getSession(statementSession.getSessionId());
+    underTest.evictIdleSessions(Instant.now().plus(Duration.ofMinutes(6)));
+
+    //then
+    assertThat(retainedSession.getRecords()).isEqualTo(2);
+    assertThatThrownBy(() -> underTest.getSession(statementSession.getSessionId()))
+        .isInstanceOf(SessionNotFoundException.class);
+    assertThatThrownBy(() -> underTest.append(statementSession.getSessionId(),
+        chunk(SECOND_CHUNK), MediaType.APPLICATION_JSON))
+        .isInstanceOf(SessionNotFoundException.class);
+  }
+
+  private InputStream chunk(String statementRecords) {
+    return new ByteArrayInputStream(statementRecords.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,84 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DEFAULT_ERROR_SAMPLES;
+import static com.rabobank.nl.statementprocessor.service.StatementValidationProcessor.DEFAULT_ERROR_SAMPLE_RATE;
+
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates processors outside of Spring with the defaults of the application properties, validating
+ * sequentially and metering into a registry of their own unless configured otherwise.
+ */
+public class StatementValidationProcessorBuilder {
+
+  private final List<StatementRule> statementRules;
+  private int parallelThreshold;
+  private int parallelism;
+  private int parallelChunkSize;
+  private int errorSamples = DEFAULT_ERROR_SAMPLES;
+  private int errorSampleRate = DEFAULT_ERROR_SAMPLE_RATE;
+  private StatementMetrics statementMetrics;
+
+  private StatementValidationProcessorBuilder(List<StatementRule> statementRules) {
+    this.statementRules = statementRules;
+  }
+
+  /**
+   * @param statementRules - rules every record is validated against, in order of the result codes
+   * @return builder of a processor validating against the rules
+   */
+  public static StatementValidationProcessorBuilder of(StatementRule... statementRules) {
+    return of(Arrays.asList(statementRules));
+  }
+
+  /**
+   * @param statementRules - rules every record is validated against, in order of the result codes
+   * @return builder of a processor validating against the rules
+   */
+  public static StatementValidationProcessorBuilder of(List<StatementRule> statementRules) {
+    return new StatementValidationProcessorBuilder(statementRules);
+  }
+
+  /**
+   * @param parallelThreshold - number of records from which a delivery is validated in parallel
+   * @param parallelism - number of threads of the validation pool, 0 for one per processor
+   * @param parallelChunkSize - maximum number of records validated by one parallel task
+   * @return this builder
+   */
+  public StatementValidationProcessorBuilder parallel(int parallelThreshold, int parallelism,
+      int parallelChunkSize) {
+    this.parallelThreshold = parallelThreshold;
+    this.parallelism = parallelism;
+    this.parallelChunkSize = parallelChunkSize;
+    return this;
+  }
+
+  /**
+   * @param errorSamples - number of error records included in the summary logged per delivery
+   * @param errorSampleRate - one in this many error records is logged on its own
+   * @return this builder
+   */
+  public StatementValidationProcessorBuilder errorSamples(int errorSamples, int errorSampleRate) {
+    this.errorSamples = errorSamples;
+    this.errorSampleRate = errorSampleRate;
+    return this;
+  }
+
+  /**
+   * @param statementMetrics - meters every validated delivery is recorded in
+   * @return this builder
+   */
+  public StatementValidationProcessorBuilder metrics(StatementMetrics statementMetrics) {
+    this.statementMetrics = statementMetrics;
+    return this;
+  }
+
+  public StatementValidationProcessor build() {
+    return new StatementValidationProcessor(statementRules, parallelThreshold, parallelism,
+        parallelChunkSize, errorSamples, errorSampleRate, statementMetrics != null
+            ? statementMetrics : new StatementMetrics(new SimpleMeterRegistry()));
+  }
+}
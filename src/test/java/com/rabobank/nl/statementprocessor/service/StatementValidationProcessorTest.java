@@ -1,24 +1,40 @@
 package com.rabobank.nl.statementprocessor.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.PartialStatementResult;
 import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
 import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.batch.StatementBatch;
+import com.rabobank.nl.statementprocessor.service.index.ReferenceIndex;
+import com.rabobank.nl.statementprocessor.service.rule.DeliveredReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import com.rabobank.nl.statementprocessor.service.rule.RuleEvaluation;
+import com.rabobank.nl.statementprocessor.service.rule.StatementRule;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
-@ExtendWith(MockitoExtension.class)
 class StatementValidationProcessorTest {
 
-  @InjectMocks
-  StatementValidationProcessor underTest;
+  StatementValidationProcessor underTest = StatementValidationProcessorBuilder
+      .of(new DuplicateReferenceRule(), new EndBalanceRule()).build();
 
   /**
    * Test validation of multiple statement records with unique reference and correct end balance
@@ -154,4 +170,434 @@ class StatementValidationProcessorTest {
     assertThat(actualStatementResult).isNotNull();
     assertThat(actualStatementResult).isEqualTo(expectedStatementResult);
   }
-}
\ No newline at end of file
+
+  /**
+   * Test error records are listed as the original two pass validation listed them, every
+   * duplicate reference in order of its first record before every other incorrect end balance,
+   * also when a reference shows an incorrect end balance before it shows up again
+   */
+  @Test
+  void validateStatementRecordsListsErrorsInOriginalOrder() {
+    //given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(record(1l, "111", 10));
+    statementRecords.add(record(5l, "555", -10));
+    statementRecords.add(record(2l, "222", -10));
+    statementRecords.add(record(3l, "333", 10));
+    statementRecords.add(record(3l, "334", 10));
+    statementRecords.add(record(4l, "444", -10));
+    statementRecords.add(record(1l, "112", 10));
+    statementRecords.add(record(5l, "556", 10));
+
+    //when
+    StatementResult actualStatementResult = underTest.validateStatementRecords(statementRecords);
+    List<ErrorRecord> streamedErrorRecords = new ArrayList<>();
+    StatementValidation streamedValidation = underTest
+        .newValidation(StatementValidationProcessor.NO_ERROR_LIMIT, streamedErrorRecords::add);
+    statementRecords.forEach(streamedValidation::accept);
+
+    //then
+    assertThat(actualStatementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    assertThat(actualStatementResult.getErrorRecords())
+        .extracting(ErrorRecord::getReference, ErrorRecord::getAccountNumber)
+        .containsExactly(tuple(1l, "111"), tuple(5l, "555"), tuple(3l, "333"),
+            tuple(2l, "222"), tuple(4l, "444"));
+    //handed over as they are found
+    assertThat(streamedErrorRecords)
+        .extracting(ErrorRecord::getReference, ErrorRecord::getAccountNumber)
+        .containsExactly(tuple(5l, "555"), tuple(2l, "222"), tuple(3l, "333"),
+            tuple(4l, "444"), tuple(1l, "111"));
+  }
+
+  /**
+   * Test duplicate reference detection stays linear and keeps the first occurring record for
+   * one million statement records
+   */
+  @Test
+  @Timeout(30)
+  void validateStatementRecordsDuplicateReferencesOneMillionRecords() {
+    //given
+    BigDecimal startBalance = new BigDecimal(100);
+    BigDecimal mutation = new BigDecimal(10);
+    BigDecimal endBalance = new BigDecimal(110);
+    List<StatementRecord> statementRecords = new ArrayList<>(1_000_000);
+    List<ErrorRecord> errorRecords = new ArrayList<>();
+    for (int i = 0; i < 1_000_000; i++) {
+      long reference = i;
+      if (i % 10_000 == 9_999) {
+        //repeat the reference of the first record of this block
+        reference = i - 9_999;
+        errorRecords.add(ErrorRecord.builder().reference(reference)
+            .accountNumber("NL" + (i - 9_999)).build());
+      }
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("NL" + i)
+          .description("Some Description").startBalance(startBalance)
+          .mutation(mutation).endBalance(endBalance).build());
+    }
+
+    //when
+    StatementResult actualStatementResult = underTest.validateStatementRecords(statementRecords);
+
+    //then
+    assertThat(actualStatementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE);
+    assertThat(actualStatementResult.getErrorRecords()).hasSize(100);
+    assertThat(actualStatementResult.getErrorRecords()).containsExactlyElementsOf(errorRecords);
+    assertThat(actualStatementResult.getErrorRecords())
+        .extracting(ErrorRecord::getAccountNumber)
+        .containsExactlyElementsOf(errorRecords.stream().map(ErrorRecord::getAccountNumber)
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Test an additional rule takes part in the same pass, errors are reported in order of the
+   * records once per reference and the result codes are combined in rule order
+   */
+  @Test
+  void validateStatementRecordsAdditionalRule() {
+    //given
+    StatementRule negativeEndBalanceRule = new StatementRule() {
+      @Override
+      public String getResultCode() {
+        return "NEGATIVE_END_BALANCE";
+      }
+
+      @Override
+      public RuleEvaluation newEvaluation(int expectedRecords) {
+        return statementRecord -> statementRecord.getEndBalance().signum() < 0
+            ? ErrorRecord.builder().reference(statementRecord.getReference())
+            .accountNumber(statementRecord.getAccountNumber()).build() : null;
+      }
+    };
+    StatementValidationProcessor processor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule(), negativeEndBalanceRule).build();
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    statementRecords.add(StatementRecord.builder().reference(3l).accountNumber("789")
+        .description("Some Description").startBalance(new BigDecimal(-100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(-90)).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(3l).accountNumber("789")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+
+    //when
+    StatementResult actualStatementResult = processor.validateStatementRecords(statementRecords);
+
+    List<ErrorRecord> errorRecords = new ArrayList<>();
+    errorRecords.add(ErrorRecord.builder().reference(3l).accountNumber("789").build());
+    errorRecords.add(ErrorRecord.builder().reference(1l).accountNumber("123").build());
+
+    StatementResult expectedStatementResult = StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE + "_NEGATIVE_END_BALANCE")
+        .errorRecords(errorRecords).build();
+
+    //then
+    assertThat(actualStatementResult).isEqualTo(expectedStatementResult);
+  }
+
+  /**
+   * Test validation stops once the maximum number of error records is reported, also when the
+   * delivery would be validated in parallel, and the result is marked truncated
+   */
+  @Test
+  void validateStatementRecordsStopsAtErrorLimit() {
+    //given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    long[] references = {1, 2, 3, 3, 5};
+    int[] mutations = {10, 11, 10, 10, 11};
+    for (int i = 0; i < references.length; i++) {
+      statementRecords.add(StatementRecord.builder().reference(references[i])
+          .accountNumber("NL" + i).description("Some Description")
+          .startBalance(new BigDecimal(100)).mutation(new BigDecimal(mutations[i]))
+          .endBalance(new BigDecimal(110)).build());
+    }
+    StatementValidationProcessor parallelProcessor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).parallel(1, 4, 1).build();
+
+    //when
+    StatementResult failFastResult = underTest.validateStatementRecords(statementRecords, 1);
+    StatementResult limitedResult = parallelProcessor.validateStatementRecords(statementRecords, 2);
+    StatementResult completeResult = underTest.validateStatementRecords(statementRecords, 10);
+    parallelProcessor.shutdown();
+
+    //then
+    assertThat(failFastResult.getResult())
+        .isEqualTo(StatementValidationProcessor.INCORRECT_END_BALANCE);
+    assertThat(failFastResult.getErrorRecords()).extracting(ErrorRecord::getReference)
+        .containsExactly(2L);
+    assertThat(failFastResult.isTruncated()).isTrue();
+    assertThat(limitedResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    //the errors found before the limit are listed as always, duplicate references first
+    assertThat(limitedResult.getErrorRecords()).extracting(ErrorRecord::getReference)
+        .containsExactly(3L, 2L);
+    assertThat(limitedResult.isTruncated()).isTrue();
+    assertThat(completeResult.getErrorRecords()).extracting(ErrorRecord::getReference)
+        .containsExactly(3L, 2L, 5L);
+    assertThat(completeResult.isTruncated()).isFalse();
+  }
+
+  /**
+   * Test an incremental validation ignores records offered after the error limit is reached
+   */
+  @Test
+  void newValidationIgnoresRecordsAfterErrorLimit() {
+    //given
+    StatementValidation statementValidation = underTest.newValidation(1);
+    StatementRecord invalidEndBalance = StatementRecord.builder().reference(1l)
+        .accountNumber("123").description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(11)).endBalance(new BigDecimal(110)).build();
+    StatementRecord duplicate = StatementRecord.builder().reference(1l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build();
+
+    //when
+    statementValidation.accept(invalidEndBalance);
+    boolean errorLimitReached = statementValidation.isErrorLimitReached();
+    statementValidation.accept(duplicate);
+    StatementResult actualStatementResult = statementValidation.getResult();
+
+    //then
+    assertThat(errorLimitReached).isTrue();
+    assertThat(actualStatementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.INCORRECT_END_BALANCE);
+    assertThat(actualStatementResult.getErrorRecords()).hasSize(1);
+    assertThat(actualStatementResult.isTruncated()).isTrue();
+  }
+
+  /**
+   * Test an incremental validation with a consumer hands over every error record as soon as it is
+   * reported, de-duplicated and up to the error limit, and leaves them out of the result
+   */
+  @Test
+  void newValidationHandsErrorRecordsToConsumer() {
+    //given
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 5; reference++) {
+      //reference 2 is a duplicate with an incorrect end balance, 4 has an incorrect end balance
+      statementRecords.add(StatementRecord.builder().reference(reference == 3 ? 2 : reference)
+          .accountNumber("123").description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(reference >= 3 && reference != 5 ? 11 : 10))
+          .endBalance(new BigDecimal(110)).build());
+    }
+    List<ErrorRecord> consumed = new ArrayList<>();
+    List<Integer> consumedAfterRecord = new ArrayList<>();
+    StatementValidation statementValidation = underTest.newValidation(2, consumed::add);
+
+    //when
+    for (StatementRecord statementRecord : statementRecords) {
+      statementValidation.accept(statementRecord);
+      consumedAfterRecord.add(consumed.size());
+    }
+    StatementResult actualStatementResult = statementValidation.getResult();
+
+    //then
+    assertThat(consumedAfterRecord).containsExactly(0, 0, 1, 2, 2);
+    assertThat(consumed).extracting(ErrorRecord::getReference).containsExactly(2L, 4L);
+    assertThat(actualStatementResult.getResult())
+        .isEqualTo(StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE);
+    assertThat(actualStatementResult.getErrorRecords()).isEmpty();
+    assertThat(actualStatementResult.isTruncated()).isTrue();
+  }
+
+  /**
+   * Test parallel validation gives the same result as sequential validation, including duplicate
+   * references spread over different chunks
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7, 1000})
+  void validateStatementRecordsInParallelSameAsSequential(int chunkSize) {
+    //given
+    Random random = new Random(chunkSize);
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      Long reference = random.nextInt(50) == 0 ? null
+          : i > 0 && random.nextInt(50) == 0 ? (long) random.nextInt(i) : (long) i;
+      int mutation = random.nextInt(50) == 0 ? 11 : 10;
+      statementRecords.add(StatementRecord.builder().reference(reference)
+          .accountNumber("NL" + random.nextInt(100)).description("Some Description")
+          .startBalance(new BigDecimal(100)).mutation(new BigDecimal(mutation))
+          .endBalance(new BigDecimal(110)).build());
+    }
+    StatementValidationProcessor parallelProcessor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).parallel(1, 4, chunkSize).build();
+
+    //when
+    StatementResult expectedStatementResult = underTest.validateStatementRecords(statementRecords);
+    StatementResult actualStatementResult = parallelProcessor
+        .validateStatementRecords(statementRecords);
+    parallelProcessor.shutdown();
+
+    //then
+    assertThat(actualStatementResult.getResult()).isEqualTo(expectedStatementResult.getResult());
+    assertThat(actualStatementResult.getErrorRecords())
+        .extracting(ErrorRecord::getReference, ErrorRecord::getAccountNumber)
+        .containsExactlyElementsOf(expectedStatementResult.getErrorRecords().stream()
+            .map(errorRecord -> tuple(errorRecord.getReference(), errorRecord.getAccountNumber()))
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Test validating the columns of a batch gives the same result as validating the records, also
+   * in parallel and for amounts that don't fit the scale of the batch
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {0, 7, 1000})
+  void validateStatementBatchSameAsStatementRecords(int chunkSize) {
+    //given
+    Random random = new Random(chunkSize);
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    StatementBatch statementBatch = new StatementBatch(EndBalanceRule.DEFAULT_AMOUNT_SCALE, 16);
+    for (int i = 0; i < 20_000; i++) {
+      Long reference = random.nextInt(50) == 0 ? null
+          : i > 0 && random.nextInt(50) == 0 ? (long) random.nextInt(i) : (long) i;
+      String mutation = random.nextInt(50) == 0 ? "10.001" : random.nextInt(50) == 0 ? "11" : "10";
+      StatementRecord statementRecord = StatementRecord.builder().reference(reference)
+          .accountNumber("NL" + random.nextInt(100)).description("Some Description")
+          .startBalance(new BigDecimal("100.00")).mutation(new BigDecimal(mutation))
+          .endBalance(new BigDecimal(110)).build();
+      statementRecords.add(statementRecord);
+      statementBatch.add(statementRecord);
+    }
+    StatementValidationProcessor processor = chunkSize == 0 ? underTest
+        : StatementValidationProcessorBuilder.of(new DuplicateReferenceRule(),
+            new EndBalanceRule()).parallel(1, 4, chunkSize).build();
+
+    //when
+    StatementResult expectedStatementResult = underTest.validateStatementRecords(statementRecords);
+    StatementResult actualStatementResult = processor.validateStatementBatch(statementBatch);
+    StatementResult limitedStatementResult = processor.validateStatementBatch(statementBatch, 3);
+    processor.shutdown();
+
+    //then
+    assertThat(actualStatementResult).isEqualTo(expectedStatementResult);
+    assertThat(limitedStatementResult.getErrorRecords()).hasSize(3)
+        .isEqualTo(underTest.validateStatementRecords(statementRecords, 3).getErrorRecords());
+    assertThat(expectedStatementResult.getErrorRecords())
+        .containsSubsequence(limitedStatementResult.getErrorRecords());
+    assertThat(limitedStatementResult.isTruncated()).isTrue();
+  }
+
+  /**
+   * Test merging the partial results of the shards of a delivery, exchanged as JSON, gives the
+   * same result as validating the delivery at once, also when the shards are validated in parallel
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 999, 7000})
+  void validateShardsSameAsStatementBatch(int recordsPerShard) throws Exception {
+    //given
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+        .modulesToInstall(new ParameterNamesModule()).build();
+    Random random = new Random(recordsPerShard);
+    List<StatementBatch> shards = new ArrayList<>();
+    StatementBatch statementBatch = new StatementBatch(EndBalanceRule.DEFAULT_AMOUNT_SCALE, 16);
+    int records = recordsPerShard == 1 ? 200 : 20_000;
+    for (int i = 0; i < records; i++) {
+      Long reference = random.nextInt(50) == 0 ? null
+          : i > 0 && random.nextInt(50) == 0 ? (long) random.nextInt(i) : (long) i;
+      String mutation = random.nextInt(50) == 0 ? "11" : "10";
+      StatementRecord statementRecord = StatementRecord.builder().reference(reference)
+          .accountNumber("NL" + random.nextInt(100)).description("Some Description")
+          .startBalance(new BigDecimal("100.00")).mutation(new BigDecimal(mutation))
+          .endBalance(new BigDecimal(110)).build();
+      statementBatch.add(statementRecord);
+      if (i % recordsPerShard == 0) {
+        shards.add(new StatementBatch(EndBalanceRule.DEFAULT_AMOUNT_SCALE, 16));
+      }
+      shards.get(shards.size() - 1).add(statementRecord);
+    }
+    StatementValidationProcessor parallelProcessor = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).parallel(1, 4, 500).build();
+
+    //when
+    StatementResult expectedStatementResult = underTest.validateStatementBatch(statementBatch);
+    ShardedValidation shardedValidation = underTest.newShardedValidation();
+    for (int i = 0; i < shards.size(); i++) {
+      StatementValidationProcessor processor = i % 2 == 0 ? underTest : parallelProcessor;
+      String partialResult = objectMapper
+          .writeValueAsString(processor.validateShard(shards.get(i)));
+      shardedValidation.merge(objectMapper.readValue(partialResult, PartialStatementResult.class));
+    }
+    StatementResult actualStatementResult = shardedValidation.getResult();
+    parallelProcessor.shutdown();
+
+    //then
+    assertThat(actualStatementResult).isEqualTo(expectedStatementResult);
+    assertThat(actualStatementResult.getErrorRecords()).extracting(ErrorRecord::getAccountNumber)
+        .containsExactlyElementsOf(expectedStatementResult.getErrorRecords().stream()
+            .map(ErrorRecord::getAccountNumber).collect(Collectors.toList()));
+  }
+
+  /**
+   * Test references of earlier deliveries are rejected as duplicate references, also when the
+   * delivery is validated in parallel, and a delivery is only recorded once validated and accepted
+   */
+  @Test
+  void validateStatementRecordsDeliveredReferences(@TempDir Path directory) {
+    //given
+    ReferenceIndex referenceIndex = new ReferenceIndex(directory.toString(), 1000, 0.01, 10, 20);
+    List<StatementRule> rules = Arrays.asList(new DuplicateReferenceRule(),
+        new DeliveredReferenceRule(referenceIndex), new EndBalanceRule());
+    StatementValidationProcessor processor = StatementValidationProcessorBuilder.of(rules).build();
+    StatementValidationProcessor parallelProcessor = StatementValidationProcessorBuilder.of(rules)
+        .parallel(1, 4, 1).build();
+    List<StatementRecord> firstDelivery = new ArrayList<>();
+    firstDelivery.add(StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    firstDelivery.add(StatementRecord.builder().reference(2l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    List<StatementRecord> secondDelivery = new ArrayList<>();
+    secondDelivery.add(StatementRecord.builder().reference(3l).accountNumber("789")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    secondDelivery.add(StatementRecord.builder().reference(2l).accountNumber("789")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    secondDelivery.add(StatementRecord.builder().reference(3l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    StatementValidation abandonedDelivery = processor.newValidation();
+    abandonedDelivery.accept(StatementRecord.builder().reference(4l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+
+    //when
+    StatementResult firstStatementResult = processor.validateStatementRecords(firstDelivery);
+    StatementResult secondStatementResult = parallelProcessor
+        .validateStatementRecords(secondDelivery);
+    StatementResult repeatedStatementResult = processor.validateStatementRecords(secondDelivery);
+    parallelProcessor.shutdown();
+    referenceIndex.shutdown();
+
+    List<ErrorRecord> errorRecords = new ArrayList<>();
+    errorRecords.add(ErrorRecord.builder().reference(3l).accountNumber("789").build());
+    errorRecords.add(ErrorRecord.builder().reference(2l).accountNumber("789").build());
+
+    //then
+    assertThat(firstStatementResult.getResult()).isEqualTo(StatementValidationProcessor.SUCCESS);
+    assertThat(secondStatementResult).isEqualTo(StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(errorRecords)
+        .build());
+    //the rejected delivery was not recorded, only its own duplicate and the accepted reference
+    assertThat(repeatedStatementResult.getErrorRecords())
+        .extracting(ErrorRecord::getReference).containsExactly(3l, 2l);
+    assertThat(referenceIndex.contains(1l)).isTrue();
+    assertThat(referenceIndex.contains(3l)).isFalse();
+    assertThat(referenceIndex.contains(4l)).isFalse();
+  }
+
+  private static StatementRecord record(long reference, String accountNumber, int mutation) {
+    //a start balance of 100 ends at 110 only after a mutation of 10
+    return StatementRecord.builder().reference(reference).accountNumber(accountNumber)
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(mutation)).endBalance(new BigDecimal(110)).build();
+  }
+}
@@ -0,0 +1,118 @@
+package com.rabobank.nl.statementprocessor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class ValidationSummaryTest {
+
+  private final Logger summaryLogger = (Logger) LoggerFactory.getLogger(ValidationSummary.class);
+  private final Logger errorRecordsLogger = (Logger) LoggerFactory
+      .getLogger(ValidationSummary.ERROR_RECORDS_LOGGER);
+  private final ListAppender<ILoggingEvent> summaryEvents = new ListAppender<>();
+  private final ListAppender<ILoggingEvent> errorRecordEvents = new ListAppender<>();
+
+  @BeforeEach
+  void setUp() {
+    summaryEvents.start();
+    errorRecordEvents.start();
+    summaryLogger.setLevel(Level.INFO);
+    summaryLogger.addAppender(summaryEvents);
+    errorRecordsLogger.addAppender(errorRecordEvents);
+  }
+
+  @AfterEach
+  void tearDown() {
+    summaryLogger.detachAppender(summaryEvents);
+    summaryLogger.setLevel(null);
+    errorRecordsLogger.detachAppender(errorRecordEvents);
+    errorRecordsLogger.setLevel(null);
+  }
+
+  /**
+   * Test a delivery with errors is logged as one summary with the error counts per result code and
+   * the first error records, error records are only logged on their own when enabled and sampled
+   */
+  @Test
+  void logsOneSummaryPerDelivery() {
+    //given
+    errorRecordsLogger.setLevel(Level.DEBUG);
+    StatementValidationProcessor underTest = StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).errorSamples(2, 3).build();
+    List<StatementRecord> statementRecords = new ArrayList<>();
+    for (long reference = 1; reference <= 7; reference++) {
+      statementRecords.add(StatementRecord.builder().reference(reference).accountNumber("123")
+          .description("Some Description").startBalance(new BigDecimal(100))
+          .mutation(new BigDecimal(10)).endBalance(new BigDecimal(100)).build());
+    }
+    statementRecords.add(StatementRecord.builder().reference(8l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+    statementRecords.add(StatementRecord.builder().reference(8l).accountNumber("456")
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(10)).endBalance(new BigDecimal(110)).build());
+
+    //when
+    StatementResult statementResult = underTest.validateStatementRecords(statementRecords);
+
+    //then
+    assertThat(statementResult.getErrorRecords()).hasSize(8);
+    assertThat(summaryEvents.list).hasSize(1);
+    ILoggingEvent summary = summaryEvents.list.get(0);
+    assertThat(summary.getLevel()).isEqualTo(Level.WARN);
+    assertThat(summary.getFormattedMessage())
+        .contains("Result : " + StatementValidationProcessor.DUPLICATE_REFERENCE_INCORRECT_END_BALANCE)
+        .contains("records : 9")
+        .contains("errors : {DUPLICATE_REFERENCE=1, INCORRECT_END_BALANCE=7}")
+        .contains("error records : 8")
+        .contains("first error records : [" + statementResult.getErrorRecords().get(0) + ", "
+            + statementResult.getErrorRecords().get(1) + "]");
+    assertThat(errorRecordEvents.list).extracting(ILoggingEvent::getFormattedMessage)
+        .containsExactly(
+            "reported(ErrorRecord):void Error : " + statementResult.getErrorRecords().get(0),
+            "reported(ErrorRecord):void Error : " + statementResult.getErrorRecords().get(3),
+            "reported(ErrorRecord):void Error : " + statementResult.getErrorRecords().get(6));
+  }
+
+  /**
+   * Test error records are not logged on their own by default and a successful delivery is
+   * summarized at info level
+   */
+  @Test
+  void logsSuccessAtInfo() {
+    //given
+    errorRecordsLogger.setLevel(Level.INFO);
+    ValidationSummary underTest = new ValidationSummary(
+        Arrays.asList(new DuplicateReferenceRule(), new EndBalanceRule()), 10, 1,
+        new StatementMetrics(new SimpleMeterRegistry()));
+
+    //when
+    underTest.accepted();
+    underTest.accepted();
+    underTest.complete(StatementResult.builder().result(StatementValidationProcessor.SUCCESS).build());
+    underTest.reported(ErrorRecord.builder().reference(1l).build());
+
+    //then
+    assertThat(summaryEvents.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.INFO);
+    assertThat(summaryEvents.list.get(0).getFormattedMessage())
+        .isEqualTo("complete(StatementResult):void Result : SUCCESS, records : 2");
+    assertThat(errorRecordEvents.list).isEmpty();
+  }
+}
@@ -0,0 +1,102 @@
+package com.rabobank.nl.statementprocessor.service.batch;
+
+import static com.rabobank.nl.statementprocessor.util.ScaledAmounts.NOT_SCALED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import java.io.IOException;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class StatementBatchDeserializerTest {
+
+  private static final String STATEMENT_RECORDS = "["
+      + "{\"reference\":1,\"accountNumber\":\"NL01\",\"startBalance\":100.5,\"mutation\":-0.5,"
+      + "\"description\":\"Some Description\",\"endBalance\":100},"
+      + "{\"reference\":\"2\",\"accountNumber\":\"NL02\",\"startBalance\":\"12.30\","
+      + "\"mutation\":1E+2,\"description\":{\"unexpected\":[1]},\"endBalance\":0.001,"
+      + "\"unknown\":[true]},"
+      + "{\"reference\":null,\"accountNumber\":\"NL01\",\"startBalance\":null,"
+      + "\"mutation\":92233720368547758.08,\"endBalance\":-1}"
+      + "]";
+
+  ObjectReader underTest = reader(new ObjectMapper());
+
+  /**
+   * Test records are read into the columns, amounts that don't fit the scale are kept exactly
+   */
+  @Test
+  void deserializeIntoColumns() throws IOException {
+    //when
+    StatementBatch statementBatch = underTest.readValue(STATEMENT_RECORDS);
+
+    //then
+    assertThat(statementBatch.size()).isEqualTo(3);
+    assertThat(statementBatch.getReference(0)).isEqualTo(1L);
+    assertThat(statementBatch.getReference(1)).isEqualTo(2L);
+    assertThat(statementBatch.hasReference(2)).isFalse();
+    assertThat(statementBatch.getAccountNumber(2)).isSameAs(statementBatch.getAccountNumber(0));
+    assertThat(statementBatch.getScaledStartBalance(0)).isEqualTo(10050L);
+    assertThat(statementBatch.getScaledMutation(0)).isEqualTo(-50L);
+    assertThat(statementBatch.getScaledEndBalance(0)).isEqualTo(10000L);
+    assertThat(statementBatch.getScaledStartBalance(1)).isEqualTo(1230L);
+    assertThat(statementBatch.getScaledMutation(1)).isEqualTo(10000L);
+    assertThat(statementBatch.getScaledEndBalance(1)).isEqualTo(NOT_SCALED);
+    assertThat(statementBatch.getEndBalance(1)).isEqualTo(new BigDecimal("0.001"));
+    assertThat(statementBatch.getStartBalance(2)).isNull();
+    assertThat(statementBatch.getMutation(2)).isEqualTo(new BigDecimal("92233720368547758.08"));
+    assertThat(statementBatch.get(0)).usingRecursiveComparison().isEqualTo(StatementRecord
+        .builder().reference(1L).accountNumber("NL01").startBalance(new BigDecimal("100.50"))
+        .mutation(new BigDecimal("-0.50")).endBalance(new BigDecimal("100.00")).build());
+  }
+
+  /**
+   * Test binary formats give the same columns as JSON
+   */
+  @Test
+  void deserializeSmile() throws IOException {
+    //given
+    ObjectMapper objectMapper = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    byte[] smile = new ObjectMapper(new SmileFactory())
+        .writeValueAsBytes(objectMapper.readTree(STATEMENT_RECORDS));
+
+    //when
+    StatementBatch statementBatch = reader(new ObjectMapper(new SmileFactory())).readValue(smile);
+
+    //then
+    assertThat(statementBatch.size()).isEqualTo(3);
+    for (int i = 0; i < statementBatch.size(); i++) {
+      assertThat(statementBatch.get(i)).usingRecursiveComparison()
+          .isEqualTo(underTest.<StatementBatch>readValue(STATEMENT_RECORDS).get(i));
+    }
+  }
+
+  /**
+   * Test values that are no statement records are rejected
+   */
+  @Test
+  void deserializeInvalidRecords() {
+    assertThatThrownBy(() -> underTest.readValue("{\"reference\":1}"))
+        .isInstanceOf(JsonProcessingException.class);
+    assertThatThrownBy(() -> underTest.readValue("[1]"))
+        .isInstanceOf(JsonProcessingException.class);
+    assertThatThrownBy(() -> underTest.readValue("[{\"reference\":\"one\"}]"))
+        .isInstanceOf(JsonProcessingException.class);
+    assertThatThrownBy(() -> underTest.readValue("[{\"mutation\":\"ten\"}]"))
+        .isInstanceOf(JsonProcessingException.class);
+  }
+
+  private static ObjectReader reader(ObjectMapper objectMapper) {
+    return objectMapper.registerModule(new SimpleModule()
+        .addDeserializer(StatementBatch.class, new StatementBatchDeserializer(2)))
+        .readerFor(StatementBatch.class);
+  }
+}
@@ -0,0 +1,44 @@
+package com.rabobank.nl.statementprocessor.service.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class StatementBatchTest {
+
+  StatementBatch underTest = new StatementBatch(2, 1);
+
+  /**
+   * Test records are kept without description and account numbers are shared, also when records
+   * are added after the batch was trimmed
+   */
+  @Test
+  void addAfterTrimToSize() {
+    //given
+    for (int i = 0; i < 20; i++) {
+      underTest.add(statementRecord((long) i, "NL" + i % 2, "0.005"));
+    }
+    underTest.trimToSize();
+
+    //when
+    underTest.add(statementRecord(null, "NL1", "-1.5"));
+
+    //then
+    assertThat(underTest.size()).isEqualTo(21);
+    assertThat(underTest.getAccountNumber(20)).isSameAs(underTest.getAccountNumber(1));
+    assertThat(underTest.get(19)).usingRecursiveComparison().isEqualTo(StatementRecord.builder()
+        .reference(19L).accountNumber("NL1").startBalance(new BigDecimal("100.00"))
+        .mutation(new BigDecimal("0.005")).endBalance(new BigDecimal("110.00")).build());
+    assertThat(underTest.hasReference(20)).isFalse();
+    assertThat(underTest.getScaledMutation(20)).isEqualTo(-150L);
+  }
+
+  private StatementRecord statementRecord(Long reference, String accountNumber,
+      String mutation) {
+    return StatementRecord.builder().reference(reference).accountNumber(accountNumber)
+        .description("Some Description").startBalance(new BigDecimal(100))
+        .mutation(new BigDecimal(mutation)).endBalance(new BigDecimal(110)).build();
+  }
+}
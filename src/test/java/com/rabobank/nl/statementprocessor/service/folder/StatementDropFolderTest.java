@@ -0,0 +1,127 @@
+package com.rabobank.nl.statementprocessor.service.folder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementResult;
+import com.rabobank.nl.statementprocessor.service.StatementRecordReader;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessor;
+import com.rabobank.nl.statementprocessor.service.StatementValidationProcessorBuilder;
+import com.rabobank.nl.statementprocessor.service.rule.DuplicateReferenceRule;
+import com.rabobank.nl.statementprocessor.service.rule.EndBalanceRule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+
+class StatementDropFolderTest {
+
+  private static final String DELIVERY = "[{\"reference\":1,\"accountNumber\":\"123\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110},"
+      + "{\"reference\":1,\"accountNumber\":\"456\","
+      + "\"startBalance\":100,\"mutation\":10,\"description\":\"Some Description\",\"endBalance\":110}]";
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .modulesToInstall(new ParameterNamesModule()).build();
+
+  @TempDir
+  Path directory;
+
+  private StatementDropFolder underTest;
+
+  @AfterEach
+  void tearDown() {
+    if (underTest != null) {
+      underTest.shutdown();
+    }
+  }
+
+  /**
+   * Test files present at startup and files moved into the input folder later are validated,
+   * their results written to the output folder and the files moved to the processed folder
+   */
+  @Test
+  @Timeout(30)
+  void dropFolderValidatesFiles() throws Exception {
+    //given
+    Path input = Files.createDirectories(directory.resolve("in"));
+    Files.write(input.resolve("present.json"), DELIVERY.getBytes(StandardCharsets.UTF_8));
+    underTest = newDropFolder();
+
+    //when
+    Path dropped = Files.write(directory.resolve("dropped.json.tmp"),
+        "[{\"reference\":\"one\"}]".getBytes(StandardCharsets.UTF_8));
+    Files.move(dropped, input.resolve("dropped.json"));
+    StatementResult presentResult = awaitResult("present.json");
+    StatementResult droppedResult = awaitResult("dropped.json");
+    awaitMoved(input.resolve("present.json"));
+    awaitMoved(input.resolve("dropped.json"));
+
+    //then
+    assertThat(presentResult).isEqualTo(StatementResult.builder()
+        .result(StatementValidationProcessor.DUPLICATE_REFERENCE).errorRecords(Collections
+            .singletonList(ErrorRecord.builder().reference(1L).accountNumber("123").build()))
+        .build());
+    assertThat(droppedResult.getResult()).isEqualTo("BAD_REQUEST");
+    assertThat(directory.resolve("processed").resolve("present.json")).exists();
+    assertThat(directory.resolve("processed").resolve("dropped.json")).exists();
+    assertThat(directory.resolve("dropped.json.tmp")).doesNotExist();
+  }
+
+  /**
+   * Test a file is read through its memory mapping, also when it is empty
+   */
+  @Test
+  void openMappedReadsFile() throws IOException {
+    //given
+    Path file = Files.write(directory.resolve("delivery.json"),
+        DELIVERY.getBytes(StandardCharsets.UTF_8));
+    Path emptyFile = Files.createFile(directory.resolve("empty.json"));
+
+    //when
+    String content;
+    try (InputStream inputStream = StatementDropFolder.openMapped(file)) {
+      content = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+    }
+    int emptyContent;
+    try (InputStream inputStream = StatementDropFolder.openMapped(emptyFile)) {
+      emptyContent = inputStream.read();
+    }
+
+    //then
+    assertThat(content).isEqualTo(DELIVERY);
+    assertThat(emptyContent).isEqualTo(-1);
+  }
+
+  private StatementDropFolder newDropFolder() {
+    return new StatementDropFolder(StatementValidationProcessorBuilder
+        .of(new DuplicateReferenceRule(), new EndBalanceRule()).build(),
+        new StatementRecordReader(objectMapper), objectMapper,
+        directory.resolve("in").toString(), directory.resolve("out").toString(),
+        directory.resolve("processed").toString(), 2, 10, false);
+  }
+
+  private StatementResult awaitResult(String name) throws Exception {
+    Path resultFile = directory.resolve("out").resolve(name + StatementDropFolder.RESULT_SUFFIX);
+    while (!Files.exists(resultFile)) {
+      Thread.sleep(20);
+    }
+    return objectMapper.readValue(resultFile.toFile(), StatementResult.class);
+  }
+
+  private void awaitMoved(Path file) throws InterruptedException {
+    while (Files.exists(file)) {
+      Thread.sleep(20);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class StatementCsvParserTest {
+
+  StatementCsvParser underTest = new StatementCsvParser();
+
+  /**
+   * Test columns are matched by their header in any order, quoted fields are unescaped, signed
+   * amounts parsed and blank lines skipped, also when the text arrives a character at a time
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void parse(boolean characterByCharacter) throws IOException {
+    //given
+    String csv = "\uFEFFEnd Balance,reference,ACCOUNT_NUMBER,Description,Start Balance,Mutation,"
+        + "Remarks\r\n"
+        + "-20.23,194261,NL91RABO0315273637,\"Clothes from \"\"Jan\"\", Bakker\r\nand co\","
+        + "21.6,-41.83,none\r\n"
+        + "\r\n"
+        + " 110 ,\" 2 \",NL27SNSB0917829871,,100,+10\n"
+        + "90,3";
+    Reader reader = new StringReader(csv);
+    if (characterByCharacter) {
+      reader = new OneCharacterReader(reader);
+    }
+    List<StatementRecord> statementRecords = new ArrayList<>();
+
+    //when
+    long records = underTest.parse(reader, collect(statementRecords));
+
+    //then
+    assertThat(records).isEqualTo(3);
+    assertThat(statementRecords).usingRecursiveFieldByFieldElementComparator().containsExactly(
+        StatementRecord.builder().reference(194261L).accountNumber("NL91RABO0315273637")
+            .description("Clothes from \"Jan\", Bakker\r\nand co")
+            .startBalance(new BigDecimal("21.6")).mutation(new BigDecimal("-41.83"))
+            .endBalance(new BigDecimal("-20.23")).build(),
+        StatementRecord.builder().reference(2L).accountNumber("NL27SNSB0917829871")
+            .startBalance(new BigDecimal("100")).mutation(new BigDecimal("10"))
+            .endBalance(new BigDecimal("110")).build(),
+        StatementRecord.builder().reference(3L).endBalance(new BigDecimal("90")).build());
+  }
+
+  /**
+   * Test records longer than the buffer and records crossing the end of the buffer are parsed
+   * completely
+   */
+  @Test
+  void parseLongRecords() throws IOException {
+    //given
+    StringBuilder description = new StringBuilder();
+    for (int i = 0; i < 40000; i++) {
+      description.append((char) ('a' + i % 26));
+    }
+    StringBuilder csv = new StringBuilder("reference,description,mutation\n");
+    for (int i = 0; i < 1000; i++) {
+      csv.append(i).append(',').append(i % 100 == 0 ? "\"" + description + "\"" : "short")
+          .append(",0.").append(i % 10).append('\n');
+    }
+    List<StatementRecord> statementRecords = new ArrayList<>();
+
+    //when
+    underTest.parse(new StringReader(csv.toString()), collect(statementRecords));
+
+    //then
+    assertThat(statementRecords).hasSize(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(statementRecords.get(i).getReference()).isEqualTo(i);
+      assertThat(statementRecords.get(i).getDescription())
+          .isEqualTo(i % 100 == 0 ? description.toString() : "short");
+      assertThat(statementRecords.get(i).getMutation()).isEqualTo(new BigDecimal("0." + i % 10));
+    }
+  }
+
+  /**
+   * Test parsing stops when the handler wants no more records
+   */
+  @Test
+  void parseUntilHandlerStops() throws IOException {
+    //given
+    String csv = "reference\n1\n2\n3\n";
+
+    //when
+    long records = underTest.parse(new StringReader(csv),
+        recordFields -> recordFields.getReference() < 2);
+
+    //then
+    assertThat(records).isEqualTo(2);
+  }
+
+  /**
+   * Test malformed deliveries are rejected as a format exception
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"", "reference\n\"1\n", "reference\n\"1\"2\n", "reference\n1.5\n",
+      "reference\n99999999999999999999\n", "reference,mutation\n1,ten\n"})
+  void parseMalformed(String csv) {
+    //when, then
+    assertThatThrownBy(() -> underTest.parse(new StringReader(csv), collect(new ArrayList<>())))
+        .isInstanceOf(StatementFormatException.class);
+  }
+
+  private static RecordHandler collect(List<StatementRecord> statementRecords) {
+    StringDictionary accountNumbers = new StringDictionary(16);
+    StringDictionary descriptions = new StringDictionary(16);
+    return recordFields -> statementRecords
+        .add(recordFields.toStatementRecord(accountNumbers, descriptions));
+  }
+
+  /**
+   * Hands over the text a character at a time, as a slow network would
+   */
+  private static class OneCharacterReader extends FilterReader {
+
+    OneCharacterReader(Reader reader) {
+      super(reader);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      return super.read(buffer, offset, Math.min(1, length));
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.rabobank.nl.statementprocessor.service.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import com.rabobank.nl.statementprocessor.exception.StatementFormatException;
+import com.rabobank.nl.statementprocessor.util.StringDictionary;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class StatementXmlParserTest {
+
+  StatementXmlParser underTest = new StatementXmlParser();
+
+  /**
+   * Test references are read from attributes or elements, text and attributes are unescaped and
+   * trimmed and unknown elements are skipped
+   */
+  @Test
+  void parse() throws IOException {
+    //given
+    String xml = "<?xml version=\"1.0\"?><statement><header>ignored</header><records>"
+        + "<record reference=\" 194261 \"><accountNumber> NL91RABO0315273637 </accountNumber>"
+        + "<description>Clothes from &quot;Jan&quot; <![CDATA[& Bakker]]></description>"
+        + "<extra><mutation>1</mutation></extra>"
+        + "<startBalance>21.6</startBalance><mutation>-41.83</mutation>"
+        + "<endBalance>-20.23</endBalance></record>\n"
+        + "<record><reference>2</reference><mutation>+10</mutation></record>"
+        + "</records></statement>";
+    List<StatementRecord> statementRecords = new ArrayList<>();
+
+    //when
+    long records = underTest.parse(inputStream(xml), collect(statementRecords));
+
+    //then
+    assertThat(records).isEqualTo(2);
+    assertThat(statementRecords).usingRecursiveFieldByFieldElementComparator().containsExactly(
+        StatementRecord.builder().reference(194261L).accountNumber("NL91RABO0315273637")
+            .description("Clothes from \"Jan\" & Bakker")
+            .startBalance(new BigDecimal("21.6")).mutation(new BigDecimal("-41.83"))
+            .endBalance(new BigDecimal("-20.23")).build(),
+        StatementRecord.builder().reference(2L).mutation(new BigDecimal("10")).build());
+  }
+
+  /**
+   * Test parsing stops when the handler wants no more records
+   */
+  @Test
+  void parseUntilHandlerStops() throws IOException {
+    //given
+    String xml = "<records><record reference=\"1\"/><record reference=\"2\"/>"
+        + "<record reference=\"3\"/></records>";
+
+    //when
+    long records = underTest.parse(inputStream(xml),
+        recordFields -> recordFields.getReference() < 2);
+
+    //then
+    assertThat(records).isEqualTo(2);
+  }
+
+  /**
+   * Test malformed documents, documents with a DTD and external entities are rejected as a format
+   * exception
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"<records><record reference=\"1\"></records>",
+      "<records><record reference=\"one\"/></records>",
+      "<!DOCTYPE records [<!ENTITY secret SYSTEM \"file:///etc/passwd\">]>"
+          + "<records><record><description>&secret;</description></record></records>",
+      "<!DOCTYPE records [<!ENTITY a \"aaaaaaaaaa\"><!ENTITY b \"&a;&a;&a;&a;&a;\">]>"
+          + "<records><record><description>&b;</description></record></records>"})
+  void parseMalformed(String xml) {
+    //when, then
+    assertThatThrownBy(() -> underTest.parse(inputStream(xml), collect(new ArrayList<>())))
+        .isInstanceOf(StatementFormatException.class);
+  }
+
+  private static InputStream inputStream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static RecordHandler collect(List<StatementRecord> statementRecords) {
+    StringDictionary accountNumbers = new StringDictionary(16);
+    StringDictionary descriptions = new StringDictionary(16);
+    return recordFields -> statementRecords
+        .add(recordFields.toStatementRecord(accountNumbers, descriptions));
+  }
+}
@@ -0,0 +1,119 @@
+package com.rabobank.nl.statementprocessor.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReferenceIndexTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Test added references are found, also after the index is reopened
+   */
+  @Test
+  void addedReferencesSurviveReopen() {
+    //given
+    ReferenceIndex underTest = new ReferenceIndex(directory.toString(), 1000, 0.01, 10, 20);
+
+    //when
+    underTest.add(new long[]{3, 1, 3, Long.MIN_VALUE, 0}, 5);
+    underTest.add(new long[]{7, 99}, 1);
+    underTest.shutdown();
+    ReferenceIndex reopened = new ReferenceIndex(directory.toString(), 1000, 0.01, 10, 20);
+
+    //then
+    for (ReferenceIndex referenceIndex : new ReferenceIndex[]{underTest, reopened}) {
+      assertThat(referenceIndex.contains(0)).isTrue();
+      assertThat(referenceIndex.contains(1)).isTrue();
+      assertThat(referenceIndex.contains(3)).isTrue();
+      assertThat(referenceIndex.contains(7)).isTrue();
+      assertThat(referenceIndex.contains(Long.MIN_VALUE)).isTrue();
+      assertThat(referenceIndex.contains(2)).isFalse();
+      assertThat(referenceIndex.contains(99)).isFalse();
+      assertThat(referenceIndex.size()).isEqualTo(5);
+    }
+    reopened.shutdown();
+  }
+
+  /**
+   * Test segments are merged into one holding every reference once, replacing the merged files
+   */
+  @Test
+  void mergeSegments() throws IOException {
+    //given
+    ReferenceIndex underTest = new ReferenceIndex(directory.toString(), 100_000, 0.01, 2, 3);
+    Random random = new Random(42);
+    long[][] deliveries = new long[5][];
+    for (int i = 0; i < deliveries.length; i++) {
+      deliveries[i] = new long[2_000 * (i + 1)];
+      for (int j = 0; j < deliveries[i].length; j++) {
+        deliveries[i][j] = random.nextInt(20_000);
+      }
+    }
+
+    //when
+    for (long[] delivery : deliveries) {
+      underTest.add(delivery, delivery.length);
+    }
+    underTest.shutdown();
+    underTest.mergeSegments();
+
+    //then
+    assertThat(underTest.segmentCount()).isLessThanOrEqualTo(2);
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.count()).isEqualTo(underTest.segmentCount());
+    }
+    for (long[] delivery : deliveries) {
+      for (long reference : delivery) {
+        assertThat(underTest.contains(reference)).isTrue();
+      }
+    }
+    assertThat(underTest.contains(20_000)).isFalse();
+    assertThat(underTest.contains(-1)).isFalse();
+  }
+
+  /**
+   * Test an append waits for the merge instead of exceeding the segments a lookup searches, with
+   * references clustered as well as spread over the whole range of a long
+   */
+  @Test
+  void appendsKeepMaxSegments() {
+    //given
+    ReferenceIndex underTest = new ReferenceIndex(directory.toString(), 100_000, 0.01, 2, 3);
+    Random random = new Random(42);
+    long[][] deliveries = new long[10][];
+    for (int i = 0; i < deliveries.length; i++) {
+      deliveries[i] = new long[1_000];
+      for (int j = 0; j < deliveries[i].length; j++) {
+        deliveries[i][j] = i % 2 == 0 ? random.nextLong() << 1 : 1_000_000 + 2 * j + i * 2_000;
+      }
+    }
+
+    //when
+    int maxSegmentCount = 0;
+    for (long[] delivery : deliveries) {
+      underTest.add(delivery, delivery.length);
+      maxSegmentCount = Math.max(maxSegmentCount, underTest.segmentCount());
+    }
+    underTest.shutdown();
+
+    //then
+    assertThat(maxSegmentCount).isLessThanOrEqualTo(3);
+    for (long[] delivery : deliveries) {
+      for (long reference : delivery) {
+        assertThat(underTest.contains(reference)).isTrue();
+        assertThat(underTest.contains(reference + 1)).isFalse();
+      }
+    }
+    assertThat(underTest.contains(Long.MAX_VALUE)).isFalse();
+    assertThat(underTest.contains(Long.MIN_VALUE + 1)).isFalse();
+  }
+}
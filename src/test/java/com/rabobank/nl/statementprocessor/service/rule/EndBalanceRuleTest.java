@@ -0,0 +1,73 @@
+package com.rabobank.nl.statementprocessor.service.rule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabobank.nl.statementprocessor.api.model.ErrorRecord;
+import com.rabobank.nl.statementprocessor.api.model.StatementRecord;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class EndBalanceRuleTest {
+
+  RuleEvaluation underTest = new EndBalanceRule().newEvaluation(1);
+
+  /**
+   * Test correct end balances are accepted, whatever the scale or size of the amounts
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "100, 10, 110",
+      "10.0, 0.00, 10.00",
+      "57.6, -32.98, 24.62",
+      "-0.01, 0.01, 0",
+      "1E+3, 1, 1001.000",
+      "0.001, 0.002, 0.003",
+      "92233720368547758.07, 0.01, 92233720368547758.08",
+      "12345678901234567890.12, 1, 12345678901234567891.12"
+  })
+  void evaluateCorrectEndBalance(String startBalance, String mutation, String endBalance) {
+    assertThat(underTest.evaluate(statementRecord(startBalance, mutation, endBalance))).isNull();
+  }
+
+  /**
+   * Test incorrect end balances are rejected, whatever the scale or size of the amounts
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "100, -10, 110",
+      "10.0, 0.01, 10.00",
+      "57.6, -32.98, 24.63",
+      "0.001, 0.002, 0.004",
+      "0.001, 0.002, 0.00",
+      "92233720368547758.07, 0.01, -92233720368547758.08",
+      "12345678901234567890.12, 1, 12345678901234567890.12"
+  })
+  void evaluateIncorrectEndBalance(String startBalance, String mutation, String endBalance) {
+    ErrorRecord errorRecord = underTest
+        .evaluate(statementRecord(startBalance, mutation, endBalance));
+
+    assertThat(errorRecord).isEqualTo(ErrorRecord.builder().reference(1l).accountNumber("123")
+        .build());
+    assertThat(errorRecord.getAccountNumber()).isEqualTo("123");
+  }
+
+  /**
+   * Test amounts with more decimals than the configured scale are compared exactly
+   */
+  @Test
+  void evaluateWithZeroAmountScale() {
+    RuleEvaluation evaluation = new EndBalanceRule(0).newEvaluation(1);
+
+    assertThat(evaluation.evaluate(statementRecord("10", "0.5", "10.50"))).isNull();
+    assertThat(evaluation.evaluate(statementRecord("10", "0.5", "10"))).isNotNull();
+  }
+
+  private StatementRecord statementRecord(String startBalance, String mutation,
+      String endBalance) {
+    return StatementRecord.builder().reference(1l).accountNumber("123")
+        .description("Some Description").startBalance(new BigDecimal(startBalance))
+        .mutation(new BigDecimal(mutation)).endBalance(new BigDecimal(endBalance)).build();
+  }
+}
@@ -0,0 +1,53 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DaemonThreadsTest {
+
+  /**
+   * Test threads are numbered daemon threads
+   */
+  @Test
+  void namedThreadFactoryCreatesNumberedDaemonThreads() {
+    //given
+    ThreadFactory underTest = DaemonThreads.namedThreadFactory("test-daemon-");
+
+    //when
+    Thread first = underTest.newThread(() -> { });
+    Thread second = underTest.newThread(() -> { });
+
+    //then
+    assertThat(first.getName()).isEqualTo("test-daemon-1");
+    assertThat(second.getName()).isEqualTo("test-daemon-2");
+    assertThat(first.isDaemon()).isTrue();
+  }
+
+  /**
+   * Test the eviction runs on a daemon thread of its own, at most once a second for a short time
+   * to live
+   */
+  @Test
+  void scheduleEvictionRunsEvictionOnDaemonThread() throws Exception {
+    //given
+    CompletableFuture<Thread> evictionThread = new CompletableFuture<>();
+    long start = System.nanoTime();
+
+    //when
+    ScheduledExecutorService underTest = DaemonThreads.scheduleEviction("test-eviction-",
+        Duration.ofMillis(1), () -> evictionThread.complete(Thread.currentThread()));
+    Thread thread = evictionThread.get(10, TimeUnit.SECONDS);
+    underTest.shutdownNow();
+
+    //then
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    assertThat(thread.getName()).isEqualTo("test-eviction-1");
+    assertThat(thread.isDaemon()).isTrue();
+  }
+}
@@ -0,0 +1,41 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongBloomFilterTest {
+
+  /**
+   * Test every added value is reported as present and absent values only at about the
+   * configured false positive rate
+   */
+  @Test
+  void mightContainAddedValues() {
+    //given
+    LongBloomFilter underTest = new LongBloomFilter(100_000, 0.01);
+    Random random = new Random(42);
+    long[] values = new long[100_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i % 2 == 0 ? i : random.nextLong();
+    }
+
+    //when
+    for (long value : values) {
+      underTest.put(value);
+    }
+    int falsePositives = 0;
+    for (long value = -1; value > -100_001; value--) {
+      if (underTest.mightContain(value)) {
+        falsePositives++;
+      }
+    }
+
+    //then
+    for (long value : values) {
+      assertThat(underTest.mightContain(value)).isTrue();
+    }
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+}
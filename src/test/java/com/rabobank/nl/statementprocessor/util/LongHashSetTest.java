@@ -0,0 +1,55 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+  /**
+   * Test adding values reports whether the value was new, including the zero value
+   */
+  @Test
+  void addReportsNewValues() {
+    //given
+    LongHashSet underTest = new LongHashSet();
+
+    //when / then
+    assertThat(underTest.add(0L)).isTrue();
+    assertThat(underTest.add(0L)).isFalse();
+    assertThat(underTest.add(-1L)).isTrue();
+    assertThat(underTest.add(Long.MAX_VALUE)).isTrue();
+    assertThat(underTest.add(Long.MIN_VALUE)).isTrue();
+    assertThat(underTest.add(-1L)).isFalse();
+    assertThat(underTest.size()).isEqualTo(4);
+    assertThat(underTest.contains(0L)).isTrue();
+    assertThat(underTest.contains(1L)).isFalse();
+  }
+
+  /**
+   * Test the set behaves like a java.util.Set while growing beyond its initial capacity
+   */
+  @Test
+  void behavesLikeHashSetWhileGrowing() {
+    //given
+    LongHashSet underTest = new LongHashSet(1);
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(42);
+
+    //when
+    for (int i = 0; i < 100_000; i++) {
+      long value = random.nextInt(50_000) * 1_000_003L;
+      assertThat(underTest.add(value)).isEqualTo(expected.add(value));
+    }
+
+    //then
+    assertThat(underTest.size()).isEqualTo(expected.size());
+    for (long value : expected) {
+      assertThat(underTest.contains(value)).isTrue();
+    }
+    assertThat(underTest.contains(7L)).isFalse();
+  }
+}
@@ -0,0 +1,48 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static com.rabobank.nl.statementprocessor.util.ScaledAmounts.NOT_SCALED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ScaledAmountsTest {
+
+  /**
+   * Test plain decimal numbers are parsed to the same value as converting their BigDecimal
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"0", "-0", "10", "10.5", "-57.60", "0.01", "5.", "92233720368547758.07",
+      "-92233720368547758.07", "999999999999999999", "+10.5"})
+  void parseScaledSameAsBigDecimal(String amount) {
+    assertThat(ScaledAmounts.parseScaled(amount.toCharArray(), 0, amount.length(), 2))
+        .isEqualTo(ScaledAmounts.toScaled(new BigDecimal(amount), 2));
+  }
+
+  /**
+   * Test numbers with more decimals, too large or in another notation have no scaled value
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"0.001", "92233720368547758.08", "1234567890123456789", "1E+2", "", "-",
+      ".", "1.2.3", "1,5", "+", "+-1"})
+  void parseScaledNotScaled(String amount) {
+    assertThat(ScaledAmounts.parseScaled(amount.toCharArray(), 0, amount.length(), 2))
+        .isEqualTo(NOT_SCALED);
+  }
+
+  /**
+   * Test sums that overflow have no scaled value
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "1, 2, 3",
+      "9223372036854775807, 1, " + NOT_SCALED,
+      "-9223372036854775807, -1, " + NOT_SCALED,
+      "-9223372036854775807, 1, -9223372036854775806"
+  })
+  void add(long first, long second, long sum) {
+    assertThat(ScaledAmounts.add(first, second)).isEqualTo(sum);
+  }
+}
@@ -0,0 +1,72 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StringDictionaryTest {
+
+  /**
+   * Test strings looked up by characters and by String share the instance of the first occurrence
+   */
+  @Test
+  void internSharesFirstInstance() {
+    //given
+    StringDictionary underTest = new StringDictionary(Integer.MAX_VALUE);
+    char[] characters = "xxNL91RABO0417164300xx".toCharArray();
+
+    //when
+    String first = underTest.intern(characters, 2, 18);
+    String second = underTest.intern(new String("NL91RABO0417164300"));
+    String empty = underTest.intern(characters, 0, 0);
+
+    //then
+    assertThat(first).isEqualTo("NL91RABO0417164300");
+    assertThat(second).isSameAs(first);
+    assertThat(empty).isEmpty();
+    assertThat(underTest.intern("")).isSameAs(empty);
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  /**
+   * Test codes are dense and stable while the dictionary grows and after it is trimmed
+   */
+  @Test
+  void encodeWhileGrowingAndAfterTrimToSize() {
+    //given
+    StringDictionary underTest = new StringDictionary(Integer.MAX_VALUE);
+    Map<String, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    //when / then
+    for (int i = 0; i < 10_000; i++) {
+      String value = "NL" + random.nextInt(2_000);
+      if (i == 5_000) {
+        underTest.trimToSize();
+      }
+      int code = underTest.encode(value.toCharArray(), 0, value.length());
+      assertThat(code).isEqualTo(expected.computeIfAbsent(value, key -> expected.size()));
+      assertThat(underTest.get(code)).isEqualTo(value);
+    }
+    assertThat(underTest.size()).isEqualTo(expected.size());
+  }
+
+  /**
+   * Test new strings are not encoded once the dictionary is full, known strings still are
+   */
+  @Test
+  void fullDictionaryOnlyEncodesKnownStrings() {
+    //given
+    StringDictionary underTest = new StringDictionary(1);
+    String known = underTest.intern("known");
+
+    //when / then
+    assertThat(underTest.encode("other")).isEqualTo(StringDictionary.NOT_ENCODED);
+    assertThat(underTest.intern("other".toCharArray(), 0, 5)).isEqualTo("other");
+    assertThat(underTest.intern("known".toCharArray(), 0, 5)).isSameAs(known);
+    assertThat(underTest.size()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,62 @@
+package com.rabobank.nl.statementprocessor.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+  /**
+   * Test tasks run on named virtual threads when the Java version supports them
+   */
+  @Test
+  void newThreadPerTaskExecutorRunsTasksOnVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "virtual threads require Java 21");
+    //given
+    ExecutorService underTest = VirtualThreads.newThreadPerTaskExecutor("test-virtual-");
+
+    //when
+    Thread thread = underTest.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+    underTest.shutdown();
+
+    //then
+    assertThat(thread.getName()).startsWith("test-virtual-");
+    assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+  }
+
+  /**
+   * Test virtual threads are refused on a Java version without them
+   */
+  @Test
+  void threadFactoryUnsupportedBeforeJava21() {
+    assumeFalse(VirtualThreads.isSupported(), "virtual threads are supported");
+
+    //when then
+    assertThatThrownBy(() -> VirtualThreads.threadFactory("test-virtual-"))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  /**
+   * Test the platform thread factory is used on a Java version without virtual threads
+   */
+  @Test
+  void threadFactoryFallsBackBeforeJava21() {
+    assumeFalse(VirtualThreads.isSupported(), "virtual threads are supported");
+    //given
+    ThreadFactory platformThreadFactory = Executors.defaultThreadFactory();
+
+    //when
+    ThreadFactory threadFactory = VirtualThreads.threadFactory("test-virtual-",
+        platformThreadFactory);
+
+    //then
+    assertThat(threadFactory).isSameAs(platformThreadFactory);
+  }
+}